@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.mqutilities.benchmarks;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.BrowseMessageHeaders;
+import eu.cdevreeze.mqutilities.jmscontextfunction.GetMessageCount;
+import eu.cdevreeze.mqutilities.jmscontextfunction.ShowAllMessages;
+import eu.cdevreeze.mqutilities.jmscontextfunction.StreamAllMessages;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import jakarta.jms.JMSContext;
+import jakarta.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Writer;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the browsing functions {@link ShowAllMessages}, {@link StreamAllMessages},
+ * {@link BrowseMessageHeaders} and {@link GetMessageCount}, for varying queue depths and payload sizes.
+ *
+ * @author Chris de Vreeze
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BrowseBenchmark {
+
+    private static final String QUEUE_NAME = "DEV.QUEUE.1";
+
+    @Param({"100", "10000"})
+    public int queueDepth;
+
+    @Param({"100", "10000"})
+    public int payloadSize;
+
+    private JMSContext jmsContext;
+    private XMLOutputFactory xmlOutputFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jmsContext = InProcessJms.newJmsContext(InProcessJms.newTextMessages(queueDepth, payloadSize), new AtomicLong());
+        xmlOutputFactory = XMLOutputFactory.newFactory();
+    }
+
+    @Benchmark
+    public Element showAllMessages() {
+        return new ShowAllMessages(QUEUE_NAME).apply(jmsContext);
+    }
+
+    @Benchmark
+    public void streamAllMessagesInBrowseOrder() throws XMLStreamException {
+        streamAllMessages(StreamAllMessages.Order.BROWSE_ORDER, OptionalInt.empty());
+    }
+
+    @Benchmark
+    public void streamAllMessagesNewestFirst() throws XMLStreamException {
+        streamAllMessages(StreamAllMessages.Order.NEWEST_FIRST, OptionalInt.empty());
+    }
+
+    @Benchmark
+    public void streamNewest100Messages() throws XMLStreamException {
+        streamAllMessages(StreamAllMessages.Order.NEWEST_FIRST, OptionalInt.of(100));
+    }
+
+    @Benchmark
+    public void browseMessageHeadersAsNdjson() {
+        browseMessageHeaders(BrowseMessageHeaders.Format.NDJSON);
+    }
+
+    @Benchmark
+    public void browseMessageHeadersAsCsv() {
+        browseMessageHeaders(BrowseMessageHeaders.Format.CSV);
+    }
+
+    @Benchmark
+    public JsonObject getMessageCountByBrowsing() {
+        return new GetMessageCount(QUEUE_NAME, GetMessageCount.Method.BROWSE).apply(jmsContext);
+    }
+
+    private void streamAllMessages(StreamAllMessages.Order order, OptionalInt maxMessageCount)
+            throws XMLStreamException {
+        XMLStreamWriter xmlStreamWriter = xmlOutputFactory.createXMLStreamWriter(Writer.nullWriter());
+        new StreamAllMessages(QUEUE_NAME, order, maxMessageCount).accept(jmsContext, xmlStreamWriter);
+        xmlStreamWriter.flush();
+    }
+
+    private void browseMessageHeaders(BrowseMessageHeaders.Format format) {
+        new BrowseMessageHeaders(QUEUE_NAME, format, Optional.empty(), Optional.empty())
+                .accept(jmsContext, Writer.nullWriter());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import jakarta.jms.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process JMS stand-in, offering just enough of {@link JMSContext} to run the JMS context functions
+ * without a queue manager. It is implemented with dynamic proxies: browsing a queue returns a fixed list of
+ * pre-built text messages, sending only counts the messages sent, and transactions are no-ops.
+ * Unsupported methods, such as creating temporary queues, throw an exception, so functions that try
+ * a queue depth inquiry fall back to browsing.
+ *
+ * @author Chris de Vreeze
+ */
+public final class InProcessJms {
+
+    private InProcessJms() {
+    }
+
+    /**
+     * Returns a {@link JMSContext} whose queues all contain the given messages, and which counts sent messages
+     * in the given counter.
+     */
+    public static JMSContext newJmsContext(ImmutableList<Message> queueContent, AtomicLong sentMessageCounter) {
+        return proxy(JMSContext.class, new JmsContextHandler(queueContent, sentMessageCounter));
+    }
+
+    /**
+     * Returns the given number of text messages, with payloads of the given size, and increasing timestamps.
+     */
+    public static ImmutableList<Message> newTextMessages(int count, int payloadSize) {
+        String payload = "x".repeat(payloadSize);
+        ImmutableList.Builder<Message> messages = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            messages.add(newTextMessage("ID:" + i, 1_700_000_000_000L + i, payload));
+        }
+        return messages.build();
+    }
+
+    public static TextMessage newTextMessage(String messageId, long timestamp, String text) {
+        return proxy(TextMessage.class, new TextMessageHandler(messageId, timestamp, text));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InProcessJms.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object handleObjectMethod(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> proxy.getClass().getInterfaces()[0].getSimpleName() + "@" + System.identityHashCode(proxy);
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    private record JmsContextHandler(ImmutableList<Message> queueContent, AtomicLong sentMessageCounter)
+            implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return handleObjectMethod(proxy, method, args);
+            }
+            return switch (method.getName()) {
+                case "createQueue" -> proxy(Queue.class, (p, m, a) ->
+                        m.getDeclaringClass() == Object.class ? handleObjectMethod(p, m, a) : args[0]);
+                case "createBrowser" -> proxy(QueueBrowser.class, (p, m, a) -> switch (m.getName()) {
+                    case "getEnumeration" -> Collections.enumeration(queueContent);
+                    case "close" -> null;
+                    default -> handleObjectMethod(p, m, a);
+                });
+                case "createProducer" -> proxy(JMSProducer.class, new JmsProducerHandler(sentMessageCounter));
+                case "createTextMessage" ->
+                        newTextMessage("ID:new", System.currentTimeMillis(), (args == null) ? null : (String) args[0]);
+                case "createContext" -> proxy;
+                case "commit", "rollback", "close", "start", "stop", "acknowledge", "setExceptionListener" -> null;
+                default -> throw new JMSRuntimeException("Not supported by the in-process JMS stand-in: " + method.getName());
+            };
+        }
+    }
+
+    private record JmsProducerHandler(AtomicLong sentMessageCounter) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return handleObjectMethod(proxy, method, args);
+            }
+            if (method.getName().equals("send")) {
+                sentMessageCounter.incrementAndGet();
+                return proxy;
+            } else if (method.getReturnType() == JMSProducer.class) {
+                // Fluent setters
+                return proxy;
+            } else {
+                throw new JMSRuntimeException("Not supported by the in-process JMS stand-in: " + method.getName());
+            }
+        }
+    }
+
+    private record TextMessageHandler(String messageId, long timestamp, String text) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return handleObjectMethod(proxy, method, args);
+            }
+            return switch (method.getName()) {
+                case "getText" -> text;
+                case "getJMSMessageID" -> messageId;
+                case "getJMSTimestamp" -> timestamp;
+                case "getJMSPriority" -> 4;
+                case "getJMSDeliveryMode" -> DeliveryMode.PERSISTENT;
+                case "getJMSExpiration", "getJMSDeliveryTime" -> 0L;
+                case "getJMSRedelivered", "propertyExists" -> false;
+                case "getPropertyNames" -> Collections.emptyEnumeration();
+                case "getBody" -> text;
+                default -> defaultValue(method.getReturnType());
+            };
+        }
+
+        private static Object defaultValue(Class<?> returnType) {
+            if (returnType == boolean.class) {
+                return false;
+            } else if (returnType == int.class) {
+                return 0;
+            } else if (returnType == long.class) {
+                return 0L;
+            } else if (returnType.isPrimitive() && returnType != void.class) {
+                throw new UnsupportedOperationException("No default value for " + returnType);
+            } else {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.mqutilities.benchmarks;
+
+import eu.cdevreeze.mqutilities.console.JmsPrograms;
+import eu.cdevreeze.mqutilities.jmscontextfunction.ShowAllMessages;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the output step of the console programs: writing XML and pretty-printed JSON results with
+ * {@link JmsPrograms#writeXml(Element, Writer)} and {@link JmsPrograms#writeJson(JsonObject, Writer)}, to
+ * a Writer that discards its output, so that only the serialization is measured.
+ *
+ * @author Chris de Vreeze
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OutputBenchmark {
+
+    @Param({"100", "10000"})
+    public int queueDepth;
+
+    @Param({"100", "10000"})
+    public int payloadSize;
+
+    private Element xmlResult;
+    private JsonObject jsonResult;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        xmlResult = new ShowAllMessages("DEV.QUEUE.1").apply(
+                InProcessJms.newJmsContext(InProcessJms.newTextMessages(queueDepth, payloadSize), new AtomicLong())
+        );
+
+        // A JSON result with one entry per message, like the per-queue entries of GetMessageCounts
+        JsonArrayBuilder entries = Json.createArrayBuilder();
+        String payload = "x".repeat(payloadSize);
+        for (int i = 0; i < queueDepth; i++) {
+            entries.add(Json.createObjectBuilder().add("messageId", "ID:" + i).add("message", payload));
+        }
+        jsonResult = Json.createObjectBuilder().add("queue", "DEV.QUEUE.1").add("messages", entries).build();
+    }
+
+    @Benchmark
+    public void writeXml(Blackhole blackhole) {
+        JmsPrograms.writeXml(xmlResult, new DiscardingWriter(blackhole));
+    }
+
+    @Benchmark
+    public void writeJson(Blackhole blackhole) {
+        JmsPrograms.writeJson(jsonResult, new DiscardingWriter(blackhole));
+    }
+
+    /**
+     * Writer that passes the written characters to a {@link Blackhole}, so that writing them is not optimized away.
+     */
+    private static final class DiscardingWriter extends Writer {
+
+        private final Blackhole blackhole;
+
+        DiscardingWriter(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int c) {
+            blackhole.consume(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            blackhole.consume(cbuf);
+            blackhole.consume(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            blackhole.consume(str);
+            blackhole.consume(len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
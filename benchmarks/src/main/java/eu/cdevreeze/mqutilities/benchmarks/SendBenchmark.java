@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.mqutilities.benchmarks;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.SendTextMessage;
+import jakarta.jms.JMSContext;
+import jakarta.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the client-side cost of {@link SendTextMessage}, for varying payload sizes.
+ *
+ * @author Chris de Vreeze
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SendBenchmark {
+
+    private static final String QUEUE_NAME = "DEV.QUEUE.1";
+
+    @Param({"100", "10000", "1000000"})
+    public int payloadSize;
+
+    private JMSContext jmsContext;
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jmsContext = InProcessJms.newJmsContext(InProcessJms.newTextMessages(0, 0), new AtomicLong());
+        payload = "x".repeat(payloadSize);
+    }
+
+    @Benchmark
+    public JsonObject sendTextMessage() {
+        return new SendTextMessage(QUEUE_NAME, payload).apply(jmsContext);
+    }
+}
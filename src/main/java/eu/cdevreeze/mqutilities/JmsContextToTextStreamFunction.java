@@ -0,0 +1,36 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities;
+
+import jakarta.jms.JMSContext;
+
+import java.io.Writer;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link java.util.function.BiConsumer} taking a {@link jakarta.jms.JMSContext}, and writing its text result
+ * to a {@link Writer} while the JMSContext is still being used. It is meant for line-oriented output formats,
+ * such as NDJSON (one JSON object per line) and CSV, that are neither a single JSON value nor an XML document.
+ * <p>
+ * The function should end each line with a newline character. The caller is responsible for flushing
+ * and closing the Writer.
+ *
+ * @author Chris de Vreeze
+ */
+@FunctionalInterface
+public interface JmsContextToTextStreamFunction extends BiConsumer<JMSContext, Writer> {
+}
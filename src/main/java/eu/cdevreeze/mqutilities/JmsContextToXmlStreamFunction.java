@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities;
+
+import jakarta.jms.JMSContext;
+
+import javax.xml.stream.XMLStreamWriter;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link java.util.function.BiConsumer} taking a {@link jakarta.jms.JMSContext}, and writing its XML result
+ * to an {@link XMLStreamWriter} while the JMSContext is still being used. Unlike a {@link JmsContextToElementFunction},
+ * the XML result is never built in memory as a whole.
+ * <p>
+ * The caller is responsible for writing the start and end of the document, and for flushing the XMLStreamWriter.
+ *
+ * @author Chris de Vreeze
+ */
+@FunctionalInterface
+public interface JmsContextToXmlStreamFunction extends BiConsumer<JMSContext, XMLStreamWriter> {
+}
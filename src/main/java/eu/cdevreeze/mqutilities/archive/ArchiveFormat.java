@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Constants and file naming of the archive format.
+ * <p>
+ * An archive is a directory containing numbered segment files ("segment-000000.mqa" etc.), each with an
+ * index file ("segment-000000.mqi"). A segment file starts with a header (magic number, version, compression),
+ * followed by blocks. Each block has a header (stored length, uncompressed length, record count) followed by
+ * the (optionally deflate-compressed) records. An index file starts with a header (magic number, version),
+ * followed by one fixed-size entry per record: the record number, the file offset of its block in the
+ * segment file, and the offset of the record within the uncompressed block.
+ * <p>
+ * All numbers are big-endian.
+ *
+ * @author Chris de Vreeze
+ */
+final class ArchiveFormat {
+
+    static final int SEGMENT_MAGIC = 0x4D514152; // "MQAR"
+    static final int INDEX_MAGIC = 0x4D514149; // "MQAI"
+    static final short VERSION = 1;
+
+    static final int SEGMENT_HEADER_SIZE = 4 + 2 + 1;
+    static final int BLOCK_HEADER_SIZE = 4 + 4 + 4;
+    static final int INDEX_HEADER_SIZE = 4 + 2;
+    static final int INDEX_ENTRY_SIZE = 8 + 8 + 4;
+
+    /**
+     * Uncompressed block size after which a block is written.
+     */
+    static final int BLOCK_SIZE = 1 << 18;
+
+    /**
+     * Upper bound of the configurable segment size, so that a segment file can be memory-mapped as a whole.
+     */
+    static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final String SEGMENT_SUFFIX = ".mqa";
+    private static final String INDEX_SUFFIX = ".mqi";
+
+    private ArchiveFormat() {
+    }
+
+    static Path segmentFile(Path directory, int segmentNumber) {
+        return directory.resolve(String.format("segment-%06d%s", segmentNumber, SEGMENT_SUFFIX));
+    }
+
+    static Path indexFile(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(
+                fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX
+        );
+    }
+
+    /**
+     * Returns the segment files in the given archive directory, in segment order.
+     */
+    static List<Path> segmentFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(f -> f.getFileName().toString().matches("segment-\\d{6}\\" + SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
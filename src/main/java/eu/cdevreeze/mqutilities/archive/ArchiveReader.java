@@ -0,0 +1,247 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of a message archive written by {@link ArchiveWriter}. An archive is a directory of numbered segment
+ * files, each holding blocks of length-prefixed message records, optionally deflate-compressed per block,
+ * and each accompanied by an index file with the block offset of each record. Records are numbered from 0
+ * throughout the archive.
+ * <p>
+ * Segment and index files are memory-mapped when read. Records can be read sequentially (per segment or for
+ * the whole archive), or randomly by record number, using the index.
+ * <p>
+ * Instances are not thread-safe, and must be closed after use.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ArchiveReader implements Closeable {
+
+    private record IndexEntry(long blockOffset, int offsetInBlock) {
+    }
+
+    private final ImmutableList<Path> segmentFiles;
+    private final long[] firstRecordNumbers;
+    private final long recordCount;
+
+    private final Inflater inflater = new Inflater();
+    private ByteBuffer inflatedBlock = ByteBuffer.allocate(2 * ArchiveFormat.BLOCK_SIZE);
+
+    private ArchiveReader(ImmutableList<Path> segmentFiles, long[] firstRecordNumbers, long recordCount) {
+        this.segmentFiles = segmentFiles;
+        this.firstRecordNumbers = firstRecordNumbers;
+        this.recordCount = recordCount;
+    }
+
+    public static ArchiveReader open(Path directory) {
+        ImmutableList<Path> segmentFiles = ImmutableList.copyOf(ArchiveFormat.segmentFiles(directory));
+        long[] firstRecordNumbers = new long[segmentFiles.size()];
+        long recordCount = 0;
+
+        try {
+            for (int i = 0; i < segmentFiles.size(); i++) {
+                firstRecordNumbers[i] = recordCount;
+                try (FileChannel indexChannel =
+                             FileChannel.open(ArchiveFormat.indexFile(segmentFiles.get(i)), StandardOpenOption.READ)) {
+                    recordCount += (indexChannel.size() - ArchiveFormat.INDEX_HEADER_SIZE) / ArchiveFormat.INDEX_ENTRY_SIZE;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ArchiveReader(segmentFiles, firstRecordNumbers, recordCount);
+    }
+
+    public ImmutableList<Path> segmentFiles() {
+        return segmentFiles;
+    }
+
+    public long recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of the first record in the given segment.
+     */
+    public long firstRecordNumber(int segmentIndex) {
+        return firstRecordNumbers[segmentIndex];
+    }
+
+    /**
+     * Returns the record number following the last record in the given segment.
+     */
+    public long endRecordNumber(int segmentIndex) {
+        return (segmentIndex + 1 < firstRecordNumbers.length) ? firstRecordNumbers[segmentIndex + 1] : recordCount;
+    }
+
+    /**
+     * Passes all records of the archive, in order, to the given consumer.
+     */
+    public void forEach(Consumer<ArchiveRecord> consumer) {
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            forEachInSegment(i, consumer);
+        }
+    }
+
+    /**
+     * Passes all records of the given segment, in order, to the given consumer.
+     */
+    public void forEachInSegment(int segmentIndex, Consumer<ArchiveRecord> consumer) {
+        forEachInSegment(segmentIndex, firstRecordNumbers[segmentIndex], (rec, recordNumber) -> consumer.accept(rec));
+    }
+
+    /**
+     * Passes the records of the given segment, in order and together with their record numbers, to the given
+     * consumer, starting at the given record number. The index is used to skip the preceding blocks.
+     */
+    public void forEachInSegment(int segmentIndex, long fromRecordNumber, ObjLongConsumer<ArchiveRecord> consumer) {
+        long firstRecordNumber = firstRecordNumbers[segmentIndex];
+        long endRecordNumber = endRecordNumber(segmentIndex);
+        Preconditions.checkArgument(
+                fromRecordNumber >= firstRecordNumber && fromRecordNumber <= endRecordNumber,
+                "Record number not within segment"
+        );
+        if (fromRecordNumber == endRecordNumber) {
+            return;
+        }
+
+        Path segmentFile = segmentFiles.get(segmentIndex);
+        MappedByteBuffer segment = map(segmentFile);
+        ArchiveWriter.Compression compression = readSegmentHeader(segment);
+
+        IndexEntry indexEntry = readIndexEntry(segmentFile, fromRecordNumber - firstRecordNumber);
+        segment.position(Math.toIntExact(indexEntry.blockOffset()));
+        int offsetInBlock = indexEntry.offsetInBlock();
+        long recordNumber = fromRecordNumber;
+
+        while (segment.hasRemaining()) {
+            ByteBuffer block = readBlock(segment, compression);
+            block.position(offsetInBlock);
+            offsetInBlock = 0;
+
+            while (block.hasRemaining()) {
+                consumer.accept(RecordCodec.decode(block), recordNumber);
+                recordNumber += 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the record with the given record number, using the index to find it.
+     */
+    public ArchiveRecord read(long recordNumber) {
+        Preconditions.checkArgument(recordNumber >= 0 && recordNumber < recordCount, "Record number out of range");
+
+        // Segments are never empty, so their first record numbers are strictly increasing
+        int searchResult = Arrays.binarySearch(firstRecordNumbers, recordNumber);
+        int segmentIndex = (searchResult >= 0) ? searchResult : -searchResult - 2;
+        Path segmentFile = segmentFiles.get(segmentIndex);
+
+        IndexEntry indexEntry = readIndexEntry(segmentFile, recordNumber - firstRecordNumbers[segmentIndex]);
+
+        MappedByteBuffer segment = map(segmentFile);
+        ArchiveWriter.Compression compression = readSegmentHeader(segment);
+        segment.position(Math.toIntExact(indexEntry.blockOffset()));
+        ByteBuffer block = readBlock(segment, compression);
+        block.position(indexEntry.offsetInBlock());
+        return RecordCodec.decode(block);
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    private static IndexEntry readIndexEntry(Path segmentFile, long recordIndexInSegment) {
+        MappedByteBuffer index = map(ArchiveFormat.indexFile(segmentFile));
+        int entryPosition = ArchiveFormat.INDEX_HEADER_SIZE +
+                Math.toIntExact(recordIndexInSegment) * ArchiveFormat.INDEX_ENTRY_SIZE;
+        return new IndexEntry(index.getLong(entryPosition + 8), index.getInt(entryPosition + 16));
+    }
+
+    private static ArchiveWriter.Compression readSegmentHeader(ByteBuffer segment) {
+        Preconditions.checkState(segment.getInt() == ArchiveFormat.SEGMENT_MAGIC, "Not an archive segment");
+        short version = segment.getShort();
+        Preconditions.checkState(version == ArchiveFormat.VERSION, "Unsupported archive version " + version);
+        return ArchiveWriter.Compression.values()[segment.get()];
+    }
+
+    /**
+     * Reads the block at the current position of the segment, advancing the position past the block.
+     * The returned buffer is only valid until the next block is read.
+     */
+    private ByteBuffer readBlock(ByteBuffer segment, ArchiveWriter.Compression compression) {
+        Preconditions.checkState(segment.remaining() >= ArchiveFormat.BLOCK_HEADER_SIZE, "Truncated archive block");
+        int storedLength = segment.getInt();
+        int uncompressedLength = segment.getInt();
+        segment.getInt(); // record count
+        Preconditions.checkState(storedLength <= segment.remaining(), "Truncated archive block");
+
+        ByteBuffer stored = segment.slice(segment.position(), storedLength);
+        segment.position(segment.position() + storedLength);
+
+        if (compression == ArchiveWriter.Compression.NONE) {
+            return stored;
+        }
+
+        if (inflatedBlock.capacity() < uncompressedLength) {
+            inflatedBlock = ByteBuffer.allocate(uncompressedLength);
+        }
+        inflatedBlock.clear().limit(uncompressedLength);
+        inflater.reset();
+        inflater.setInput(stored);
+        try {
+            while (inflatedBlock.hasRemaining() && !inflater.finished()) {
+                int inflatedCount = inflater.inflate(inflatedBlock);
+                // No progress while input or a dictionary is lacking means the block will never complete
+                if (inflatedCount == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Corrupt archive block");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        }
+        Preconditions.checkState(inflatedBlock.position() == uncompressedLength, "Corrupt archive block");
+        return inflatedBlock.flip();
+    }
+
+    private static MappedByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Preconditions.checkState(channel.size() <= Integer.MAX_VALUE, "File too large to map: " + file);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One archived JMS message: its headers, its properties and its body.
+ * <p>
+ * The type of the body depends on the body type: a String for text messages, a byte array for bytes messages,
+ * an unmodifiable Map for map messages, an unmodifiable List for stream messages, and null otherwise. The bodies
+ * of object messages are not archived, since deserializing them would require the application classes.
+ * Property values (and map and stream message values) have the Java types used by JMS for them.
+ *
+ * @author Chris de Vreeze
+ */
+public record ArchiveRecord(
+        String messageId,
+        String correlationId,
+        String jmsType,
+        String destination,
+        String replyTo,
+        long timestamp,
+        long expiration,
+        long deliveryTime,
+        int priority,
+        int deliveryMode,
+        boolean redelivered,
+        Map<String, Object> properties,
+        BodyType bodyType,
+        Object body) {
+
+    public enum BodyType {
+        NONE, TEXT, BYTES, MAP, STREAM, OBJECT
+    }
+
+    public String textBody() {
+        Preconditions.checkState(bodyType == BodyType.TEXT, "Not a text message");
+        return (String) body;
+    }
+
+    public byte[] bytesBody() {
+        Preconditions.checkState(bodyType == BodyType.BYTES, "Not a bytes message");
+        return (byte[]) body;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> mapBody() {
+        Preconditions.checkState(bodyType == BodyType.MAP, "Not a map message");
+        return (Map<String, Object>) body;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object> streamBody() {
+        Preconditions.checkState(bodyType == BodyType.STREAM, "Not a stream message");
+        return (List<Object>) body;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import com.google.common.base.Preconditions;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.jms.Message;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writer of a segmented message archive, as read by {@link ArchiveReader}. Messages are encoded into
+ * a reusable block buffer, and each full block is compressed (with a reusable {@link Deflater}) and written
+ * through a direct buffer to the segment {@link FileChannel}. When a segment file exceeds the maximum segment size,
+ * the next block starts a new segment, so the archive is rolling.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ArchiveWriter implements Closeable {
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int INDEX_BUFFER_SIZE = 1 << 16;
+
+    public enum Compression {
+        NONE, DEFLATE;
+
+        public static Compression parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown compression '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final Path directory;
+    private final Compression compression;
+    private final long maxSegmentBytes;
+
+    private final RecordBuffer block = new RecordBuffer(2 * ArchiveFormat.BLOCK_SIZE);
+    private int[] recordOffsets = new int[1024];
+    private int recordsInBlock = 0;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressedBlock = new byte[ArchiveFormat.BLOCK_SIZE];
+
+    private final ByteBuffer segmentWriteBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final ByteBuffer indexWriteBuffer = ByteBuffer.allocateDirect(INDEX_BUFFER_SIZE);
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private long segmentPosition;
+
+    private int segmentCount = 0;
+    private long recordCount = 0;
+    private long uncompressedByteCount = 0;
+    private long storedByteCount = 0;
+
+    public ArchiveWriter(Path directory, Compression compression, long maxSegmentBytes) {
+        Preconditions.checkArgument(
+                maxSegmentBytes > 0 && maxSegmentBytes <= ArchiveFormat.MAX_SEGMENT_BYTES,
+                String.format("Expected a maximum segment size between 1 and %d", ArchiveFormat.MAX_SEGMENT_BYTES)
+        );
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Preconditions.checkArgument(
+                ArchiveFormat.segmentFiles(directory).isEmpty(),
+                String.format("Directory '%s' already contains an archive", directory)
+        );
+        this.directory = directory;
+        this.compression = compression;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Appends the given message to the archive.
+     */
+    public void append(Message message) {
+        if (recordsInBlock == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+        }
+        recordOffsets[recordsInBlock] = block.position();
+
+        try {
+            RecordCodec.encode(message, block);
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+        recordsInBlock += 1;
+
+        if (block.position() >= ArchiveFormat.BLOCK_SIZE) {
+            try {
+                writeBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending block, if any, and forces all written data to disk. After this call, all appended
+     * messages are durably stored, so they can be safely removed from the queue.
+     */
+    public void flush() {
+        try {
+            writeBlock();
+            if (segmentChannel != null) {
+                drain(segmentWriteBuffer, segmentChannel);
+                drain(indexWriteBuffer, indexChannel);
+                segmentChannel.force(false);
+                indexChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Discards the records appended since the last block was written, so that neither a later flush nor
+     * close writes them. This is meant for records whose consumption is rolled back. Records in blocks
+     * that have already been written (because the block became full) are kept.
+     */
+    public void discardPending() {
+        block.clear();
+        recordsInBlock = 0;
+    }
+
+    public long recordCount() {
+        return recordCount + recordsInBlock;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    public long uncompressedByteCount() {
+        return uncompressedByteCount;
+    }
+
+    public long storedByteCount() {
+        return storedByteCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            writeBlock();
+            closeSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (recordsInBlock == 0) {
+            return;
+        }
+        if (segmentChannel == null) {
+            openSegment();
+        }
+
+        int uncompressedLength = block.position();
+        byte[] stored;
+        int storedLength;
+        if (compression == Compression.DEFLATE) {
+            deflater.reset();
+            deflater.setInput(block.array(), 0, uncompressedLength);
+            deflater.finish();
+            storedLength = 0;
+            while (!deflater.finished()) {
+                if (storedLength == compressedBlock.length) {
+                    compressedBlock = Arrays.copyOf(compressedBlock, compressedBlock.length * 2);
+                }
+                storedLength += deflater.deflate(compressedBlock, storedLength, compressedBlock.length - storedLength);
+            }
+            stored = compressedBlock;
+        } else {
+            stored = block.array();
+            storedLength = uncompressedLength;
+        }
+
+        long blockOffset = segmentPosition;
+        ensureRemaining(segmentWriteBuffer, segmentChannel, ArchiveFormat.BLOCK_HEADER_SIZE);
+        segmentWriteBuffer.putInt(storedLength).putInt(uncompressedLength).putInt(recordsInBlock);
+        write(stored, storedLength);
+        segmentPosition += ArchiveFormat.BLOCK_HEADER_SIZE + storedLength;
+
+        for (int i = 0; i < recordsInBlock; i++) {
+            ensureRemaining(indexWriteBuffer, indexChannel, ArchiveFormat.INDEX_ENTRY_SIZE);
+            indexWriteBuffer.putLong(recordCount + i).putLong(blockOffset).putInt(recordOffsets[i]);
+        }
+
+        recordCount += recordsInBlock;
+        uncompressedByteCount += uncompressedLength;
+        storedByteCount += ArchiveFormat.BLOCK_HEADER_SIZE + storedLength;
+        block.clear();
+        recordsInBlock = 0;
+
+        if (segmentPosition >= maxSegmentBytes) {
+            closeSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path segmentFile = ArchiveFormat.segmentFile(directory, segmentCount);
+        segmentChannel = FileChannel.open(segmentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(
+                ArchiveFormat.indexFile(segmentFile),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+        );
+        segmentCount += 1;
+
+        segmentWriteBuffer.putInt(ArchiveFormat.SEGMENT_MAGIC)
+                .putShort(ArchiveFormat.VERSION)
+                .put((byte) compression.ordinal());
+        segmentPosition = ArchiveFormat.SEGMENT_HEADER_SIZE;
+        indexWriteBuffer.putInt(ArchiveFormat.INDEX_MAGIC).putShort(ArchiveFormat.VERSION);
+        storedByteCount += ArchiveFormat.SEGMENT_HEADER_SIZE;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segmentChannel == null) {
+            return;
+        }
+        // A rolled segment is no longer seen by flush, so it must be forced to disk here
+        try (FileChannel s = segmentChannel; FileChannel i = indexChannel) {
+            drain(segmentWriteBuffer, s);
+            drain(indexWriteBuffer, i);
+            s.force(false);
+            i.force(false);
+        } finally {
+            segmentChannel = null;
+            indexChannel = null;
+        }
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        if (length <= segmentWriteBuffer.capacity()) {
+            ensureRemaining(segmentWriteBuffer, segmentChannel, length);
+            segmentWriteBuffer.put(bytes, 0, length);
+        } else {
+            // Too large for the write buffer, so bypass it
+            drain(segmentWriteBuffer, segmentChannel);
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes, 0, length);
+            while (wrapped.hasRemaining()) {
+                segmentChannel.write(wrapped);
+            }
+        }
+    }
+
+    private static void ensureRemaining(ByteBuffer buffer, FileChannel channel, int byteCount) throws IOException {
+        if (buffer.remaining() < byteCount) {
+            drain(buffer, channel);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
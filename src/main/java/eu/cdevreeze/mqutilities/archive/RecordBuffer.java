@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import com.google.common.base.Utf8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Growable heap byte buffer into which archive records are encoded. It is reused for all records of a block,
+ * and strings are encoded directly into it, so encoding a record does not copy the payload more than needed.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class RecordBuffer {
+
+    private static final int NULL_LENGTH = -1;
+
+    private final CharsetEncoder utf8Encoder = StandardCharsets.UTF_8.newEncoder();
+    private ByteBuffer buffer;
+
+    RecordBuffer(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    void putByte(int value) {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+    }
+
+    void putShort(short value) {
+        ensureRemaining(2);
+        buffer.putShort(value);
+    }
+
+    void putChar(char value) {
+        ensureRemaining(2);
+        buffer.putChar(value);
+    }
+
+    void putInt(int value) {
+        ensureRemaining(4);
+        buffer.putInt(value);
+    }
+
+    void putIntAt(int index, int value) {
+        buffer.putInt(index, value);
+    }
+
+    void putLong(long value) {
+        ensureRemaining(8);
+        buffer.putLong(value);
+    }
+
+    void putFloat(float value) {
+        ensureRemaining(4);
+        buffer.putFloat(value);
+    }
+
+    void putDouble(double value) {
+        ensureRemaining(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes the length-prefixed byte array, or length -1 for null.
+     */
+    void putBytes(byte[] value) {
+        if (value == null) {
+            putInt(NULL_LENGTH);
+        } else {
+            ensureRemaining(4 + value.length);
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    /**
+     * Writes the length-prefixed UTF-8 encoding of the string, or length -1 for null.
+     */
+    void putString(String value) {
+        if (value == null) {
+            putInt(NULL_LENGTH);
+            return;
+        }
+        // Reserving exactly the encoded length keeps large payloads from tripling the buffer
+        // (throws IllegalArgumentException for unpaired surrogates)
+        int encodedLength = Utf8.encodedLength(value);
+        ensureRemaining(4 + encodedLength);
+        buffer.putInt(encodedLength);
+
+        utf8Encoder.reset();
+        CoderResult result = utf8Encoder.encode(CharBuffer.wrap(value), buffer, true);
+        if (result.isError() || utf8Encoder.flush(buffer).isError()) {
+            throw new IllegalArgumentException("Could not encode string as UTF-8");
+        }
+    }
+
+    private void ensureRemaining(int byteCount) {
+        if (buffer.remaining() < byteCount) {
+            int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + byteCount);
+            ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TextMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary encoding of archive records. A record is length-prefixed, and consists of the JMS headers,
+ * the properties and the body (itself length-prefixed). Strings are length-prefixed UTF-8, with length -1
+ * for null. Property values and map and stream message values are tagged with their type.
+ *
+ * @author Chris de Vreeze
+ */
+final class RecordCodec {
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_BOOLEAN = 1;
+    private static final int TAG_BYTE = 2;
+    private static final int TAG_SHORT = 3;
+    private static final int TAG_CHAR = 4;
+    private static final int TAG_INT = 5;
+    private static final int TAG_LONG = 6;
+    private static final int TAG_FLOAT = 7;
+    private static final int TAG_DOUBLE = 8;
+    private static final int TAG_STRING = 9;
+    private static final int TAG_BYTES = 10;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * Appends the encoded message to the buffer, returning the number of body bytes.
+     */
+    static int encode(Message message, RecordBuffer out) throws JMSException {
+        int start = out.position();
+        out.putInt(0);
+
+        ArchiveRecord.BodyType bodyType = bodyType(message);
+        out.putByte(bodyType.ordinal());
+        out.putString(message.getJMSMessageID());
+        out.putString(message.getJMSCorrelationID());
+        out.putString(message.getJMSType());
+        out.putString(Objects.toString(message.getJMSDestination(), null));
+        out.putString(Objects.toString(message.getJMSReplyTo(), null));
+        out.putLong(message.getJMSTimestamp());
+        out.putLong(message.getJMSExpiration());
+        out.putLong(message.getJMSDeliveryTime());
+        out.putInt(message.getJMSPriority());
+        out.putInt(message.getJMSDeliveryMode());
+        out.putByte(message.getJMSRedelivered() ? 1 : 0);
+
+        List<String> propertyNames = names(message.getPropertyNames());
+        out.putInt(propertyNames.size());
+        for (String propertyName : propertyNames) {
+            out.putString(propertyName);
+            putValue(message.getObjectProperty(propertyName), out);
+        }
+
+        int bodyStart = out.position();
+        out.putInt(0);
+        switch (bodyType) {
+            case TEXT -> out.putString(((TextMessage) message).getText());
+            case BYTES -> out.putBytes(message.getBody(byte[].class));
+            case MAP -> {
+                MapMessage mapMessage = (MapMessage) message;
+                List<String> mapNames = names(mapMessage.getMapNames());
+                out.putInt(mapNames.size());
+                for (String mapName : mapNames) {
+                    out.putString(mapName);
+                    putValue(mapMessage.getObject(mapName), out);
+                }
+            }
+            case STREAM -> {
+                List<Object> values = readStream((StreamMessage) message);
+                out.putInt(values.size());
+                for (Object value : values) {
+                    putValue(value, out);
+                }
+            }
+            case NONE, OBJECT -> {
+                // No body archived
+            }
+        }
+        int bodyLength = out.position() - bodyStart - 4;
+        out.putIntAt(bodyStart, bodyLength);
+
+        out.putIntAt(start, out.position() - start - 4);
+        return bodyLength;
+    }
+
+    /**
+     * Decodes the record at the current position of the buffer, advancing the position past the record.
+     */
+    static ArchiveRecord decode(ByteBuffer in) {
+        int length = in.getInt();
+        int end = in.position() + length;
+
+        ArchiveRecord.BodyType bodyType = ArchiveRecord.BodyType.values()[in.get()];
+        String messageId = getString(in);
+        String correlationId = getString(in);
+        String jmsType = getString(in);
+        String destination = getString(in);
+        String replyTo = getString(in);
+        long timestamp = in.getLong();
+        long expiration = in.getLong();
+        long deliveryTime = in.getLong();
+        int priority = in.getInt();
+        int deliveryMode = in.getInt();
+        boolean redelivered = in.get() != 0;
+
+        int propertyCount = in.getInt();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            String name = getString(in);
+            properties.put(name, getValue(in));
+        }
+
+        in.getInt(); // body length
+        Object body = switch (bodyType) {
+            case TEXT -> getString(in);
+            case BYTES -> getBytes(in);
+            case MAP -> {
+                int count = in.getInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String name = getString(in);
+                    map.put(name, getValue(in));
+                }
+                yield Collections.unmodifiableMap(map);
+            }
+            case STREAM -> {
+                int count = in.getInt();
+                List<Object> values = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    values.add(getValue(in));
+                }
+                yield Collections.unmodifiableList(values);
+            }
+            case NONE, OBJECT -> null;
+        };
+
+        in.position(end);
+
+        return new ArchiveRecord(
+                messageId,
+                correlationId,
+                jmsType,
+                destination,
+                replyTo,
+                timestamp,
+                expiration,
+                deliveryTime,
+                priority,
+                deliveryMode,
+                redelivered,
+                Collections.unmodifiableMap(properties),
+                bodyType,
+                body
+        );
+    }
+
+    private static ArchiveRecord.BodyType bodyType(Message message) {
+        if (message instanceof TextMessage) {
+            return ArchiveRecord.BodyType.TEXT;
+        } else if (message instanceof BytesMessage) {
+            return ArchiveRecord.BodyType.BYTES;
+        } else if (message instanceof MapMessage) {
+            return ArchiveRecord.BodyType.MAP;
+        } else if (message instanceof StreamMessage) {
+            return ArchiveRecord.BodyType.STREAM;
+        } else if (message instanceof ObjectMessage) {
+            return ArchiveRecord.BodyType.OBJECT;
+        } else {
+            return ArchiveRecord.BodyType.NONE;
+        }
+    }
+
+    private static List<String> names(Enumeration<?> names) {
+        List<String> result = new ArrayList<>();
+        while (names.hasMoreElements()) {
+            result.add(names.nextElement().toString());
+        }
+        return result;
+    }
+
+    private static List<Object> readStream(StreamMessage message) throws JMSException {
+        List<Object> values = new ArrayList<>();
+        try {
+            while (true) {
+                values.add(message.readObject());
+            }
+        } catch (MessageEOFException e) {
+            // End of the stream reached
+        }
+        message.reset();
+        return values;
+    }
+
+    private static void putValue(Object value, RecordBuffer out) {
+        if (value == null) {
+            out.putByte(TAG_NULL);
+        } else if (value instanceof Boolean v) {
+            out.putByte(TAG_BOOLEAN);
+            out.putByte(v ? 1 : 0);
+        } else if (value instanceof Byte v) {
+            out.putByte(TAG_BYTE);
+            out.putByte(v);
+        } else if (value instanceof Short v) {
+            out.putByte(TAG_SHORT);
+            out.putShort(v);
+        } else if (value instanceof Character v) {
+            out.putByte(TAG_CHAR);
+            out.putChar(v);
+        } else if (value instanceof Integer v) {
+            out.putByte(TAG_INT);
+            out.putInt(v);
+        } else if (value instanceof Long v) {
+            out.putByte(TAG_LONG);
+            out.putLong(v);
+        } else if (value instanceof Float v) {
+            out.putByte(TAG_FLOAT);
+            out.putFloat(v);
+        } else if (value instanceof Double v) {
+            out.putByte(TAG_DOUBLE);
+            out.putDouble(v);
+        } else if (value instanceof byte[] v) {
+            out.putByte(TAG_BYTES);
+            out.putBytes(v);
+        } else {
+            out.putByte(TAG_STRING);
+            out.putString(value.toString());
+        }
+    }
+
+    private static Object getValue(ByteBuffer in) {
+        int tag = in.get();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_BOOLEAN -> in.get() != 0;
+            case TAG_BYTE -> in.get();
+            case TAG_SHORT -> in.getShort();
+            case TAG_CHAR -> in.getChar();
+            case TAG_INT -> in.getInt();
+            case TAG_LONG -> in.getLong();
+            case TAG_FLOAT -> in.getFloat();
+            case TAG_DOUBLE -> in.getDouble();
+            case TAG_STRING -> getString(in);
+            case TAG_BYTES -> getBytes(in);
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String result;
+        if (in.hasArray()) {
+            result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    private static byte[] getBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.connection;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextFunction;
+import eu.cdevreeze.mqutilities.jfr.JmsInstrumentation;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSRuntimeException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of {@link JMSContext} instances sharing one physical connection to the queue manager. The connection is
+ * owned by a "root" {@link JMSContext}, and the pooled contexts are child contexts created with
+ * {@link JMSContext#createContext(int)}, so the connection setup cost (including any TLS handshake) is paid once.
+ * <p>
+ * Idle contexts are evicted after an idle timeout. If the connection breaks (as reported to the exception listener
+ * of the root context, or as detected by the periodic health check), it is re-established in the background,
+ * and contexts created from the broken connection are discarded instead of being reused. Contexts whose use
+ * failed with an exception are discarded as well.
+ * <p>
+ * Connects and context creations are recorded as JFR events (see {@link JmsInstrumentation}).
+ * <p>
+ * Instances are thread-safe, but each borrowed {@link JMSContext} must only be used by one thread at a time.
+ * Instances are typically obtained by CDI injection, see {@link JmsContextPools}.
+ *
+ * @author Chris de Vreeze
+ */
+public class JmsContextPool implements AutoCloseable {
+
+    /**
+     * Snapshot of pool metrics. The wait times are the times spent waiting for a pooled context to become available.
+     */
+    public record Metrics(
+            int active,
+            int idle,
+            int maxContexts,
+            long borrowCount,
+            long reconnectCount,
+            long totalWaitNanos,
+            long maxWaitNanos) {
+    }
+
+    private record IdleContext(JMSContext jmsContext, long idleSinceNanos) {
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final int maxContexts;
+    private final Duration idleTimeout;
+    private final Duration maxWait;
+
+    private final Object lock = new Object();
+    private final Semaphore permits;
+    private final Deque<IdleContext> idleContexts = new ArrayDeque<>();
+    private final Map<JMSContext, Long> activeContextGenerations = new IdentityHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean broken = new AtomicBoolean(false);
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private JMSContext rootContext;
+    private long generation;
+    private boolean closed;
+
+    public JmsContextPool(
+            ConnectionFactory connectionFactory,
+            int maxContexts,
+            Duration idleTimeout,
+            Duration maxWait,
+            Duration healthCheckInterval) {
+        Preconditions.checkArgument(maxContexts > 0, "Expected a positive maximum number of contexts");
+        this.connectionFactory = connectionFactory;
+        this.maxContexts = maxContexts;
+        this.idleTimeout = idleTimeout;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxContexts, true);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jms-context-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            this.rootContext = createRootContext();
+        } catch (RuntimeException e) {
+            scheduler.shutdownNow();
+            throw e;
+        }
+        this.generation = 0;
+
+        long intervalMillis = healthCheckInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::maintain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given function with a pooled {@link JMSContext}, returning the context to the pool afterwards.
+     * If the function throws an exception, the context is discarded instead of being returned to the pool.
+     */
+    public <T> T apply(JmsContextFunction<T> function) {
+        JMSContext jmsContext = borrow();
+        boolean succeeded = false;
+        try {
+            T result = function.apply(jmsContext);
+            succeeded = true;
+            return result;
+        } finally {
+            if (succeeded) {
+                release(jmsContext);
+            } else {
+                discard(jmsContext);
+            }
+        }
+    }
+
+    /**
+     * Borrows a {@link JMSContext} (in auto-acknowledge mode) from the pool, waiting if the maximum number of
+     * contexts is in use. The context must be returned with {@link #release(JMSContext)}, or {@link #discard(JMSContext)}
+     * if it is no longer usable. It must not be closed by the caller.
+     */
+    public JMSContext borrow() {
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new JMSRuntimeException(String.format("No pooled JMSContext available within %s", maxWait));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSRuntimeException("Interrupted while waiting for a pooled JMSContext");
+        }
+        long waitNanos = System.nanoTime() - waitStart;
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        borrowCount.incrementAndGet();
+
+        try {
+            synchronized (lock) {
+                Preconditions.checkState(!closed, "Pool closed");
+
+                IdleContext idleContext = idleContexts.pollFirst();
+                JMSContext jmsContext = (idleContext != null) ?
+                        idleContext.jmsContext() :
+                        rootContext.createContext(JMSContext.AUTO_ACKNOWLEDGE);
+                activeContextGenerations.put(jmsContext, generation);
+                return jmsContext;
+            }
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed {@link JMSContext} to the pool.
+     */
+    public void release(JMSContext jmsContext) {
+        synchronized (lock) {
+            Long contextGeneration = activeContextGenerations.remove(jmsContext);
+
+            // Contexts created from a connection that has been replaced in the meantime are not reused
+            if (closed || broken.get() || !Long.valueOf(generation).equals(contextGeneration)) {
+                closeQuietly(jmsContext);
+            } else {
+                idleContexts.addFirst(new IdleContext(jmsContext, System.nanoTime()));
+            }
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes a borrowed {@link JMSContext} instead of returning it to the pool.
+     */
+    public void discard(JMSContext jmsContext) {
+        synchronized (lock) {
+            activeContextGenerations.remove(jmsContext);
+        }
+        closeQuietly(jmsContext);
+        permits.release();
+    }
+
+    public Metrics metrics() {
+        synchronized (lock) {
+            int idle = idleContexts.size();
+            return new Metrics(
+                    maxContexts - permits.availablePermits(),
+                    idle,
+                    maxContexts,
+                    borrowCount.get(),
+                    reconnectCount.get(),
+                    totalWaitNanos.get(),
+                    maxWaitNanos.get()
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (lock) {
+            closed = true;
+            idleContexts.forEach(c -> closeQuietly(c.jmsContext()));
+            idleContexts.clear();
+            closeQuietly(rootContext);
+        }
+    }
+
+    private JMSContext createRootContext() {
+        JMSContext context = JmsInstrumentation.connect(connectionFactory);
+        context.setExceptionListener(e -> onConnectionFailure(context));
+        return context;
+    }
+
+    private void onConnectionFailure(JMSContext failedRootContext) {
+        synchronized (lock) {
+            // Late callbacks after closing the pool, or from an already replaced connection, are ignored
+            if (closed || failedRootContext != rootContext) {
+                return;
+            }
+        }
+        broken.set(true);
+        try {
+            scheduler.execute(this::maintain);
+        } catch (RejectedExecutionException e) {
+            // The pool has been closed in the meantime
+        }
+    }
+
+    /**
+     * Evicts idle contexts and checks the connection, reconnecting if it is broken. Only runs on the maintenance
+     * thread. The probe and the reconnect happen outside the lock, so they do not block borrowing and releasing.
+     */
+    private void maintain() {
+        JMSContext currentRootContext;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            // Evict contexts that have been idle for too long, oldest first
+            long now = System.nanoTime();
+            while (!idleContexts.isEmpty() && now - idleContexts.peekLast().idleSinceNanos() > idleTimeout.toNanos()) {
+                closeQuietly(idleContexts.pollLast().jmsContext());
+            }
+            currentRootContext = rootContext;
+        }
+
+        if (!broken.get()) {
+            // Probe the connection by creating a session on it
+            try {
+                currentRootContext.createContext(JMSContext.AUTO_ACKNOWLEDGE).close();
+            } catch (JMSRuntimeException e) {
+                broken.set(true);
+            }
+        }
+
+        if (broken.get()) {
+            JMSContext newRootContext;
+            try {
+                newRootContext = createRootContext();
+            } catch (JMSRuntimeException e) {
+                // Still broken; try again at the next health check
+                return;
+            }
+
+            List<IdleContext> staleContexts;
+            synchronized (lock) {
+                if (closed) {
+                    closeQuietly(newRootContext);
+                    return;
+                }
+                rootContext = newRootContext;
+                generation += 1;
+                reconnectCount.incrementAndGet();
+                broken.set(false);
+
+                staleContexts = new ArrayList<>(idleContexts);
+                idleContexts.clear();
+            }
+            staleContexts.forEach(c -> closeQuietly(c.jmsContext()));
+            closeQuietly(currentRootContext);
+        }
+    }
+
+    private static void closeQuietly(JMSContext jmsContext) {
+        try {
+            jmsContext.close();
+        } catch (JMSRuntimeException e) {
+            // Ignore, the context is no longer used anyway
+        }
+    }
+}
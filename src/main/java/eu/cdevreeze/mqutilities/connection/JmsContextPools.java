@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.connection;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
+import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import jakarta.jms.ConnectionFactory;
+import org.eclipse.microprofile.config.Config;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * CDI-injectable {@link JmsContextPool} instances, one per connection type, each one wrapping the
+ * {@link ConnectionFactory} with the same connection type, as well as {@link QueueManagerEndpointPools} for the
+ * individual queue managers of connection type "MULTI_QUEUE_MANAGER". The pools are created lazily, so merely
+ * starting the CDI container does not connect to any queue manager.
+ * <p>
+ * The pools are configured by config properties "pool.max_contexts", "pool.idle_timeout_seconds",
+ * "pool.max_wait_seconds" and "pool.health_check_interval_seconds".
+ * <p>
+ * The producer methods use the {@link Singleton} pseudo-scope rather than {@link ApplicationScoped},
+ * since {@link JmsContextPool} is a concrete class that does not lend itself to client proxies.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+public class JmsContextPools {
+
+    @Produces
+    @HasConnectionType(ConnectionType.SIMPLE)
+    @Singleton
+    public JmsContextPool getSimpleJmsContextPool(
+            @HasConnectionType(ConnectionType.SIMPLE) ConnectionFactory connectionFactory,
+            Config config) {
+        return createJmsContextPool(connectionFactory, config);
+    }
+
+    public void closeSimpleJmsContextPool(
+            @Disposes @HasConnectionType(ConnectionType.SIMPLE) JmsContextPool jmsContextPool) {
+        jmsContextPool.close();
+    }
+
+    @Produces
+    @HasConnectionType(ConnectionType.TWO_WAY_SSL)
+    @Singleton
+    public JmsContextPool getSSLJmsContextPool(
+            @HasConnectionType(ConnectionType.TWO_WAY_SSL) ConnectionFactory connectionFactory,
+            Config config) {
+        return createJmsContextPool(connectionFactory, config);
+    }
+
+    public void closeSSLJmsContextPool(
+            @Disposes @HasConnectionType(ConnectionType.TWO_WAY_SSL) JmsContextPool jmsContextPool) {
+        jmsContextPool.close();
+    }
+
+    @Produces
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    @Singleton
+    public JmsContextPool getMultiQueueManagerJmsContextPool(
+            @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER) ConnectionFactory connectionFactory,
+            Config config) {
+        return createJmsContextPool(connectionFactory, config);
+    }
+
+    public void closeMultiQueueManagerJmsContextPool(
+            @Disposes @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER) JmsContextPool jmsContextPool) {
+        jmsContextPool.close();
+    }
+
+    @Produces
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    @Singleton
+    public QueueManagerEndpointPools getQueueManagerEndpointPools(
+            @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER) List<QueueManagerEndpoint> endpoints,
+            Config config) {
+        return new QueueManagerEndpointPools(
+                ImmutableList.copyOf(endpoints),
+                connectionFactory -> createJmsContextPool(connectionFactory, config)
+        );
+    }
+
+    public void closeQueueManagerEndpointPools(
+            @Disposes @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER) QueueManagerEndpointPools endpointPools) {
+        endpointPools.close();
+    }
+
+    private JmsContextPool createJmsContextPool(ConnectionFactory connectionFactory, Config config) {
+        return new JmsContextPool(
+                connectionFactory,
+                config.getValue("pool.max_contexts", Integer.class),
+                Duration.ofSeconds(config.getValue("pool.idle_timeout_seconds", Long.class)),
+                Duration.ofSeconds(config.getValue("pool.max_wait_seconds", Long.class)),
+                Duration.ofSeconds(config.getValue("pool.health_check_interval_seconds", Long.class))
+        );
+    }
+}
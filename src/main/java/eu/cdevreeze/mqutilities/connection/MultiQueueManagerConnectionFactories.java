@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.connection;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.ibm.msg.client.jakarta.jms.JmsConnectionFactory;
+import com.ibm.msg.client.jakarta.jms.JmsFactoryFactory;
+import com.ibm.msg.client.jakarta.wmq.WMQConstants;
+import com.ibm.msg.client.jakarta.wmq.common.CommonConstants;
+import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
+import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Dependent;
+import jakarta.enterprise.inject.Produces;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSRuntimeException;
+import org.eclipse.microprofile.config.Config;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * CDI-injectable JMS {@link ConnectionFactory} instances for a group of queue managers hosting the same queues,
+ * such as the queue managers of an MQ cluster, using password authentication.
+ * <p>
+ * The endpoints are configured by config property "multi_qm.endpoints", a comma-separated list of entries like
+ * "QM1@host1(1414)". The channel, connection mode and credentials are shared by all endpoints. Besides the list
+ * of {@link QueueManagerEndpoint} instances, with one {@link ConnectionFactory} per endpoint, a single
+ * {@link ConnectionFactory} is produced, which connects to the first available endpoint (using a connection
+ * name list). The latter is used by functions that are not aware of multiple queue managers.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+public class MultiQueueManagerConnectionFactories {
+
+    private static final Pattern ENDPOINT_PATTERN = Pattern.compile("([^@\\s]+)@([^(\\s]+)\\((\\d+)\\)");
+
+    @Produces
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    @Dependent
+    public List<QueueManagerEndpoint> getEndpoints(Config config) {
+        String endpoints = config.getValue("multi_qm.endpoints", String.class);
+
+        return Pattern.compile(",").splitAsStream(endpoints)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(endpoint -> {
+                    Matcher matcher = ENDPOINT_PATTERN.matcher(endpoint);
+                    Preconditions.checkArgument(
+                            matcher.matches(),
+                            String.format("Endpoint '%s' does not have the form QMNAME@host(port)", endpoint)
+                    );
+                    String queueManagerName = matcher.group(1);
+                    String hostName = matcher.group(2);
+                    int port = Integer.parseInt(matcher.group(3));
+
+                    return new QueueManagerEndpoint(
+                            queueManagerName,
+                            hostName,
+                            port,
+                            createConnectionFactory(config, queueManagerName, hostName + "(" + port + ")")
+                    );
+                })
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Produces
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    @ApplicationScoped
+    public ConnectionFactory getConnectionFactory(
+            @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER) List<QueueManagerEndpoint> endpoints,
+            Config config) {
+        Preconditions.checkArgument(!endpoints.isEmpty(), "No queue manager endpoints configured");
+        String connectionNameList = endpoints.stream()
+                .map(endpoint -> endpoint.hostName() + "(" + endpoint.port() + ")")
+                .collect(Collectors.joining(","));
+        // No queue manager name, so any queue manager in the connection name list is accepted
+        return createConnectionFactory(config, "", connectionNameList);
+    }
+
+    private static ConnectionFactory createConnectionFactory(
+            Config config,
+            String queueManagerName,
+            String connectionNameList) {
+        try {
+            String jakartaWmqProviderName = WMQConstants.JAKARTA_WMQ_PROVIDER;
+            JmsFactoryFactory jmsFactoryFactory = JmsFactoryFactory.getInstance(jakartaWmqProviderName);
+
+            JmsConnectionFactory cf = jmsFactoryFactory.createConnectionFactory();
+
+            cf.setStringProperty(CommonConstants.WMQ_CONNECTION_NAME_LIST, connectionNameList);
+            cf.setStringProperty(CommonConstants.WMQ_CHANNEL, config.getValue("multi_qm.wmq_channel", String.class));
+            cf.setIntProperty(CommonConstants.WMQ_CONNECTION_MODE, config.getValue("multi_qm.wmq_connection_mode", Integer.class));
+            cf.setStringProperty(CommonConstants.WMQ_QUEUE_MANAGER, queueManagerName);
+            cf.setBooleanProperty(CommonConstants.USER_AUTHENTICATION_MQCSP, config.getValue("multi_qm.user_authentication_mqcsp", Boolean.class));
+            cf.setStringProperty(CommonConstants.USERID, config.getValue("multi_qm.userid", String.class));
+            cf.setStringProperty(CommonConstants.PASSWORD, config.getValue("multi_qm.password", String.class));
+
+            return cf;
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+}
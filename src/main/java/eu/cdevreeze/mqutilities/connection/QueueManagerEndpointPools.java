@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.connection;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import jakarta.jms.ConnectionFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * One {@link JmsContextPool} per {@link QueueManagerEndpoint} of a group of queue managers, keyed by queue manager
+ * name. The pools are created lazily, on first use of the endpoint, so functions that address each queue manager
+ * of the group separately reuse the connections to them across calls, instead of connecting anew each time.
+ * <p>
+ * Instances are thread-safe. Instances are typically obtained by CDI injection, see {@link JmsContextPools}.
+ *
+ * @author Chris de Vreeze
+ */
+public class QueueManagerEndpointPools implements AutoCloseable {
+
+    private final ImmutableList<QueueManagerEndpoint> endpoints;
+    private final Function<ConnectionFactory, JmsContextPool> poolCreator;
+    private final Map<String, JmsContextPool> pools = new ConcurrentHashMap<>();
+
+    public QueueManagerEndpointPools(
+            ImmutableList<QueueManagerEndpoint> endpoints,
+            Function<ConnectionFactory, JmsContextPool> poolCreator) {
+        this.endpoints = endpoints;
+        this.poolCreator = poolCreator;
+    }
+
+    public ImmutableList<QueueManagerEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns the pool of the given endpoint, which must be one of {@link #endpoints()}, creating it if needed.
+     */
+    public JmsContextPool pool(QueueManagerEndpoint endpoint) {
+        Preconditions.checkArgument(
+                endpoints.contains(endpoint),
+                String.format("Unknown queue manager endpoint %s", endpoint.queueManagerName())
+        );
+        return pools.computeIfAbsent(endpoint.queueManagerName(), qm -> poolCreator.apply(endpoint.connectionFactory()));
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(JmsContextPool::close);
+        pools.clear();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.DiffQueues;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Program that calls {@link DiffQueues} and shows the result.
+ * <p>
+ * The program arguments are the names of queues A and B, and optionally the key type ("message_id",
+ * "correlation_id", "property" or "body_hash"), the property name and the message selector, where "-" leaves
+ * an optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+public class DiffQueuesProgram {
+
+    public static void main(String... args) throws Exception {
+        Objects.checkIndex(1, args.length);
+
+        JmsProgramReturningJson.main(
+                Stream.concat(
+                        Stream.of(DiffQueues.class.getSimpleName()),
+                        Arrays.stream(args)
+                ).toArray(String[]::new)
+        );
+    }
+}
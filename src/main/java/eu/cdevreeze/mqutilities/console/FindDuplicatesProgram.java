@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.FindDuplicates;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Program that calls {@link FindDuplicates} and shows the result.
+ * <p>
+ * The program arguments are the queue name, and optionally the mode ("exact" or "bloom") and the message
+ * selector, where "-" leaves an optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+public class FindDuplicatesProgram {
+
+    public static void main(String... args) throws Exception {
+        Objects.checkIndex(0, args.length);
+
+        JmsProgramReturningJson.main(
+                Stream.concat(
+                        Stream.of(FindDuplicates.class.getSimpleName()),
+                        Arrays.stream(args)
+                ).toArray(String[]::new)
+        );
+    }
+}
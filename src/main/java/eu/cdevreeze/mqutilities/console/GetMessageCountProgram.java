@@ -18,12 +18,16 @@ package eu.cdevreeze.mqutilities.console;
 
 import eu.cdevreeze.mqutilities.jmscontextfunction.GetMessageCount;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Program that calls {@link GetMessageCount} and shows the result.
  * <p>
- * The only program argument is the queue name.
+ * The first program argument is the queue name. The optional second argument is the method
+ * ("auto", "inquire" or "browse"). The optional third and fourth arguments are a JMS message selector and
+ * a payload filter ("kind:expression"), where "-" leaves an argument unset.
  *
  * @author Chris de Vreeze
  */
@@ -34,8 +38,10 @@ public class GetMessageCountProgram {
         String queueName = args[0]; // e.g. DEV.QUEUE.1
 
         JmsProgramReturningJson.main(
-                GetMessageCount.class.getSimpleName(),
-                queueName
+                Stream.concat(
+                        Stream.of(GetMessageCount.class.getSimpleName(), queueName),
+                        Arrays.stream(args).skip(1)
+                ).toArray(String[]::new)
         );
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Thin client of {@link JmsServerProgram}, sending one command over a Unix domain socket and writing the result
+ * to standard output. It neither starts a CDI container nor connects to a queue manager itself.
+ * <p>
+ * The program arguments are the JMS context function name followed by the arguments passed to its factory,
+ * e.g. "GetMessageCount DEV.QUEUE.1". The socket path can be passed as system property "socketPath", and
+ * defaults to {@link JmsServerProgram#DEFAULT_SOCKET_PATH}.
+ *
+ * @author Chris de Vreeze
+ */
+public class JmsClientProgram {
+
+    public static void main(String... args) throws IOException {
+        Objects.checkIndex(0, args.length);
+        Path socketPath = Path.of(System.getProperty("socketPath", JmsServerProgram.DEFAULT_SOCKET_PATH.toString()));
+
+        JsonArrayBuilder commandBuilder = Json.createArrayBuilder();
+        for (String arg : args) {
+            commandBuilder.add(arg);
+        }
+        String commandLine = commandBuilder.build().toString();
+
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            writer.write(commandLine);
+            writer.write('\n');
+            writer.flush();
+
+            try (Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8);
+                 Writer stdout = JmsPrograms.newStdoutWriter()) {
+                reader.transferTo(stdout);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.JmsContextToElementFunction;
+import eu.cdevreeze.mqutilities.JmsContextToElementFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToJsonStreamFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToTextStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToTextStreamFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunctionFactory;
+import eu.cdevreeze.mqutilities.jfr.JmsInstrumentation;
+import jakarta.enterprise.inject.literal.NamedLiteral;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.jms.JMSContext;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Execution of "commands", consisting of a JMS context function name followed by the arguments passed to
+ * the corresponding function factory. The function name may refer to any kind of JMS context function
+ * (returning JSON, returning XML, streaming JSON, streaming text or streaming XML), and the result is written to a {@link Writer}.
+ * <p>
+ * This is what the console programs do, except that the CDI container and {@link JMSContext} are passed in,
+ * so they can be reused across commands. Like the other utility methods in this package, this must be called
+ * from within a running CDI container.
+ *
+ * @author Chris de Vreeze
+ */
+final class JmsCommands {
+
+    private JmsCommands() {
+    }
+
+    static void execute(List<String> command, JMSContext jmsContext, Writer writer) {
+        Objects.checkIndex(0, command.size());
+        String jmsContextFunctionName = command.get(0);
+        List<String> factoryArgs = command.subList(1, command.size());
+
+        if (isResolvable(JmsContextToJsonObjectFunctionFactory.class, jmsContextFunctionName)) {
+            JmsContextToJsonObjectFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToJsonObjectFunctionFactory.class, jmsContextFunctionName);
+            JmsContextToJsonObjectFunction function = functionFactory.apply(factoryArgs);
+            JmsPrograms.writeJson(
+                    JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, function, jmsContext),
+                    writer
+            );
+        } else if (isResolvable(JmsContextToElementFunctionFactory.class, jmsContextFunctionName)) {
+            JmsContextToElementFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToElementFunctionFactory.class, jmsContextFunctionName);
+            JmsContextToElementFunction function = functionFactory.apply(factoryArgs);
+            JmsPrograms.writeXml(
+                    JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, function, jmsContext),
+                    writer
+            );
+        } else if (isResolvable(JmsContextToJsonStreamFunctionFactory.class, jmsContextFunctionName)) {
+            JmsContextToJsonStreamFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToJsonStreamFunctionFactory.class, jmsContextFunctionName);
+            JmsContextToJsonStreamFunction function = functionFactory.apply(factoryArgs);
+            JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, ctx -> {
+                JmsPrograms.writeJson(function, ctx, writer);
+                return null;
+            }, jmsContext);
+        } else if (isResolvable(JmsContextToTextStreamFunctionFactory.class, jmsContextFunctionName)) {
+            JmsContextToTextStreamFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToTextStreamFunctionFactory.class, jmsContextFunctionName);
+            JmsContextToTextStreamFunction function = functionFactory.apply(factoryArgs);
+            JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, ctx -> {
+                JmsPrograms.writeText(function, ctx, writer);
+                return null;
+            }, jmsContext);
+        } else {
+            JmsContextToXmlStreamFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToXmlStreamFunctionFactory.class, jmsContextFunctionName);
+            JmsContextToXmlStreamFunction function = functionFactory.apply(factoryArgs);
+            JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, ctx -> {
+                JmsPrograms.writeXml(function, ctx, writer);
+                return null;
+            }, jmsContext);
+        }
+    }
+
+    private static boolean isResolvable(Class<?> functionFactoryType, String jmsContextFunctionName) {
+        return CDI.current().select(functionFactoryType, NamedLiteral.of(jmsContextFunctionName)).isResolvable();
+    }
+}
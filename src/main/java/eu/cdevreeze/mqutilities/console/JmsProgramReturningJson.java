@@ -16,29 +16,21 @@
 
 package eu.cdevreeze.mqutilities.console;
 
-import com.google.common.base.Preconditions;
 import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
 import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
-import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
-import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionTypeQualifier;
-import jakarta.enterprise.inject.Default;
-import jakarta.enterprise.inject.Instance;
-import jakarta.enterprise.inject.literal.NamedLiteral;
-import jakarta.enterprise.inject.spi.CDI;
+import eu.cdevreeze.mqutilities.jfr.JmsInstrumentation;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.JMSContext;
-import jakarta.json.Json;
 import jakarta.json.JsonObject;
-import jakarta.json.JsonWriter;
-import jakarta.json.JsonWriterFactory;
-import jakarta.json.stream.JsonGenerator;
-import org.eclipse.microprofile.config.Config;
 import org.jboss.weld.environment.se.Weld;
 import org.jboss.weld.environment.se.WeldContainer;
 
-import java.io.StringWriter;
-import java.lang.annotation.Annotation;
-import java.util.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Console program using a {@link JmsContextToJsonObjectFunction}. The first program argument
@@ -59,53 +51,24 @@ public class JmsProgramReturningJson {
         Weld weld = new Weld();
 
         try (WeldContainer weldContainer = weld.initialize()) {
-            Instance<Config> configInstance = CDI.current().select(Config.class, Default.Literal.INSTANCE);
+            ConnectionFactory cf = JmsPrograms.resolveConnectionFactory();
 
-            Preconditions.checkArgument(
-                    configInstance.isResolvable(),
-                    String.format("Could not resolve Config with required qualifier '%s'", Default.Literal.INSTANCE)
-            );
+            JmsContextToJsonObjectFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToJsonObjectFunctionFactory.class, jmsContextFunctionName);
 
-            Config config = configInstance.get();
-
-            // Typically, system property "connectionType" has been passed to the program
-            ConnectionType connectionType =
-                    ConnectionType.parse(config.getConfigValue("connectionType").getValue());
-
-            Annotation connectionQualifier = new HasConnectionTypeQualifier(connectionType);
-            Instance<ConnectionFactory> cfInstance = CDI.current().select(ConnectionFactory.class, connectionQualifier);
-
-            Preconditions.checkArgument(
-                    cfInstance.isResolvable(),
-                    String.format("Could not resolve ConnectionFactory with required qualifier '%s'", connectionQualifier)
-            );
-
-            Instance<JmsContextToJsonObjectFunctionFactory> functionFactoryInstance =
-                    CDI.current().select(JmsContextToJsonObjectFunctionFactory.class, NamedLiteral.of(jmsContextFunctionName));
-
-            Preconditions.checkArgument(
-                    functionFactoryInstance.isResolvable(),
-                    String.format("Could not resolve function with name '%s'", jmsContextFunctionName)
-            );
-
-            JmsContextToJsonObjectFunction function = functionFactoryInstance.get().apply(factoryArgs);
+            JmsContextToJsonObjectFunction function = functionFactory.apply(factoryArgs);
 
             // Do the actual work within a JMSContext
             JsonObject result;
-            try (JMSContext jmsContext = cfInstance.get().createContext()) {
-                result = function.apply(jmsContext);
+            try (JMSContext jmsContext = JmsInstrumentation.connect(cf)) {
+                result = JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, function, jmsContext);
             }
 
-            StringWriter sw = new StringWriter();
-            Map<String, Object> props = new HashMap<>();
-            props.put(JsonGenerator.PRETTY_PRINTING, true);
-            JsonWriterFactory jsonWriterFactory = Json.createWriterFactory(props);
-            try (JsonWriter jsonWriter = jsonWriterFactory.createWriter(sw)) {
-                jsonWriter.writeObject(result);
+            try (Writer writer = JmsPrograms.newStdoutWriter()) {
+                JmsPrograms.writeJson(result, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            String resultAsString = sw.toString();
-
-            System.out.println(resultAsString);
         }
     }
 }
@@ -16,25 +16,18 @@
 
 package eu.cdevreeze.mqutilities.console;
 
-import com.google.common.base.Preconditions;
 import eu.cdevreeze.mqutilities.JmsContextToElementFunction;
 import eu.cdevreeze.mqutilities.JmsContextToElementFunctionFactory;
-import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
-import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionTypeQualifier;
+import eu.cdevreeze.mqutilities.jfr.JmsInstrumentation;
 import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
-import eu.cdevreeze.yaidom4j.dom.immutabledom.jaxpinterop.DocumentPrinter;
-import eu.cdevreeze.yaidom4j.dom.immutabledom.jaxpinterop.DocumentPrinters;
-import jakarta.enterprise.inject.Default;
-import jakarta.enterprise.inject.Instance;
-import jakarta.enterprise.inject.literal.NamedLiteral;
-import jakarta.enterprise.inject.spi.CDI;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.JMSContext;
-import org.eclipse.microprofile.config.Config;
 import org.jboss.weld.environment.se.Weld;
 import org.jboss.weld.environment.se.WeldContainer;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -58,47 +51,24 @@ public class JmsProgramReturningXml {
         Weld weld = new Weld();
 
         try (WeldContainer weldContainer = weld.initialize()) {
-            Instance<Config> configInstance = CDI.current().select(Config.class, Default.Literal.INSTANCE);
+            ConnectionFactory cf = JmsPrograms.resolveConnectionFactory();
 
-            Preconditions.checkArgument(
-                    configInstance.isResolvable(),
-                    String.format("Could not resolve Config with required qualifier '%s'", Default.Literal.INSTANCE)
-            );
+            JmsContextToElementFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToElementFunctionFactory.class, jmsContextFunctionName);
 
-            Config config = configInstance.get();
-
-            // Typically, system property "connectionType" has been passed to the program
-            ConnectionType connectionType =
-                    ConnectionType.parse(config.getConfigValue("connectionType").getValue());
-
-            Annotation connectionQualifier = new HasConnectionTypeQualifier(connectionType);
-            Instance<ConnectionFactory> cfInstance = CDI.current().select(ConnectionFactory.class, connectionQualifier);
-
-            Preconditions.checkArgument(
-                    cfInstance.isResolvable(),
-                    String.format("Could not resolve ConnectionFactory with required qualifier '%s'", connectionQualifier)
-            );
-
-            Instance<JmsContextToElementFunctionFactory> functionFactoryInstance =
-                    CDI.current().select(JmsContextToElementFunctionFactory.class, NamedLiteral.of(jmsContextFunctionName));
-
-            Preconditions.checkArgument(
-                    functionFactoryInstance.isResolvable(),
-                    String.format("Could not resolve function with name '%s'", jmsContextFunctionName)
-            );
-
-            JmsContextToElementFunction function = functionFactoryInstance.get().apply(factoryArgs);
+            JmsContextToElementFunction function = functionFactory.apply(factoryArgs);
 
             // Do the actual work within a JMSContext
             Element result;
-            try (JMSContext jmsContext = cfInstance.get().createContext()) {
-                result = function.apply(jmsContext);
+            try (JMSContext jmsContext = JmsInstrumentation.connect(cf)) {
+                result = JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, function, jmsContext);
             }
 
-            DocumentPrinter docPrinter = DocumentPrinters.instance();
-            String xmlString = docPrinter.print(result);
-
-            System.out.println(xmlString);
+            try (Writer writer = JmsPrograms.newStdoutWriter()) {
+                JmsPrograms.writeXml(result, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunctionFactory;
+import eu.cdevreeze.mqutilities.jfr.JmsInstrumentation;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSContext;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Console program using a {@link JmsContextToXmlStreamFunction}. The first program argument
+ * is the name of the {@link JmsContextToXmlStreamFunction} to create and run,
+ * and the remaining program arguments are passed to the {@link JmsContextToXmlStreamFunctionFactory}
+ * to create a {@link JmsContextToXmlStreamFunction}, which is subsequently run.
+ * <p>
+ * The XML output is written to (buffered) standard output while the function runs.
+ *
+ * @author Chris de Vreeze
+ */
+public class JmsProgramStreamingXml {
+
+    public static void main(String... args) {
+        Objects.checkIndex(0, args.length);
+        String jmsContextFunctionName = args[0];
+        // The remaining arguments typically include a queue name, such as DEV.QUEUE.1
+        List<String> factoryArgs = Arrays.stream(args).skip(1).toList();
+
+        Weld weld = new Weld();
+
+        try (WeldContainer weldContainer = weld.initialize()) {
+            ConnectionFactory cf = JmsPrograms.resolveConnectionFactory();
+
+            JmsContextToXmlStreamFunctionFactory functionFactory =
+                    JmsPrograms.resolveFunctionFactory(JmsContextToXmlStreamFunctionFactory.class, jmsContextFunctionName);
+
+            JmsContextToXmlStreamFunction function = functionFactory.apply(factoryArgs);
+
+            // Do the actual work within a JMSContext, writing the result while doing so
+            try (Writer writer = JmsPrograms.newStdoutWriter();
+                 JMSContext jmsContext = JmsInstrumentation.connect(cf)) {
+                JmsInstrumentation.apply(jmsContextFunctionName, factoryArgs, ctx -> {
+                    JmsPrograms.writeXml(function, ctx, writer);
+                    return null;
+                }, jmsContext);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
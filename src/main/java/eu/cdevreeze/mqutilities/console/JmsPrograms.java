@@ -0,0 +1,269 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.mqutilities.JmsContextToJsonStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToTextStreamFunction;
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunction;
+import eu.cdevreeze.mqutilities.connection.JmsContextPool;
+import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
+import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionTypeQualifier;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.*;
+import jakarta.enterprise.inject.Default;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.literal.NamedLiteral;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSContext;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import org.eclipse.microprofile.config.Config;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Utility methods shared by the console programs running JMS context functions. Except for the public output
+ * methods, which are also used by the benchmarks, they must be called from within a running CDI container.
+ *
+ * @author Chris de Vreeze
+ */
+public final class JmsPrograms {
+
+    private static final int STDOUT_BUFFER_SIZE = 1 << 16;
+
+    private static final JsonGeneratorFactory JSON_GENERATOR_FACTORY =
+            Json.createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true));
+
+    private JmsPrograms() {
+    }
+
+    /**
+     * Resolves the {@link ConnectionFactory} for the connection type given by config property "connectionType".
+     */
+    static ConnectionFactory resolveConnectionFactory() {
+        return resolveConnectionTypeQualified(ConnectionFactory.class);
+    }
+
+    /**
+     * Resolves the {@link JmsContextPool} for the connection type given by config property "connectionType".
+     */
+    static JmsContextPool resolveJmsContextPool() {
+        return resolveConnectionTypeQualified(JmsContextPool.class);
+    }
+
+    private static <T> T resolveConnectionTypeQualified(Class<T> beanType) {
+        Instance<Config> configInstance = CDI.current().select(Config.class, Default.Literal.INSTANCE);
+
+        Preconditions.checkArgument(
+                configInstance.isResolvable(),
+                String.format("Could not resolve Config with required qualifier '%s'", Default.Literal.INSTANCE)
+        );
+
+        Config config = configInstance.get();
+
+        // Typically, system property "connectionType" has been passed to the program
+        ConnectionType connectionType =
+                ConnectionType.parse(config.getConfigValue("connectionType").getValue());
+
+        Annotation connectionQualifier = new HasConnectionTypeQualifier(connectionType);
+        Instance<T> beanInstance = CDI.current().select(beanType, connectionQualifier);
+
+        Preconditions.checkArgument(
+                beanInstance.isResolvable(),
+                String.format(
+                        "Could not resolve %s with required qualifier '%s'",
+                        beanType.getSimpleName(),
+                        connectionQualifier
+                )
+        );
+
+        return beanInstance.get();
+    }
+
+    /**
+     * Resolves the function factory of the given type that has the given function name as name qualifier.
+     */
+    static <F> F resolveFunctionFactory(Class<F> functionFactoryType, String jmsContextFunctionName) {
+        Instance<F> functionFactoryInstance =
+                CDI.current().select(functionFactoryType, NamedLiteral.of(jmsContextFunctionName));
+
+        Preconditions.checkArgument(
+                functionFactoryInstance.isResolvable(),
+                String.format("Could not resolve function with name '%s'", jmsContextFunctionName)
+        );
+
+        return functionFactoryInstance.get();
+    }
+
+    /**
+     * Writes the given JSON object, pretty-printed, to the given {@link Writer}, without closing the Writer.
+     */
+    public static void writeJson(JsonObject jsonObject, Writer writer) {
+        writeJson((jmsContext, jsonGenerator) -> jsonGenerator.write(jsonObject), null, writer);
+    }
+
+    /**
+     * Runs the given {@link JmsContextToJsonStreamFunction}, writing the pretty-printed JSON to the given
+     * {@link Writer}, without closing the Writer.
+     */
+    static void writeJson(JmsContextToJsonStreamFunction function, JMSContext jmsContext, Writer writer) {
+        // Closing the JsonGenerator would close the Writer as well
+        Writer nonClosingWriter = new FilterWriter(writer) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        try (JsonGenerator jsonGenerator = JSON_GENERATOR_FACTORY.createGenerator(nonClosingWriter)) {
+            function.accept(jmsContext, jsonGenerator);
+        }
+        try {
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the given {@link JmsContextToTextStreamFunction}, writing its lines to the given {@link Writer},
+     * and flushing the Writer without closing it.
+     */
+    static void writeText(JmsContextToTextStreamFunction function, JMSContext jmsContext, Writer writer) {
+        function.accept(jmsContext, writer);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the given XML element to the given {@link Writer}, without closing the Writer. The element tree is
+     * serialized node by node through an {@link XMLStreamWriter}, so the XML is never rendered into one String.
+     */
+    public static void writeXml(Element element, Writer writer) {
+        writeXml((jmsContext, xmlStreamWriter) -> {
+            try {
+                writeElement(element, ImmutableMap.of(), xmlStreamWriter);
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e);
+            }
+        }, null, writer);
+    }
+
+    private static void writeElement(
+            Element element,
+            Map<String, String> parentNamespaces,
+            XMLStreamWriter xmlStreamWriter) throws XMLStreamException {
+        QName name = element.name();
+        Map<String, String> namespaces = element.namespaceScope().inScopeNamespaces();
+        xmlStreamWriter.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+
+        // Only the namespace declarations that differ from those of the parent element
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            if (!namespace.getValue().equals(parentNamespaces.get(namespace.getKey()))) {
+                if (namespace.getKey().equals(XMLConstants.DEFAULT_NS_PREFIX)) {
+                    xmlStreamWriter.writeDefaultNamespace(namespace.getValue());
+                } else {
+                    xmlStreamWriter.writeNamespace(namespace.getKey(), namespace.getValue());
+                }
+            }
+        }
+        if (parentNamespaces.containsKey(XMLConstants.DEFAULT_NS_PREFIX) &&
+                !namespaces.containsKey(XMLConstants.DEFAULT_NS_PREFIX)) {
+            xmlStreamWriter.writeDefaultNamespace(XMLConstants.NULL_NS_URI);
+        }
+
+        for (Map.Entry<QName, String> attribute : element.attributes().entrySet()) {
+            QName attributeName = attribute.getKey();
+            if (attributeName.getNamespaceURI().isEmpty()) {
+                xmlStreamWriter.writeAttribute(attributeName.getLocalPart(), attribute.getValue());
+            } else {
+                xmlStreamWriter.writeAttribute(
+                        attributeName.getPrefix(),
+                        attributeName.getNamespaceURI(),
+                        attributeName.getLocalPart(),
+                        attribute.getValue()
+                );
+            }
+        }
+
+        for (Node child : element.children()) {
+            if (child instanceof Element childElement) {
+                writeElement(childElement, namespaces, xmlStreamWriter);
+            } else if (child instanceof Text text) {
+                if (text.isCData()) {
+                    xmlStreamWriter.writeCData(text.value());
+                } else {
+                    xmlStreamWriter.writeCharacters(text.value());
+                }
+            } else if (child instanceof Comment comment) {
+                xmlStreamWriter.writeComment(comment.value());
+            } else if (child instanceof ProcessingInstruction pi) {
+                xmlStreamWriter.writeProcessingInstruction(pi.target(), pi.data());
+            }
+        }
+        xmlStreamWriter.writeEndElement();
+    }
+
+    /**
+     * Runs the given {@link JmsContextToXmlStreamFunction}, writing the XML document to the given {@link Writer},
+     * without closing the Writer.
+     */
+    static void writeXml(JmsContextToXmlStreamFunction function, JMSContext jmsContext, Writer writer) {
+        try {
+            XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newFactory().createXMLStreamWriter(writer);
+
+            xmlStreamWriter.writeStartDocument("UTF-8", "1.0");
+            function.accept(jmsContext, xmlStreamWriter);
+            xmlStreamWriter.writeEndDocument();
+            xmlStreamWriter.flush();
+            xmlStreamWriter.close();
+
+            writer.write(System.lineSeparator());
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a buffered UTF-8 {@link Writer} writing to standard output. Closing it does not close standard output.
+     */
+    static Writer newStdoutWriter() {
+        OutputStream stdout = new FileOutputStream(FileDescriptor.out) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        return new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), STDOUT_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.connection.JmsContextPool;
+import jakarta.jms.JMSContext;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Long-running console program that keeps the CDI container and a {@link JmsContextPool} (with one connection to the
+ * queue manager) alive, and executes commands sent to it, so that the cost of CDI bootstrapping, connecting to the
+ * queue manager and the TLS handshake is paid only once. See {@link JmsClientProgram} for the corresponding client.
+ * <p>
+ * Each command is one line containing a JSON array of strings: the name of a JMS context function followed by
+ * the arguments passed to its factory, such as {@code ["GetMessageCount", "DEV.QUEUE.1"]}. The result of the
+ * function (JSON or XML) is written back. The command {@code ["poolMetrics"]} returns the metrics of the
+ * {@link JmsContextPool}, and the command {@code ["shutdown"]} stops the server.
+ * <p>
+ * By default, the server listens on a Unix domain socket, handling one command per connection; the result
+ * is written back to that connection, which is then closed. Connections are served concurrently, each command
+ * using its own pooled {@link JMSContext}, by at most as many threads as the pool has contexts. When all of them
+ * are busy, no further connections are accepted until one becomes available. The optional program argument is
+ * the socket path, defaulting to {@link #DEFAULT_SOCKET_PATH}. If the program argument is "-", commands are read
+ * from standard input instead, and each result written to standard output is followed by a line containing
+ * {@link #END_OF_RESULT}.
+ * <p>
+ * Anyone who can connect to the socket can run commands with the credentials of the server, so the socket is only
+ * accessible to the user running the server. The default socket path lies in a per-user directory that is created
+ * with owner-only permissions, and the socket file itself is restricted to the owner (on POSIX file systems).
+ *
+ * @author Chris de Vreeze
+ */
+public class JmsServerProgram {
+
+    public static final Path DEFAULT_SOCKET_PATH =
+            Path.of(System.getProperty("user.home"), ".mqutilities", "mqutilities.sock");
+
+    public static final String END_OF_RESULT = "---";
+
+    private static final String POOL_METRICS_COMMAND = "poolMetrics";
+    private static final String SHUTDOWN_COMMAND = "shutdown";
+    private static final Duration TERMINATION_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String... args) throws IOException {
+        boolean useStdin = args.length >= 1 && args[0].equals("-");
+        Path socketPath = (args.length >= 1 && !useStdin) ? Path.of(args[0]) : DEFAULT_SOCKET_PATH;
+
+        Weld weld = new Weld();
+
+        try (WeldContainer weldContainer = weld.initialize()) {
+            JmsContextPool jmsContextPool = JmsPrograms.resolveJmsContextPool();
+
+            JmsServerProgram server = new JmsServerProgram(jmsContextPool);
+            if (useStdin) {
+                server.serveStdin();
+            } else {
+                server.serveUnixDomainSocket(socketPath);
+            }
+        }
+    }
+
+    private final JmsContextPool jmsContextPool;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    private JmsServerProgram(JmsContextPool jmsContextPool) {
+        this.jmsContextPool = jmsContextPool;
+    }
+
+    private void serveStdin() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer writer = JmsPrograms.newStdoutWriter();
+
+        String line;
+        while (running.get() && (line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            handleCommand(line, writer);
+            writer.write(END_OF_RESULT);
+            writer.write(System.lineSeparator());
+            writer.flush();
+        }
+    }
+
+    private void serveUnixDomainSocket(Path socketPath) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (socketPath.equals(DEFAULT_SOCKET_PATH) && Files.notExists(socketPath.getParent())) {
+            if (posix) {
+                Files.createDirectories(
+                        socketPath.getParent(),
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))
+                );
+            } else {
+                Files.createDirectories(socketPath.getParent());
+            }
+        }
+        deleteStaleSocket(socketPath);
+
+        // Bounded, since each command needs a pooled context anyway; when saturated, the accepting thread runs
+        // the command itself, so that further connections wait in the socket backlog
+        int threadCount = jmsContextPool.metrics().maxContexts();
+        ExecutorService executor = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threadCount),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+            if (posix) {
+                Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+            }
+            System.err.printf("Listening on %s%n", socketPath);
+
+            while (running.get()) {
+                SocketChannel channel = serverChannel.accept();
+                executor.execute(() -> serveClient(channel, serverChannel));
+            }
+        } catch (ClosedChannelException e) {
+            // The server socket has been closed by the shutdown command
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Deletes the socket file left behind by a server that is no longer running. If a server is still listening
+     * on the socket, an exception is thrown instead.
+     */
+    private static void deleteStaleSocket(Path socketPath) throws IOException {
+        if (Files.notExists(socketPath)) {
+            return;
+        }
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            // Nobody is listening, so the socket file is stale
+            Files.deleteIfExists(socketPath);
+            return;
+        }
+        throw new IllegalStateException(String.format("Another server is already listening on %s", socketPath));
+    }
+
+    /**
+     * Waits (for a bounded time) for the commands still running to finish, so that they can write their results
+     * before the JMS context pool and CDI container are closed.
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.err.printf("Commands still running after %s; stopping anyway%n", TERMINATION_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serveClient(SocketChannel channel, ServerSocketChannel serverChannel) {
+        try (channel;
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            String line = reader.readLine();
+            if (line != null && !line.isBlank()) {
+                handleCommand(line, writer);
+            }
+        } catch (IOException e) {
+            // The client went away; keep serving other clients
+            System.err.printf("I/O error while serving client: %s%n", e);
+        }
+
+        if (!running.get()) {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Executes the command, writing the result (or error) to the writer.
+     */
+    private void handleCommand(String commandLine, Writer writer) {
+        try {
+            List<String> command;
+            try (JsonReader jsonReader = Json.createReader(new StringReader(commandLine))) {
+                command = jsonReader.readArray().getValuesAs(JsonString.class).stream().map(JsonString::getString).toList();
+            }
+
+            if (command.equals(List.of(SHUTDOWN_COMMAND))) {
+                running.set(false);
+                JmsPrograms.writeJson(Json.createObjectBuilder().add("status", "shutting down").build(), writer);
+            } else if (command.equals(List.of(POOL_METRICS_COMMAND))) {
+                JmsPrograms.writeJson(toJsonObject(jmsContextPool.metrics()), writer);
+            } else {
+                jmsContextPool.apply(jmsContext -> {
+                    JmsCommands.execute(command, jmsContext, writer);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            writeError(e, writer);
+        }
+    }
+
+    private static JsonObject toJsonObject(JmsContextPool.Metrics metrics) {
+        return Json.createObjectBuilder()
+                .add("active", metrics.active())
+                .add("idle", metrics.idle())
+                .add("maxContexts", metrics.maxContexts())
+                .add("borrowCount", metrics.borrowCount())
+                .add("reconnectCount", metrics.reconnectCount())
+                .add("totalWaitMillis", Duration.ofNanos(metrics.totalWaitNanos()).toMillis())
+                .add("maxWaitMillis", Duration.ofNanos(metrics.maxWaitNanos()).toMillis())
+                .build();
+    }
+
+    private static void writeError(RuntimeException e, Writer writer) {
+        JmsPrograms.writeJson(
+                Json.createObjectBuilder()
+                        .add("error", e.getClass().getName())
+                        .add("message", String.valueOf(e.getMessage()))
+                        .build(),
+                writer
+        );
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.QueueStatistics;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Program that calls {@link QueueStatistics} and shows the result.
+ * <p>
+ * The first program argument is the queue name. The optional further arguments are a JMS message selector
+ * and the number of most frequent property values to report, where "-" leaves an argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+public class QueueStatisticsProgram {
+
+    public static void main(String... args) throws Exception {
+        Objects.checkIndex(0, args.length);
+        String queueName = args[0]; // e.g. DEV.QUEUE.1
+
+        JmsProgramReturningJson.main(
+                Stream.concat(
+                        Stream.of(QueueStatistics.class.getSimpleName(), queueName),
+                        Arrays.stream(args).skip(1)
+                ).toArray(String[]::new)
+        );
+    }
+}
@@ -18,12 +18,15 @@ package eu.cdevreeze.mqutilities.console;
 
 import eu.cdevreeze.mqutilities.jmscontextfunction.ShowAllMessages;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Program that calls {@link ShowAllMessages} and shows the result.
  * <p>
- * The only program argument is the queue name.
+ * The first program argument is the queue name. The optional second and third program arguments are
+ * a JMS message selector and a payload filter ("kind:expression"), where "-" leaves an argument unset.
  *
  * @author Chris de Vreeze
  */
@@ -34,8 +37,10 @@ public class ShowAllMessagesProgram {
         String queueName = args[0]; // e.g. DEV.QUEUE.1
 
         JmsProgramReturningXml.main(
-                ShowAllMessages.class.getSimpleName(),
-                queueName
+                Stream.concat(
+                        Stream.of(ShowAllMessages.class.getSimpleName(), queueName),
+                        Arrays.stream(args).skip(1)
+                ).toArray(String[]::new)
         );
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import eu.cdevreeze.mqutilities.jmscontextfunction.StreamAllClusterMessages;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Program that calls {@link StreamAllClusterMessages} and shows the result while browsing the queue on all queue managers.
+ * <p>
+ * The first program argument is the queue name. The optional second and third arguments are the maximum message
+ * count and the message selector, respectively, where "-" leaves an optional argument unset. The queue managers
+ * are those configured for connection type "MULTI_QUEUE_MANAGER".
+ *
+ * @author Chris de Vreeze
+ */
+public class StreamAllClusterMessagesProgram {
+
+    public static void main(String... args) throws Exception {
+        Objects.checkIndex(0, args.length);
+        String queueName = args[0]; // e.g. DEV.QUEUE.1
+
+        JmsProgramStreamingXml.main(
+                Stream.concat(
+                        Stream.of(StreamAllClusterMessages.class.getSimpleName(), queueName),
+                        Arrays.stream(args).skip(1)
+                ).toArray(String[]::new)
+        );
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the creation of a {@link jakarta.jms.JMSContext} from a {@link jakarta.jms.ConnectionFactory},
+ * which opens a connection to the queue manager (including any TLS handshake).
+ *
+ * @author Chris de Vreeze
+ */
+@Name("eu.cdevreeze.mqutilities.Connect")
+@Label("JMS Connect")
+@Category({"MQ Utilities", "JMS"})
+@Description("Connection to the queue manager, created from a ConnectionFactory")
+@StackTrace(false)
+class ConnectEvent extends Event {
+
+    @Label("Connection Factory")
+    String connectionFactory;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
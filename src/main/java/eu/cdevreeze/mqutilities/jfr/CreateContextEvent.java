@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the creation of a child {@link jakarta.jms.JMSContext}, which creates a session on
+ * an existing connection.
+ *
+ * @author Chris de Vreeze
+ */
+@Name("eu.cdevreeze.mqutilities.CreateContext")
+@Label("JMS Create Context")
+@Category({"MQ Utilities", "JMS"})
+@Description("Child JMSContext (session) created on an existing connection")
+@StackTrace(false)
+class CreateContextEvent extends Event {
+
+    @Label("Session Mode")
+    int sessionMode;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recording the execution of a JMS context function. The message and byte counts are taken from
+ * the "messageCount" and "byteCount" members of a JSON result, if any, and are -1 otherwise.
+ *
+ * @author Chris de Vreeze
+ */
+@Name("eu.cdevreeze.mqutilities.Function")
+@Label("JMS Context Function")
+@Category({"MQ Utilities", "Functions"})
+@Description("Execution of a JMS context function")
+@StackTrace(false)
+class FunctionEvent extends Event {
+
+    @Label("Function Name")
+    String functionName;
+
+    @Label("Arguments")
+    String arguments;
+
+    @Label("Message Count")
+    long messageCount = -1;
+
+    @Label("Byte Count")
+    @DataAmount
+    long byteCount = -1;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jfr;
+
+import eu.cdevreeze.mqutilities.JmsContextFunction;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSContext;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * Instrumentation of connections, {@link JMSContext} creation and JMS context function executions, by means
+ * of custom Java Flight Recorder events. The events can be recorded by starting the program with JVM option
+ * "-XX:StartFlightRecording", and inspected with JDK Mission Control or the "jfr" tool, for example to correlate
+ * slow runs with slow connects or session creation over the MQ channel.
+ * <p>
+ * When no recording is running, the overhead is negligible: the events are only created and timed, not committed.
+ *
+ * @author Chris de Vreeze
+ */
+public final class JmsInstrumentation {
+
+    private JmsInstrumentation() {
+    }
+
+    /**
+     * Creates a {@link JMSContext} from the given {@link ConnectionFactory}, recording a {@link ConnectEvent}.
+     * The returned context records a {@link CreateContextEvent} for each child context created from it.
+     */
+    public static JMSContext connect(ConnectionFactory connectionFactory) {
+        ConnectEvent event = new ConnectEvent();
+        event.connectionFactory = connectionFactory.getClass().getName();
+        event.begin();
+        try {
+            JMSContext jmsContext = connectionFactory.createContext();
+            event.succeeded = true;
+            return instrument(jmsContext);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns a decorator of the given {@link JMSContext}, which records a {@link CreateContextEvent} for each
+     * child context created from it. The child contexts are decorated in the same way.
+     */
+    public static JMSContext instrument(JMSContext jmsContext) {
+        return (JMSContext) Proxy.newProxyInstance(
+                JmsInstrumentation.class.getClassLoader(),
+                new Class<?>[]{JMSContext.class},
+                new InstrumentedJmsContext(jmsContext)
+        );
+    }
+
+    /**
+     * Applies the given function to the given {@link JMSContext}, recording a {@link FunctionEvent}.
+     */
+    public static <T> T apply(
+            String functionName,
+            List<String> arguments,
+            JmsContextFunction<T> function,
+            JMSContext jmsContext) {
+        FunctionEvent event = new FunctionEvent();
+        event.functionName = functionName;
+        event.arguments = String.join(" ", arguments);
+        event.begin();
+        try {
+            T result = function.apply(jmsContext);
+            if (result instanceof JsonObject jsonResult && event.shouldCommit()) {
+                event.messageCount = longMember(jsonResult, "messageCount");
+                event.byteCount = longMember(jsonResult, "byteCount");
+            }
+            event.succeeded = true;
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static long longMember(JsonObject jsonObject, String name) {
+        return (jsonObject.get(name) instanceof JsonNumber number) ? number.longValue() : -1;
+    }
+
+    private record InstrumentedJmsContext(JMSContext jmsContext) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("createContext")) {
+                CreateContextEvent event = new CreateContextEvent();
+                event.sessionMode = (int) args[0];
+                event.begin();
+                try {
+                    JMSContext childContext = (JMSContext) invokeTarget(method, args);
+                    event.succeeded = true;
+                    return instrument(childContext);
+                } finally {
+                    event.commit();
+                }
+            } else if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            } else {
+                return invokeTarget(method, args);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(jmsContext, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
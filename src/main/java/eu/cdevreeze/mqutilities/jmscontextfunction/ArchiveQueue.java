@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.archive.ArchiveReader;
+import eu.cdevreeze.mqutilities.archive.ArchiveWriter;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that writes the messages on a queue, including headers, properties and
+ * non-text bodies, to a segmented, compressed archive (see {@link ArchiveWriter} and {@link ArchiveReader}).
+ * <p>
+ * In browse mode, the queue is left intact. In consume mode, the messages are consumed within a transacted
+ * {@link JMSContext}, created from the {@link JMSContext} passed to this function. Every N messages, the archive
+ * is flushed to disk before the transaction is committed, so no message is removed from the queue before it has
+ * been archived. If a batch fails, its messages that are still pending in the archive writer are discarded
+ * before the rollback, but those in blocks already written keep their place in the archive (the messages
+ * stay on the queue as well). Consumption stops when no message arrives within the receive timeout.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class ArchiveQueue implements JmsContextToJsonObjectFunction {
+
+    public enum Mode {
+        BROWSE, CONSUME;
+
+        public static Mode parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown archive mode '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final Path archiveDirectory;
+    private final Mode mode;
+    private final ArchiveWriter.Compression compression;
+    private final long maxSegmentBytes;
+    private final int batchSize;
+    private final Duration receiveTimeout;
+
+    public ArchiveQueue(
+            String queueName,
+            Path archiveDirectory,
+            Mode mode,
+            ArchiveWriter.Compression compression,
+            long maxSegmentBytes,
+            int batchSize,
+            Duration receiveTimeout) {
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        this.queueName = queueName;
+        this.archiveDirectory = archiveDirectory;
+        this.mode = mode;
+        this.compression = compression;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.batchSize = batchSize;
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        ArchiveWriter archiveWriter = new ArchiveWriter(archiveDirectory, compression, maxSegmentBytes);
+        try (archiveWriter) {
+            if (mode == Mode.BROWSE) {
+                archiveBrowsedMessages(jmsContext, archiveWriter);
+            } else {
+                archiveConsumedMessages(jmsContext, archiveWriter);
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+
+        return Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("archiveDirectory", archiveDirectory.toString())
+                .add("mode", mode.toString().toLowerCase())
+                .add("compression", compression.toString().toLowerCase())
+                .add("messageCount", archiveWriter.recordCount())
+                .add("segmentCount", archiveWriter.segmentCount())
+                .add("uncompressedByteCount", archiveWriter.uncompressedByteCount())
+                .add("storedByteCount", archiveWriter.storedByteCount())
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", archiveWriter.recordCount() / elapsedSeconds)
+                .build();
+    }
+
+    private void archiveBrowsedMessages(JMSContext jmsContext, ArchiveWriter archiveWriter) throws JMSException {
+        try (QueueBrowser queueBrowser = jmsContext.createBrowser(jmsContext.createQueue(queueName))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            while (messages.hasMoreElements()) {
+                archiveWriter.append(messages.nextElement());
+            }
+        }
+    }
+
+    private void archiveConsumedMessages(JMSContext jmsContext, ArchiveWriter archiveWriter) {
+        try (JMSContext transactedContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED);
+             JMSConsumer jmsConsumer = transactedContext.createConsumer(transactedContext.createQueue(queueName))) {
+            try {
+                int messagesInBatch = 0;
+                Message message;
+
+                while ((message = jmsConsumer.receive(receiveTimeout.toMillis())) != null) {
+                    archiveWriter.append(message);
+                    messagesInBatch += 1;
+
+                    if (messagesInBatch == batchSize) {
+                        archiveWriter.flush();
+                        transactedContext.commit();
+                        messagesInBatch = 0;
+                    }
+                }
+                if (messagesInBatch > 0) {
+                    archiveWriter.flush();
+                    transactedContext.commit();
+                }
+            } catch (RuntimeException e) {
+                // Otherwise closing the archive writer would still archive the rolled back messages
+                archiveWriter.discardPending();
+                TransactedContexts.rollback(transactedContext, e);
+                throw e;
+            }
+        }
+    }
+}
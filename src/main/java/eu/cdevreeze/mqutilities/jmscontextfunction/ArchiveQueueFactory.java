@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import eu.cdevreeze.mqutilities.archive.ArchiveWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link ArchiveQueue} objects.
+ * <p>
+ * The first argument is the queue name, and the second one the archive directory, which must not yet contain
+ * an archive. The optional third argument is the mode ("browse" or "consume", defaulting to "browse"), and
+ * the optional fourth argument is the compression ("deflate" or "none", defaulting to "deflate").
+ * <p>
+ * The maximum segment size, the number of messages per transaction (in consume mode) and the receive timeout
+ * are taken from config properties "archive.max_segment_bytes" (default 256 MB), "archive.batch_size"
+ * (default 1000) and "archive.receive_timeout_millis" (default 1000).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("ArchiveQueue")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class ArchiveQueueFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 1L << 28;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final long DEFAULT_RECEIVE_TIMEOUT_MILLIS = 1000;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public ArchiveQueue apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        Path archiveDirectory = Path.of(args.get(1));
+        ArchiveQueue.Mode mode = (args.size() >= 3) ? ArchiveQueue.Mode.parse(args.get(2)) : ArchiveQueue.Mode.BROWSE;
+        ArchiveWriter.Compression compression =
+                (args.size() >= 4) ? ArchiveWriter.Compression.parse(args.get(3)) : ArchiveWriter.Compression.DEFLATE;
+
+        long maxSegmentBytes =
+                config.getOptionalValue("archive.max_segment_bytes", Long.class).orElse(DEFAULT_MAX_SEGMENT_BYTES);
+        int batchSize = config.getOptionalValue("archive.batch_size", Integer.class).orElse(DEFAULT_BATCH_SIZE);
+        long receiveTimeoutMillis = config.getOptionalValue("archive.receive_timeout_millis", Long.class)
+                .orElse(DEFAULT_RECEIVE_TIMEOUT_MILLIS);
+
+        return new ArchiveQueue(
+                queueName,
+                archiveDirectory,
+                mode,
+                compression,
+                maxSegmentBytes,
+                batchSize,
+                Duration.ofMillis(receiveTimeoutMillis)
+        );
+    }
+}
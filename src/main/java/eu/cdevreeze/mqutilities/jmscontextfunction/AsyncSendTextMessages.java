@@ -0,0 +1,237 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Utf8;
+import com.ibm.msg.client.jakarta.jms.JmsDestination;
+import com.ibm.msg.client.jakarta.wmq.WMQConstants;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that sends many {@link TextMessage} instances to a queue asynchronously,
+ * using {@link JMSProducer#setAsync(CompletionListener)}. The payloads are read from a payload source, like
+ * {@link BulkSendTextMessages} does.
+ * <p>
+ * Instead of waiting for the queue manager to confirm each send, up to N sends are in flight at the same time.
+ * When the window is full, sending blocks until a send completes (backpressure). After the last send, the function
+ * waits for all outstanding completions. Completion and failure callbacks are aggregated, and the result reports
+ * the confirmed and failed counts, the completion latencies, and (a sample of) the failure messages.
+ * <p>
+ * Pipelining sends this way mainly pays off on high-latency connections, such as TLS channels to remote queue
+ * managers. The sends use a non-transacted {@link JMSContext}, created from the {@link JMSContext} passed
+ * to this function.
+ * <p>
+ * Asynchronous put must be allowed on the destination, or else IBM MQ falls back to the default put response
+ * type of the queue (typically DEFPRESP(SYNC)), and every send still waits for the queue manager. Therefore this
+ * function sets the {@link WMQConstants#WMQ_PUT_ASYNC_ALLOWED} destination property to
+ * {@link WMQConstants#WMQ_PUT_ASYNC_ALLOWED_ENABLED}.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class AsyncSendTextMessages implements JmsContextToJsonObjectFunction {
+
+    private static final int MAX_REPORTED_ERRORS = 10;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    public enum DeliveryMode {
+        PERSISTENT(jakarta.jms.DeliveryMode.PERSISTENT),
+        NON_PERSISTENT(jakarta.jms.DeliveryMode.NON_PERSISTENT);
+
+        private final int jmsDeliveryMode;
+
+        DeliveryMode(int jmsDeliveryMode) {
+            this.jmsDeliveryMode = jmsDeliveryMode;
+        }
+
+        public int jmsDeliveryMode() {
+            return jmsDeliveryMode;
+        }
+
+        public static DeliveryMode parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().replace('_', '-').equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown delivery mode '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().replace('_', '-').toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final String payloadSource;
+    private final int windowSize;
+    private final DeliveryMode deliveryMode;
+    private final Duration completionTimeout;
+
+    public AsyncSendTextMessages(
+            String queueName,
+            String payloadSource,
+            int windowSize,
+            DeliveryMode deliveryMode,
+            Duration completionTimeout) {
+        Preconditions.checkArgument(windowSize > 0, "Expected a positive window size");
+        this.queueName = queueName;
+        this.payloadSource = payloadSource;
+        this.windowSize = windowSize;
+        this.deliveryMode = deliveryMode;
+        this.completionTimeout = completionTimeout;
+    }
+
+    /**
+     * Aggregates the completion callbacks, which are called by a JMS provider thread.
+     */
+    private static final class Completions {
+
+        private final Semaphore window;
+        private final AtomicLong confirmedCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+        private final Set<String> errors = ConcurrentHashMap.newKeySet();
+        private final LogLinearHistogram latencies = new LogLinearHistogram();
+
+        Completions(int windowSize) {
+            this.window = new Semaphore(windowSize);
+        }
+
+        CompletionListener newListener(long sendStartNanos) {
+            return new CompletionListener() {
+                @Override
+                public void onCompletion(Message message) {
+                    recordLatency(sendStartNanos);
+                    confirmedCount.incrementAndGet();
+                    window.release();
+                }
+
+                @Override
+                public void onException(Message message, Exception exception) {
+                    recordLatency(sendStartNanos);
+                    failedCount.incrementAndGet();
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(String.valueOf(exception.getMessage()));
+                    }
+                    window.release();
+                }
+            };
+        }
+
+        private void recordLatency(long sendStartNanos) {
+            long latencyNanos = System.nanoTime() - sendStartNanos;
+            synchronized (latencies) {
+                latencies.record(latencyNanos);
+            }
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        Completions completions = new Completions(windowSize);
+        long messageCount = 0;
+        long byteCount = 0;
+        boolean allCompleted;
+
+        long start = System.nanoTime();
+
+        try (JMSContext asyncContext = jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE);
+             Stream<String> payloads = BulkSendTextMessages.openPayloads(payloadSource)) {
+            Queue queue = createPutAsyncQueue(asyncContext);
+            JMSProducer jmsProducer = asyncContext.createProducer().setDeliveryMode(deliveryMode.jmsDeliveryMode());
+
+            Iterator<String> payloadIterator = payloads.iterator();
+            while (payloadIterator.hasNext()) {
+                String payload = payloadIterator.next();
+
+                // Backpressure: wait for a free slot in the window of in-flight sends
+                completions.window.acquire();
+                long sendStartNanos = System.nanoTime();
+                try {
+                    jmsProducer.setAsync(completions.newListener(sendStartNanos)).send(queue, payload);
+                } catch (JMSRuntimeException e) {
+                    completions.window.release();
+                    throw e;
+                }
+
+                messageCount += 1;
+                byteCount += Utf8.encodedLength(payload);
+            }
+
+            // Wait for the outstanding completions, by reclaiming the whole window
+            allCompleted = completions.window.tryAcquire(windowSize, completionTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+
+        JsonArrayBuilder errorsBuilder = Json.createArrayBuilder();
+        completions.errors.forEach(errorsBuilder::add);
+
+        JsonObject latencies;
+        synchronized (completions.latencies) {
+            latencies = completions.latencies.toJsonObject(NANOS_PER_MILLI);
+        }
+
+        return Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("payloadSource", payloadSource)
+                .add("windowSize", windowSize)
+                .add("deliveryMode", deliveryMode.toString().toLowerCase().replace('_', '-'))
+                .add("messageCount", messageCount)
+                .add("confirmedCount", completions.confirmedCount.get())
+                .add("failedCount", completions.failedCount.get())
+                .add("allCompleted", allCompleted)
+                .add("byteCount", byteCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("bytesPerSecond", byteCount / elapsedSeconds)
+                .add("completionLatencyMillis", latencies)
+                .add("errors", errorsBuilder)
+                .build();
+    }
+
+    private Queue createPutAsyncQueue(JMSContext jmsContext) {
+        Queue queue = jmsContext.createQueue(queueName);
+        try {
+            ((JmsDestination) queue).setIntProperty(
+                    WMQConstants.WMQ_PUT_ASYNC_ALLOWED,
+                    WMQConstants.WMQ_PUT_ASYNC_ALLOWED_ENABLED
+            );
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link AsyncSendTextMessages} objects.
+ * <p>
+ * The first argument is the queue name, and the second one the payload source (directory, glob pattern
+ * or newline-delimited file). The optional third argument is the maximum number of in-flight sends, defaulting
+ * to config property "async_send.window_size" (or 256). The optional fourth argument is the delivery mode
+ * ("persistent" or "non-persistent", defaulting to "persistent"). A "-" leaves the corresponding optional
+ * argument unset.
+ * <p>
+ * The time to wait for outstanding completions is taken from config property
+ * "async_send.completion_timeout_seconds", defaulting to 60.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("AsyncSendTextMessages")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class AsyncSendTextMessagesFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_WINDOW_SIZE = 256;
+    private static final long DEFAULT_COMPLETION_TIMEOUT_SECONDS = 60;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public AsyncSendTextMessages apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        String payloadSource = Objects.requireNonNull(args.get(1));
+        int windowSize = FactoryArgs.optionalArg(args, 2)
+                .map(Integer::parseInt)
+                .orElseGet(() ->
+                        config.getOptionalValue("async_send.window_size", Integer.class).orElse(DEFAULT_WINDOW_SIZE));
+        AsyncSendTextMessages.DeliveryMode deliveryMode = FactoryArgs.optionalArg(args, 3)
+                .map(AsyncSendTextMessages.DeliveryMode::parse)
+                .orElse(AsyncSendTextMessages.DeliveryMode.PERSISTENT);
+        long completionTimeoutSeconds = config.getOptionalValue("async_send.completion_timeout_seconds", Long.class)
+                .orElse(DEFAULT_COMPLETION_TIMEOUT_SECONDS);
+
+        return new AsyncSendTextMessages(
+                queueName,
+                payloadSource,
+                windowSize,
+                deliveryMode,
+                Duration.ofSeconds(completionTimeoutSeconds)
+        );
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+
+/**
+ * Hasher of message bodies, computing 64-bit Murmur3 hashes, and reusing one buffer for reading bytes message
+ * bodies. Bytes message bodies are hashed over their raw bytes, and text message bodies over their characters
+ * (as delivered by the JMS client), without encoding them to bytes first. Other message types are not supported.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class BodyHasher {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final byte TEXT_BODY = 1;
+    private static final byte BYTES_BODY = 2;
+
+    private byte[] buffer = new byte[1 << 16];
+    long hash;
+    long messageCount;
+    long hashedMessageCount;
+
+    /**
+     * Computes the body hash, returning false if the message type is not supported.
+     */
+    boolean computeHash(Message message) throws JMSException {
+        messageCount += 1;
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        if (message instanceof TextMessage textMessage) {
+            String text = textMessage.getText();
+            hasher.putByte(TEXT_BODY).putUnencodedChars((text == null) ? "" : text);
+        } else if (message instanceof BytesMessage bytesMessage) {
+            int length = Math.toIntExact(bytesMessage.getBodyLength());
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, 2 * buffer.length)];
+            }
+            bytesMessage.readBytes(buffer, length);
+            hasher.putByte(BYTES_BODY).putBytes(buffer, 0, length);
+        } else {
+            return false;
+        }
+
+        hash = hasher.hash().asLong();
+        hashedMessageCount += 1;
+        return true;
+    }
+}
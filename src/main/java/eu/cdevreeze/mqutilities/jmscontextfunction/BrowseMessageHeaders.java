@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToTextStreamFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * {@link JmsContextToTextStreamFunction} that writes the headers and properties of all messages on the given queue,
+ * without consuming any data, and without ever touching the message bodies. This makes inspecting queues with large
+ * payloads much cheaper than with {@link ShowAllMessages} or {@link StreamAllMessages}, since no payload is decoded
+ * into a (large) string. All message types are included, and the message type is output as well ("text", "bytes",
+ * "map", "stream", "object", or "none" for a message without body).
+ * <p>
+ * The output is either NDJSON, with one compact JSON object per message, or CSV (RFC 4180), with a header line.
+ * Optionally, only the given properties are output. In CSV output, these properties get a column each. Without
+ * given property names, all properties are output, which in CSV output means one "properties" column containing
+ * "name=value" pairs separated by semicolons.
+ * <p>
+ * Optionally, a JMS message selector is passed to the queue manager, so only matching messages are sent to
+ * the client.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class BrowseMessageHeaders implements JmsContextToTextStreamFunction {
+
+    private static final ImmutableList<String> HEADER_COLUMNS = ImmutableList.of(
+            "messageId",
+            "correlationId",
+            "timestamp",
+            "expiration",
+            "priority",
+            "deliveryMode",
+            "redelivered",
+            "type",
+            "messageType"
+    );
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown format '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final Format format;
+    private final Optional<ImmutableList<String>> propertyNames;
+    private final Optional<String> messageSelector;
+
+    public BrowseMessageHeaders(
+            String queueName,
+            Format format,
+            Optional<ImmutableList<String>> propertyNames,
+            Optional<String> messageSelector) {
+        this.queueName = queueName;
+        this.format = format;
+        this.propertyNames = propertyNames;
+        this.messageSelector = messageSelector;
+    }
+
+    @Override
+    public void accept(JMSContext jmsContext, Writer writer) {
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            if (format == Format.CSV) {
+                writeCsvHeader(writer);
+            }
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+
+                if (format == Format.NDJSON) {
+                    writeNdjsonLine(message, writer);
+                } else {
+                    writeCsvLine(message, writer);
+                }
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeNdjsonLine(Message message, Writer writer) throws JMSException, IOException {
+        JsonObjectBuilder headers = Json.createObjectBuilder();
+        addNullable(headers, "messageId", message.getJMSMessageID());
+        addNullable(headers, "correlationId", message.getJMSCorrelationID());
+        headers
+                .add("timestamp", message.getJMSTimestamp())
+                .add("expiration", message.getJMSExpiration())
+                .add("priority", message.getJMSPriority())
+                .add("deliveryMode", deliveryMode(message))
+                .add("redelivered", message.getJMSRedelivered());
+        addNullable(headers, "type", message.getJMSType());
+        headers.add("messageType", MessageBodyType.of(message).label());
+
+        JsonObjectBuilder properties = Json.createObjectBuilder();
+        for (String propertyName : propertyNames(message)) {
+            Object value = message.getObjectProperty(propertyName);
+            if (value instanceof Boolean b) {
+                properties.add(propertyName, b);
+            } else if (value instanceof Float || value instanceof Double) {
+                properties.add(propertyName, ((Number) value).doubleValue());
+            } else if (value instanceof Number n) {
+                properties.add(propertyName, n.longValue());
+            } else {
+                addNullable(properties, propertyName, (value == null) ? null : value.toString());
+            }
+        }
+        headers.add("properties", properties);
+
+        writer.write(headers.build().toString());
+        writer.write('\n');
+    }
+
+    private void writeCsvHeader(Writer writer) throws IOException {
+        List<String> columns = new ArrayList<>(HEADER_COLUMNS);
+        columns.addAll(propertyNames.orElse(ImmutableList.of("properties")));
+        writeCsvRecord(columns, writer);
+    }
+
+    private void writeCsvLine(Message message, Writer writer) throws JMSException, IOException {
+        List<String> values = new ArrayList<>(HEADER_COLUMNS.size() + 1);
+        values.add(Objects.toString(message.getJMSMessageID(), ""));
+        values.add(Objects.toString(message.getJMSCorrelationID(), ""));
+        values.add(String.valueOf(message.getJMSTimestamp()));
+        values.add(String.valueOf(message.getJMSExpiration()));
+        values.add(String.valueOf(message.getJMSPriority()));
+        values.add(deliveryMode(message));
+        values.add(String.valueOf(message.getJMSRedelivered()));
+        values.add(Objects.toString(message.getJMSType(), ""));
+        values.add(MessageBodyType.of(message).label());
+
+        if (propertyNames.isPresent()) {
+            for (String propertyName : propertyNames.get()) {
+                values.add(Objects.toString(message.getObjectProperty(propertyName), ""));
+            }
+        } else {
+            StringJoiner properties = new StringJoiner(";");
+            for (String propertyName : propertyNames(message)) {
+                properties.add(propertyName + "=" + message.getObjectProperty(propertyName));
+            }
+            values.add(properties.toString());
+        }
+        writeCsvRecord(values, writer);
+    }
+
+    private List<String> propertyNames(Message message) throws JMSException {
+        if (propertyNames.isPresent()) {
+            return propertyNames.get();
+        }
+        @SuppressWarnings("unchecked")
+        Enumeration<String> names = (Enumeration<String>) message.getPropertyNames();
+        return Collections.list(names);
+    }
+
+    private static void writeCsvRecord(List<String> values, Writer writer) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(values.get(i), writer);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvField(String value, Writer writer) throws IOException {
+        boolean needsQuotes = value.chars().anyMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n');
+        if (needsQuotes) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static void addNullable(JsonObjectBuilder builder, String name, String value) {
+        if (value == null) {
+            builder.addNull(name);
+        } else {
+            builder.add(name, value);
+        }
+    }
+
+    private static String deliveryMode(Message message) throws JMSException {
+        return (message.getJMSDeliveryMode() == DeliveryMode.PERSISTENT) ? "persistent" : "non_persistent";
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToTextStreamFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link BrowseMessageHeaders} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is the output format ("ndjson" or "csv",
+ * defaulting to "ndjson"). The optional third argument is a comma-separated list of property names, and the
+ * optional fourth argument is the message selector. A "-" leaves the corresponding optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("BrowseMessageHeaders")
+@Typed({JmsContextToTextStreamFunctionFactory.class})
+public class BrowseMessageHeadersFactory implements JmsContextToTextStreamFunctionFactory {
+
+    @Override
+    public BrowseMessageHeaders apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        BrowseMessageHeaders.Format format = FactoryArgs.optionalArg(args, 1)
+                .map(BrowseMessageHeaders.Format::parse)
+                .orElse(BrowseMessageHeaders.Format.NDJSON);
+        Optional<ImmutableList<String>> propertyNames = FactoryArgs.optionalArg(args, 2)
+                .map(names -> ImmutableList.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(names)));
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 3);
+
+        return new BrowseMessageHeaders(queueName, format, propertyNames, messageSelector);
+    }
+}
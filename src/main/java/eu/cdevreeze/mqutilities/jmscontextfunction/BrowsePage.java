@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToElementFunction;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+import jakarta.jms.*;
+
+import javax.xml.namespace.QName;
+import java.util.Enumeration;
+import java.util.Optional;
+
+import static eu.cdevreeze.yaidom4j.dom.immutabledom.Nodes.elem;
+
+/**
+ * {@link JmsContextToElementFunction} that returns one page of messages on the given queue, in browse order,
+ * without consuming any data. The page starts either at an offset or after a cursor returned by a previous call.
+ * Browsing stops as soon as the page is full, and only the messages on the page are retained, so the cost
+ * is proportional to the offset plus the page size, rather than to the queue depth.
+ * <p>
+ * A cursor consists of a position (the number of messages before the next page) and the JMS message ID of the
+ * last message on the previous page. The message ID makes the cursor robust against messages that have been
+ * removed from the queue in the meantime: if the message is found before the position is reached, the page starts
+ * right after it. Otherwise (the message itself has been removed) the page starts at the position.
+ * <p>
+ * Note that JMS browsing cannot seek, so the messages before the page are still transferred to the client,
+ * but they are neither retained nor converted.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class BrowsePage implements JmsContextToElementFunction {
+
+    /**
+     * Cursor, formatted as "position:messageId".
+     */
+    public record Cursor(long position, String messageId) {
+
+        public Cursor {
+            Preconditions.checkArgument(position >= 0, "Expected a non-negative position");
+        }
+
+        public static Cursor parse(String s) {
+            int colonIndex = s.indexOf(':');
+            Preconditions.checkArgument(colonIndex > 0, String.format("Expected 'position:messageId', got '%s'", s));
+            return new Cursor(Long.parseLong(s.substring(0, colonIndex)), s.substring(colonIndex + 1));
+        }
+
+        @Override
+        public String toString() {
+            return position + ":" + messageId;
+        }
+    }
+
+    private final String queueName;
+    private final long offset;
+    private final Optional<Cursor> cursor;
+    private final int limit;
+    private final Optional<String> messageSelector;
+
+    private BrowsePage(String queueName, long offset, Optional<Cursor> cursor, int limit, Optional<String> messageSelector) {
+        Preconditions.checkArgument(offset >= 0, "Expected a non-negative offset");
+        Preconditions.checkArgument(limit > 0, "Expected a positive page size");
+        this.queueName = queueName;
+        this.offset = offset;
+        this.cursor = cursor;
+        this.limit = limit;
+        this.messageSelector = messageSelector;
+    }
+
+    public static BrowsePage atOffset(String queueName, long offset, int limit, Optional<String> messageSelector) {
+        return new BrowsePage(queueName, offset, Optional.empty(), limit, messageSelector);
+    }
+
+    public static BrowsePage afterCursor(String queueName, Cursor cursor, int limit, Optional<String> messageSelector) {
+        return new BrowsePage(queueName, cursor.position(), Optional.of(cursor), limit, messageSelector);
+    }
+
+    @Override
+    public Element apply(JMSContext jmsContext) {
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            // Skip the messages before the page, without retaining them
+            long position = 0;
+            while (position < offset && messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+                position += 1;
+
+                if (cursor.isPresent() && cursor.get().messageId().equals(message.getJMSMessageID())) {
+                    break;
+                }
+            }
+
+            ImmutableList.Builder<Element> messageElements = ImmutableList.builder();
+            String lastMessageId = null;
+            int count = 0;
+            while (count < limit && messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+                messageElements.add(toElement(message));
+                lastMessageId = message.getJMSMessageID();
+                count += 1;
+            }
+            boolean hasMore = messages.hasMoreElements();
+
+            Element page = elem(new QName("queuePage"))
+                    .plusChild(elem(new QName("queue")).plusText(queueName));
+            if (messageSelector.isPresent()) {
+                page = page.plusChild(elem(new QName("selector")).plusText(messageSelector.get()));
+            }
+            page = page
+                    .plusChild(elem(new QName("offset")).plusText(String.valueOf(position)))
+                    .plusChild(elem(new QName("messageCount")).plusText(String.valueOf(count)))
+                    .plusChild(elem(new QName("messages")).plusChildren(messageElements.build()));
+            if (hasMore) {
+                Cursor nextCursor = new Cursor(position + count, lastMessageId);
+                page = page.plusChild(elem(new QName("nextCursor")).plusText(nextCursor.toString()));
+            }
+            return page;
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    private static Element toElement(Message message) throws JMSException {
+        Element messageElement = elem(new QName("message"))
+                .plusChild(elem(new QName("messageId")).plusText(String.valueOf(message.getJMSMessageID())))
+                .plusChild(elem(new QName("timestamp")).plusText(String.valueOf(message.getJMSTimestamp())))
+                .plusChild(elem(new QName("bodyType")).plusText(MessageBodyType.of(message).label()));
+
+        if (message instanceof TextMessage textMessage && textMessage.getText() != null) {
+            messageElement = messageElement.plusChild(
+                    elem(new QName("textMessagePayload")).plusChild(new Text(textMessage.getText(), true))
+            );
+        }
+        return messageElement;
+    }
+}
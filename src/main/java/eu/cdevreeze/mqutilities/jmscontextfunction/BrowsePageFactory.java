@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToElementFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link BrowsePage} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is either an offset (a number) or
+ * a cursor ("position:messageId") returned by a previous call, defaulting to offset 0. The optional third
+ * argument is the page size, defaulting to 100. The optional fourth argument is a JMS message selector.
+ * A "-" leaves the corresponding optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("BrowsePage")
+@Typed({JmsContextToElementFunctionFactory.class, JmsContextFunctionFactory.class})
+public class BrowsePageFactory implements JmsContextToElementFunctionFactory {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    @Override
+    public BrowsePage apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        String offsetOrCursor = FactoryArgs.optionalArg(args, 1).orElse("0");
+        int limit = FactoryArgs.optionalArg(args, 2).map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 3);
+
+        if (offsetOrCursor.chars().allMatch(Character::isDigit)) {
+            return BrowsePage.atOffset(queueName, Long.parseLong(offsetOrCursor), limit, messageSelector);
+        } else {
+            return BrowsePage.afterCursor(queueName, BrowsePage.Cursor.parse(offsetOrCursor), limit, messageSelector);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Utf8;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSProducer;
+import jakarta.jms.Queue;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that sends many {@link jakarta.jms.TextMessage} instances to a queue,
+ * in transacted batches.
+ * <p>
+ * The message payloads are read from a payload source, which is either a directory (one message per regular file),
+ * a glob pattern such as "/data/payloads/*.xml" (one message per matching file), or a regular file
+ * containing one message per (non-empty) line. The payloads are read lazily, so the number of messages is not
+ * bounded by the available memory.
+ * <p>
+ * The messages are sent within a transacted {@link JMSContext}, created from the {@link JMSContext} passed to this
+ * function, and committed every N messages. One {@link JMSProducer} and {@link Queue} are used for all messages.
+ * The result reports the throughput and commit latencies.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class BulkSendTextMessages implements JmsContextToJsonObjectFunction {
+
+    private final String queueName;
+    private final String payloadSource;
+    private final int batchSize;
+
+    public BulkSendTextMessages(String queueName, String payloadSource, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        this.queueName = queueName;
+        this.payloadSource = payloadSource;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long messageCount = 0;
+        long byteCount = 0;
+        LatencyStatistics commitLatencies = new LatencyStatistics();
+
+        long start = System.nanoTime();
+
+        try (JMSContext transactedContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED);
+             Stream<String> payloads = openPayloads(payloadSource)) {
+            Queue queue = transactedContext.createQueue(queueName);
+            JMSProducer jmsProducer = transactedContext.createProducer();
+
+            try {
+                int messagesInBatch = 0;
+                Iterator<String> payloadIterator = payloads.iterator();
+
+                while (payloadIterator.hasNext()) {
+                    String payload = payloadIterator.next();
+                    jmsProducer.send(queue, payload);
+
+                    messageCount += 1;
+                    byteCount += Utf8.encodedLength(payload);
+                    messagesInBatch += 1;
+
+                    if (messagesInBatch == batchSize) {
+                        commit(transactedContext, commitLatencies);
+                        messagesInBatch = 0;
+                    }
+                }
+                if (messagesInBatch > 0) {
+                    commit(transactedContext, commitLatencies);
+                }
+            } catch (RuntimeException e) {
+                TransactedContexts.rollback(transactedContext, e);
+                throw e;
+            }
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+
+        return Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("payloadSource", payloadSource)
+                .add("batchSize", batchSize)
+                .add("messageCount", messageCount)
+                .add("byteCount", byteCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("bytesPerSecond", byteCount / elapsedSeconds)
+                .add("commitLatencyMillis", commitLatencies.toJsonObject())
+                .build();
+    }
+
+    private static void commit(JMSContext transactedContext, LatencyStatistics commitLatencies) {
+        long commitStart = System.nanoTime();
+        transactedContext.commit();
+        commitLatencies.record(System.nanoTime() - commitStart);
+    }
+
+    /**
+     * Returns the (lazy) stream of payloads of the given payload source, which is a directory, a glob pattern
+     * or a newline-delimited file. The stream must be closed after use.
+     */
+    static Stream<String> openPayloads(String payloadSource) {
+        try {
+            Path path = Path.of(payloadSource);
+
+            if (Files.isDirectory(path)) {
+                return streamFileContents(Files.newDirectoryStream(path, Files::isRegularFile));
+            } else if (isGlobPattern(payloadSource)) {
+                Path directory = path.toAbsolutePath().getParent();
+                PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + path.toAbsolutePath());
+                return streamFileContents(
+                        Files.newDirectoryStream(directory, p -> Files.isRegularFile(p) && pathMatcher.matches(p))
+                );
+            } else {
+                return Files.lines(path).filter(line -> !line.isBlank());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isGlobPattern(String payloadSource) {
+        return payloadSource.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0);
+    }
+
+    private static Stream<String> streamFileContents(DirectoryStream<Path> files) {
+        // Sort the file names, so the send order is predictable; only the paths are kept in memory
+        Path[] sortedFiles = StreamSupport.stream(files.spliterator(), false).sorted().toArray(Path[]::new);
+        try {
+            files.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.stream(sortedFiles).map(file -> {
+            try {
+                return Files.readString(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
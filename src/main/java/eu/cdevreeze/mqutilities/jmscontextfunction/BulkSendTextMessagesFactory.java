@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link BulkSendTextMessages} objects.
+ * <p>
+ * The first argument is the queue name, and the second one the payload source (directory, glob pattern
+ * or newline-delimited file). The optional third argument is the number of messages per transaction,
+ * defaulting to 100.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("BulkSendTextMessages")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class BulkSendTextMessagesFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    @Override
+    public BulkSendTextMessages apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        String payloadSource = Objects.requireNonNull(args.get(1));
+        int batchSize = (args.size() >= 3) ? Integer.parseInt(args.get(2)) : DEFAULT_BATCH_SIZE;
+        return new BulkSendTextMessages(queueName, payloadSource, batchSize);
+    }
+}
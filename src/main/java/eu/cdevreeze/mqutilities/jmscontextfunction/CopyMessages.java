@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that copies the messages on a source queue to a target queue, leaving
+ * the source queue intact. The messages can optionally be restricted to those matching a message selector,
+ * and optionally up to a maximum number of messages.
+ * <p>
+ * The source queue is browsed, and the browsed messages are sent to the target queue within a transacted
+ * {@link JMSContext}, created from the {@link JMSContext} passed to this function, committing every N messages.
+ * Unlike {@link MoveMessages}, copying uses a single browser and producer, since concurrent browsers would each
+ * see all messages.
+ * <p>
+ * Headers and properties are preserved as described in {@link MessageForwarding}. Expired messages are skipped.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class CopyMessages implements JmsContextToJsonObjectFunction {
+
+    private final String sourceQueueName;
+    private final String targetQueueName;
+    private final int batchSize;
+    private final OptionalLong maxMessageCount;
+    private final Optional<String> messageSelector;
+
+    public CopyMessages(
+            String sourceQueueName,
+            String targetQueueName,
+            int batchSize,
+            OptionalLong maxMessageCount,
+            Optional<String> messageSelector) {
+        Preconditions.checkArgument(!sourceQueueName.equals(targetQueueName), "Source and target queue must differ");
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        this.sourceQueueName = sourceQueueName;
+        this.targetQueueName = targetQueueName;
+        this.batchSize = batchSize;
+        this.maxMessageCount = maxMessageCount;
+        this.messageSelector = messageSelector;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        long messageCount = 0;
+        long expiredCount = 0;
+        long byteCount = 0;
+        LatencyStatistics commitLatencies = new LatencyStatistics();
+        long maxCount = maxMessageCount.orElse(Long.MAX_VALUE);
+
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(sourceQueueName), messageSelector.orElse(null));
+             JMSContext transactedContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED)) {
+            Queue targetQueue = transactedContext.createQueue(targetQueueName);
+            JMSProducer jmsProducer = transactedContext.createProducer();
+
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            try {
+                int messagesInBatch = 0;
+
+                while (messageCount + expiredCount < maxCount && messages.hasMoreElements()) {
+                    Message message = messages.nextElement();
+
+                    if (MessageForwarding.forward(message, jmsProducer, targetQueue)) {
+                        messageCount += 1;
+                        byteCount += MessageForwarding.payloadSize(message);
+                        messagesInBatch += 1;
+                    } else {
+                        expiredCount += 1;
+                    }
+
+                    if (messagesInBatch == batchSize) {
+                        commit(transactedContext, commitLatencies);
+                        messagesInBatch = 0;
+                    }
+                }
+                if (messagesInBatch > 0) {
+                    commit(transactedContext, commitLatencies);
+                }
+            } catch (RuntimeException e) {
+                TransactedContexts.rollback(transactedContext, e);
+                throw e;
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("sourceQueue", sourceQueueName)
+                .add("targetQueue", targetQueueName)
+                .add("batchSize", batchSize);
+        maxMessageCount.ifPresent(n -> resultBuilder.add("maxMessageCount", n));
+        messageSelector.ifPresent(s -> resultBuilder.add("selector", s));
+        return resultBuilder
+                .add("messageCount", messageCount)
+                .add("expiredCount", expiredCount)
+                .add("byteCount", byteCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("bytesPerSecond", byteCount / elapsedSeconds)
+                .add("commitLatencyMillis", commitLatencies.toJsonObject())
+                .build();
+    }
+
+    private static void commit(JMSContext transactedContext, LatencyStatistics commitLatencies) {
+        long commitStart = System.nanoTime();
+        transactedContext.commit();
+        commitLatencies.record(System.nanoTime() - commitStart);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that compares the contents of two queues, for example to validate a
+ * migration or a bridge, without consuming any data. It returns the messages on queue A that are not on queue B,
+ * and vice versa, leaving out the messages found on both queues.
+ * <p>
+ * Messages are matched by a key, which is the message ID, the correlation ID, the value of a given message property,
+ * or the body hash (see {@link BodyHasher}). The message ID only makes sense as key if the messages were moved or
+ * copied with their message IDs retained. Messages without a key value are counted, but not compared. Messages
+ * occurring more than once with the same key are matched one by one.
+ * <p>
+ * Both queues are browsed concurrently, each on its own child {@link JMSContext}, created from the {@link JMSContext}
+ * passed to this function. The keys and message IDs are hash-partitioned by key (see {@link KeyedRecordPartitions}),
+ * spilling to temporary files when the memory budget is exceeded. The partitions are then compared one at a time,
+ * so only one partition of queue A needs to fit in memory. Differences are therefore reported in partition order,
+ * and not in queue order, and only a limited number of them is reported, along with the total counts.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class DiffQueues implements JmsContextToJsonObjectFunction {
+
+    public enum KeyType {
+        MESSAGE_ID, CORRELATION_ID, PROPERTY, BODY_HASH;
+
+        public static KeyType parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown key type '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueNameA;
+    private final String queueNameB;
+    private final KeyType keyType;
+    private final Optional<String> propertyName;
+    private final Optional<String> messageSelector;
+    private final int partitionCount;
+    private final long memoryBudgetBytes;
+    private final int maxReportedDifferences;
+
+    public DiffQueues(
+            String queueNameA,
+            String queueNameB,
+            KeyType keyType,
+            Optional<String> propertyName,
+            Optional<String> messageSelector,
+            int partitionCount,
+            long memoryBudgetBytes,
+            int maxReportedDifferences) {
+        Preconditions.checkArgument(
+                propertyName.isPresent() == (keyType == KeyType.PROPERTY),
+                "Expected a property name if and only if the key type is 'property'"
+        );
+        Preconditions.checkArgument(partitionCount > 0, "Expected a positive partition count");
+        Preconditions.checkArgument(memoryBudgetBytes > 0, "Expected a positive memory budget");
+        Preconditions.checkArgument(maxReportedDifferences >= 0, "Expected a non-negative maximum number of differences");
+        this.queueNameA = queueNameA;
+        this.queueNameB = queueNameB;
+        this.keyType = keyType;
+        this.propertyName = propertyName;
+        this.messageSelector = messageSelector;
+        this.partitionCount = partitionCount;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.maxReportedDifferences = maxReportedDifferences;
+    }
+
+    private record BrowseCounts(long messageCount, long unkeyedMessageCount) {
+    }
+
+    /**
+     * Differences found on one side, of which only the first ones are retained for the result.
+     */
+    private final class Differences {
+
+        private final JsonArrayBuilder reported = Json.createArrayBuilder();
+        private long count;
+
+        void add(String key, String messageId) {
+            if (count < maxReportedDifferences) {
+                reported.add(Json.createObjectBuilder()
+                        .add("key", key)
+                        .add("messageId", (keyType == KeyType.MESSAGE_ID) ? key : messageId));
+            }
+            count += 1;
+        }
+    }
+
+    /**
+     * Comparison of both queues, one partition at a time.
+     */
+    private final class Comparison {
+
+        private final Differences onlyInA = new Differences();
+        private final Differences onlyInB = new Differences();
+        private long matchedMessageCount;
+
+        void comparePartition(int partition, KeyedRecordPartitions partitionsA, KeyedRecordPartitions partitionsB) {
+            Map<String, ArrayDeque<String>> messageIdsByKeyA = new HashMap<>();
+            partitionsA.forEachInPartition(
+                    partition,
+                    (key, messageId) -> messageIdsByKeyA.computeIfAbsent(key, k -> new ArrayDeque<>(1)).add(messageId)
+            );
+
+            partitionsB.forEachInPartition(partition, (key, messageId) -> {
+                ArrayDeque<String> messageIdsA = messageIdsByKeyA.get(key);
+                if (messageIdsA == null || messageIdsA.isEmpty()) {
+                    onlyInB.add(key, messageId);
+                } else {
+                    messageIdsA.poll();
+                    matchedMessageCount += 1;
+                }
+            });
+
+            messageIdsByKeyA.forEach((key, messageIdsA) -> messageIdsA.forEach(id -> onlyInA.add(key, id)));
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        Path spillDirectory = createSpillDirectory();
+        try (KeyedRecordPartitions partitionsA =
+                     new KeyedRecordPartitions(spillDirectory, "a", partitionCount, Math.max(1, memoryBudgetBytes / 2));
+             KeyedRecordPartitions partitionsB =
+                     new KeyedRecordPartitions(spillDirectory, "b", partitionCount, Math.max(1, memoryBudgetBytes / 2))) {
+            List<BrowseCounts> browseCounts = browseConcurrently(jmsContext, partitionsA, partitionsB);
+
+            Comparison comparison = new Comparison();
+            for (int i = 0; i < partitionCount; i++) {
+                comparison.comparePartition(i, partitionsA, partitionsB);
+            }
+
+            JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                    .add("queueA", queueNameA)
+                    .add("queueB", queueNameB)
+                    .add("key", keyType.toString().toLowerCase());
+            propertyName.ifPresent(p -> resultBuilder.add("property", p));
+            messageSelector.ifPresent(s -> resultBuilder.add("selector", s));
+
+            return resultBuilder
+                    .add("messageCountA", browseCounts.get(0).messageCount())
+                    .add("messageCountB", browseCounts.get(1).messageCount())
+                    .add("unkeyedMessageCountA", browseCounts.get(0).unkeyedMessageCount())
+                    .add("unkeyedMessageCountB", browseCounts.get(1).unkeyedMessageCount())
+                    .add("matchedMessageCount", comparison.matchedMessageCount)
+                    .add("onlyInACount", comparison.onlyInA.count)
+                    .add("onlyInBCount", comparison.onlyInB.count)
+                    .add("partitionCount", partitionCount)
+                    .add("spilledByteCount", partitionsA.spilledByteCount() + partitionsB.spilledByteCount())
+                    .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                    .add("onlyInA", comparison.onlyInA.reported)
+                    .add("onlyInB", comparison.onlyInB.reported)
+                    .build();
+        } finally {
+            deleteSpillDirectory(spillDirectory);
+        }
+    }
+
+    private List<BrowseCounts> browseConcurrently(
+            JMSContext jmsContext,
+            KeyedRecordPartitions partitionsA,
+            KeyedRecordPartitions partitionsB) {
+        // JMSContext objects are not thread-safe, so create the child contexts in this thread
+        List<JMSContext> childContexts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            childContexts.add(jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE));
+            childContexts.add(jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE));
+
+            List<Future<BrowseCounts>> futures = List.of(
+                    executor.submit(() -> browse(childContexts.get(0), queueNameA, partitionsA)),
+                    executor.submit(() -> browse(childContexts.get(1), queueNameB, partitionsB))
+            );
+            List<BrowseCounts> results = new ArrayList<>();
+            for (Future<BrowseCounts> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+    }
+
+    private BrowseCounts browse(JMSContext jmsContext, String queueName, KeyedRecordPartitions partitions) {
+        BodyHasher bodyHasher = new BodyHasher();
+        long messageCount = 0;
+        long unkeyedMessageCount = 0;
+
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+                messageCount += 1;
+                String key = messageKey(message, bodyHasher);
+
+                if (key == null) {
+                    unkeyedMessageCount += 1;
+                } else {
+                    // With message IDs as keys, there is no need to store them twice
+                    partitions.add(key, (keyType == KeyType.MESSAGE_ID) ? "" : message.getJMSMessageID());
+                }
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+        return new BrowseCounts(messageCount, unkeyedMessageCount);
+    }
+
+    private String messageKey(Message message, BodyHasher bodyHasher) throws JMSException {
+        return switch (keyType) {
+            case MESSAGE_ID -> message.getJMSMessageID();
+            case CORRELATION_ID -> message.getJMSCorrelationID();
+            case PROPERTY -> {
+                Object value = message.getObjectProperty(propertyName.orElseThrow());
+                yield (value == null) ? null : value.toString();
+            }
+            case BODY_HASH -> bodyHasher.computeHash(message) ? String.format("%016x", bodyHasher.hash) : null;
+        };
+    }
+
+    private static Path createSpillDirectory() {
+        try {
+            return Files.createTempDirectory("diff-queues");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteSpillDirectory(Path spillDirectory) {
+        try {
+            Files.deleteIfExists(spillDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link DiffQueues} objects.
+ * <p>
+ * The first two arguments are the names of queues A and B. The optional third argument is the key type
+ * ("message_id", "correlation_id", "property" or "body_hash", defaulting to "message_id"). The optional fourth
+ * argument is the property name, required for key type "property", and the optional fifth argument is the message
+ * selector. A "-" leaves the corresponding optional argument unset.
+ * <p>
+ * The partition count is taken from config property "diff_queues.partitions" (default 64), the memory budget
+ * for both queues together from config property "diff_queues.memory_budget_mb" (default 256), and the maximum
+ * number of reported differences per queue from config property "diff_queues.max_reported_differences"
+ * (default 1000).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("DiffQueues")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class DiffQueuesFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_PARTITION_COUNT = 64;
+    private static final long DEFAULT_MEMORY_BUDGET_MB = 256;
+    private static final int DEFAULT_MAX_REPORTED_DIFFERENCES = 1000;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public DiffQueues apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueNameA = Objects.requireNonNull(args.get(0));
+        String queueNameB = Objects.requireNonNull(args.get(1));
+        DiffQueues.KeyType keyType = FactoryArgs.optionalArg(args, 2)
+                .map(DiffQueues.KeyType::parse)
+                .orElse(DiffQueues.KeyType.MESSAGE_ID);
+        Optional<String> propertyName = FactoryArgs.optionalArg(args, 3);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 4);
+
+        int partitionCount = config.getOptionalValue("diff_queues.partitions", Integer.class)
+                .orElse(DEFAULT_PARTITION_COUNT);
+        long memoryBudgetMb = config.getOptionalValue("diff_queues.memory_budget_mb", Long.class)
+                .orElse(DEFAULT_MEMORY_BUDGET_MB);
+        int maxReportedDifferences = config.getOptionalValue("diff_queues.max_reported_differences", Integer.class)
+                .orElse(DEFAULT_MAX_REPORTED_DIFFERENCES);
+
+        return new DiffQueues(
+                queueNameA,
+                queueNameB,
+                keyType,
+                propertyName,
+                messageSelector,
+                partitionCount,
+                memoryBudgetMb * 1024 * 1024,
+                maxReportedDifferences
+        );
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Utf8;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that destructively consumes the messages on a queue, optionally
+ * restricted to those matching a message selector, and optionally up to a maximum number of messages.
+ * <p>
+ * The queue is drained by N concurrent consumers. Each consumer uses its own transacted {@link JMSContext},
+ * created from the {@link JMSContext} passed to this function, so all consumers share the same connection.
+ * Each consumer commits every M messages, which is far cheaper than acknowledging each message separately.
+ * A consumer stops when no message arrives within the receive timeout, so the queue is considered drained.
+ * <p>
+ * Optionally the payloads are written to a sink directory, one file per message, named after the message ID.
+ * The files are written before the transaction commits, so after a failure a message may have been written
+ * to disk without having been removed from the queue. When such a message is redelivered, its file is replaced.
+ * Each file is first written under a temporary name and then atomically renamed, so no partially written file
+ * ever carries the final name. Text and bytes message payloads are written; other message types are consumed
+ * and counted without being written.
+ * <p>
+ * If a consumer fails, its uncommitted messages are rolled back, the other consumers stop after committing
+ * their current batch, and the function fails.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class DrainQueue implements JmsContextToJsonObjectFunction {
+
+    private final String queueName;
+    private final int consumerCount;
+    private final int batchSize;
+    private final OptionalLong maxMessageCount;
+    private final Optional<String> messageSelector;
+    private final Optional<Path> sinkDirectory;
+    private final Duration receiveTimeout;
+
+    public DrainQueue(
+            String queueName,
+            int consumerCount,
+            int batchSize,
+            OptionalLong maxMessageCount,
+            Optional<String> messageSelector,
+            Optional<Path> sinkDirectory,
+            Duration receiveTimeout) {
+        Preconditions.checkArgument(consumerCount > 0, "Expected a positive consumer count");
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        this.queueName = queueName;
+        this.consumerCount = consumerCount;
+        this.batchSize = batchSize;
+        this.maxMessageCount = maxMessageCount;
+        this.messageSelector = messageSelector;
+        this.sinkDirectory = sinkDirectory;
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    private record ConsumerResult(long messageCount, long byteCount, LatencyStatistics commitLatencies) {
+
+        JsonObject toJsonObject() {
+            return Json.createObjectBuilder()
+                    .add("messageCount", messageCount)
+                    .add("byteCount", byteCount)
+                    .add("commitLatencyMillis", commitLatencies.toJsonObject())
+                    .build();
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        sinkDirectory.ifPresent(dir -> {
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        long start = System.nanoTime();
+
+        // Shared claim counter, so that the consumers together do not exceed the maximum message count
+        AtomicLong remainingMessageCount = new AtomicLong(maxMessageCount.orElse(Long.MAX_VALUE));
+        AtomicBoolean stopped = new AtomicBoolean(false);
+
+        // JMSContext objects are not thread-safe, so create the child contexts and consumers in this thread
+        List<JMSContext> childContexts = new ArrayList<>();
+        List<ConsumerResult> consumerResults = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(consumerCount);
+        try {
+            List<Future<ConsumerResult>> futures = new ArrayList<>();
+            for (int i = 0; i < consumerCount; i++) {
+                JMSContext childContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED);
+                childContexts.add(childContext);
+                Queue queue = childContext.createQueue(queueName);
+                JMSConsumer jmsConsumer = childContext.createConsumer(queue, messageSelector.orElse(null));
+
+                futures.add(executor.submit(() ->
+                        drain(childContext, jmsConsumer, remainingMessageCount, stopped)));
+            }
+            // Wait for all consumers before closing their contexts, so the others can commit their current batch
+            Throwable failure = null;
+            for (Future<ConsumerResult> future : futures) {
+                try {
+                    consumerResults.add(future.get());
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            stopped.set(true);
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+        long messageCount = consumerResults.stream().mapToLong(ConsumerResult::messageCount).sum();
+        long byteCount = consumerResults.stream().mapToLong(ConsumerResult::byteCount).sum();
+
+        JsonArrayBuilder consumersBuilder = Json.createArrayBuilder();
+        consumerResults.forEach(r -> consumersBuilder.add(r.toJsonObject()));
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("consumerCount", consumerCount)
+                .add("batchSize", batchSize);
+        maxMessageCount.ifPresent(n -> resultBuilder.add("maxMessageCount", n));
+        messageSelector.ifPresent(s -> resultBuilder.add("selector", s));
+        sinkDirectory.ifPresent(dir -> resultBuilder.add("sinkDirectory", dir.toString()));
+        return resultBuilder
+                .add("messageCount", messageCount)
+                .add("byteCount", byteCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("bytesPerSecond", byteCount / elapsedSeconds)
+                .add("consumers", consumersBuilder)
+                .build();
+    }
+
+    private ConsumerResult drain(
+            JMSContext transactedContext,
+            JMSConsumer jmsConsumer,
+            AtomicLong remainingMessageCount,
+            AtomicBoolean stopped) {
+        long messageCount = 0;
+        long byteCount = 0;
+        LatencyStatistics commitLatencies = new LatencyStatistics();
+
+        try {
+            int messagesInBatch = 0;
+
+            while (!stopped.get() && remainingMessageCount.getAndDecrement() > 0) {
+                Message message = jmsConsumer.receive(receiveTimeout.toMillis());
+
+                if (message == null) {
+                    // Give back the claim; this consumer regards the queue as drained
+                    remainingMessageCount.incrementAndGet();
+                    break;
+                }
+
+                byteCount += writeToSink(message);
+                messageCount += 1;
+                messagesInBatch += 1;
+
+                if (messagesInBatch == batchSize) {
+                    commit(transactedContext, commitLatencies);
+                    messagesInBatch = 0;
+                }
+            }
+            if (messagesInBatch > 0) {
+                commit(transactedContext, commitLatencies);
+            }
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            TransactedContexts.rollback(transactedContext, e);
+            throw e;
+        } finally {
+            jmsConsumer.close();
+        }
+
+        return new ConsumerResult(messageCount, byteCount, commitLatencies);
+    }
+
+    /**
+     * Writes the payload to the sink directory, if any, returning the payload size in bytes.
+     */
+    private long writeToSink(Message message) {
+        try {
+            byte[] payload;
+            if (message instanceof TextMessage textMessage) {
+                String text = textMessage.getText();
+                if (sinkDirectory.isEmpty()) {
+                    return (text == null) ? 0 : Utf8.encodedLength(text);
+                }
+                payload = (text == null) ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+            } else if (message instanceof BytesMessage bytesMessage) {
+                if (sinkDirectory.isEmpty()) {
+                    return bytesMessage.getBodyLength();
+                }
+                payload = bytesMessage.getBody(byte[].class);
+                payload = (payload == null) ? new byte[0] : payload;
+            } else {
+                return 0;
+            }
+
+            Path file = sinkDirectory.orElseThrow().resolve(toFileName(message.getJMSMessageID()));
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tempFile, payload);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return payload.length;
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toFileName(String messageId) {
+        return messageId.replaceAll("[^A-Za-z0-9._-]", "_") + ".msg";
+    }
+
+    private static void commit(JMSContext transactedContext, LatencyStatistics commitLatencies) {
+        long commitStart = System.nanoTime();
+        transactedContext.commit();
+        commitLatencies.record(System.nanoTime() - commitStart);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Factory of {@link DrainQueue} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is the maximum message count, the optional
+ * third argument is the message selector, and the optional fourth argument is the sink directory. A "-" leaves
+ * the corresponding optional argument unset.
+ * <p>
+ * The number of consumers, the number of messages per transaction and the receive timeout are taken from
+ * config properties "drain_queue.consumers" (default 4), "drain_queue.batch_size" (default 100) and
+ * "drain_queue.receive_timeout_millis" (default 1000).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("DrainQueue")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class DrainQueueFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_CONSUMER_COUNT = 4;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_RECEIVE_TIMEOUT_MILLIS = 1000;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public DrainQueue apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        OptionalLong maxMessageCount = FactoryArgs.optionalArg(args, 1).stream().mapToLong(Long::parseLong).findFirst();
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 2);
+        Optional<Path> sinkDirectory = FactoryArgs.optionalArg(args, 3).map(Path::of);
+
+        int consumerCount =
+                config.getOptionalValue("drain_queue.consumers", Integer.class).orElse(DEFAULT_CONSUMER_COUNT);
+        int batchSize =
+                config.getOptionalValue("drain_queue.batch_size", Integer.class).orElse(DEFAULT_BATCH_SIZE);
+        long receiveTimeoutMillis = config.getOptionalValue("drain_queue.receive_timeout_millis", Long.class)
+                .orElse(DEFAULT_RECEIVE_TIMEOUT_MILLIS);
+
+        return new DrainQueue(
+                queueName,
+                consumerCount,
+                batchSize,
+                maxMessageCount,
+                messageSelector,
+                sinkDirectory,
+                Duration.ofMillis(receiveTimeoutMillis)
+        );
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Utility methods for parsing function factory arguments.
+ *
+ * @author Chris de Vreeze
+ */
+final class FactoryArgs {
+
+    /**
+     * Argument value leaving an optional argument unset, so that later optional arguments can still be passed.
+     */
+    static final String UNSET = "-";
+
+    private FactoryArgs() {
+    }
+
+    /**
+     * Returns the optional argument at the given index, which is absent if there are not enough arguments
+     * or if the argument is {@link #UNSET}.
+     */
+    static Optional<String> optionalArg(List<String> args, int index) {
+        return (args.size() > index) ? Optional.of(args.get(index)).filter(arg -> !arg.equals(UNSET)) : Optional.empty();
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.pcf.QueueInquiries;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that finds messages with the same body on a queue, for example duplicate
+ * deliveries after a failover, without consuming any data. Duplicates are reported in groups of message IDs.
+ * <p>
+ * Message bodies are compared by their 64-bit Murmur3 hash. Bytes message bodies are hashed over their raw bytes,
+ * and text message bodies over their characters (as delivered by the JMS client), without encoding them to bytes
+ * first (see {@link BodyHasher}). Other message types are skipped.
+ * <p>
+ * In exact mode, the queue is browsed once, retaining only the hash and a compactly stored message ID per message
+ * (some 30 to 60 bytes per message, see {@link LongHashSet} and {@link MessageIdArena}). In Bloom filter mode,
+ * meant for very deep queues, a first browse only adds the hashes to a Bloom filter (about 10 bits per message),
+ * collecting the hashes that may have been seen before as candidates. A second browse then collects the message IDs
+ * of the candidates only, and confirms the actual duplicates. Messages added to or removed from the queue between
+ * both browses may cause duplicates to be missed.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class FindDuplicates implements JmsContextToJsonObjectFunction {
+
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long MIN_EXPECTED_MESSAGE_COUNT = 1000;
+
+    public enum Mode {
+        EXACT, BLOOM;
+
+        public static Mode parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown mode '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final Mode mode;
+    private final Optional<String> messageSelector;
+    private final int maxReportedGroups;
+    private final long defaultExpectedMessageCount;
+
+    public FindDuplicates(
+            String queueName,
+            Mode mode,
+            Optional<String> messageSelector,
+            int maxReportedGroups,
+            long defaultExpectedMessageCount) {
+        Preconditions.checkArgument(maxReportedGroups >= 0, "Expected a non-negative maximum number of groups");
+        Preconditions.checkArgument(defaultExpectedMessageCount > 0, "Expected a positive expected message count");
+        this.queueName = queueName;
+        this.mode = mode;
+        this.messageSelector = messageSelector;
+        this.maxReportedGroups = maxReportedGroups;
+        this.defaultExpectedMessageCount = defaultExpectedMessageCount;
+    }
+
+    private interface MessageHandler {
+
+        void handle(Message message) throws JMSException;
+    }
+
+    /**
+     * Body hashes with the corresponding message IDs, in browse order.
+     */
+    private static final class HashedMessageIds {
+
+        private long[] hashes = new long[1 << 12];
+        private final MessageIdArena messageIds = new MessageIdArena();
+
+        void add(long hash, String messageId) {
+            int index = messageIds.add(messageId);
+            if (index == hashes.length) {
+                hashes = Arrays.copyOf(hashes, 2 * index);
+            }
+            hashes[index] = hash;
+        }
+
+        int size() {
+            return messageIds.size();
+        }
+
+        long byteCount() {
+            return 8L * size() + messageIds.byteCount();
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        BodyHasher bodyHasher = new BodyHasher();
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("mode", mode.toString().toLowerCase());
+        messageSelector.ifPresent(s -> resultBuilder.add("selector", s));
+
+        Map<Long, List<String>> duplicateGroups = (mode == Mode.EXACT) ?
+                findExactly(jmsContext, bodyHasher, resultBuilder) :
+                findWithBloomFilter(jmsContext, bodyHasher, resultBuilder);
+
+        long duplicateMessageCount = duplicateGroups.values().stream().mapToLong(ids -> ids.size() - 1).sum();
+
+        JsonArrayBuilder groupsBuilder = Json.createArrayBuilder();
+        duplicateGroups.entrySet().stream()
+                .limit(maxReportedGroups)
+                .forEach(group -> groupsBuilder.add(
+                        Json.createObjectBuilder()
+                                .add("bodyHash", String.format("%016x", group.getKey()))
+                                .add("messageIds", Json.createArrayBuilder(group.getValue()))
+                ));
+
+        return resultBuilder
+                .add("messageCount", bodyHasher.messageCount)
+                .add("hashedMessageCount", bodyHasher.hashedMessageCount)
+                .add("duplicateGroupCount", duplicateGroups.size())
+                .add("duplicateMessageCount", duplicateMessageCount)
+                .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .add("duplicateGroups", groupsBuilder)
+                .build();
+    }
+
+    private Map<Long, List<String>> findExactly(
+            JMSContext jmsContext,
+            BodyHasher bodyHasher,
+            JsonObjectBuilder resultBuilder) {
+        HashedMessageIds hashedMessageIds = new HashedMessageIds();
+
+        browse(jmsContext, message -> {
+            if (bodyHasher.computeHash(message)) {
+                hashedMessageIds.add(bodyHasher.hash, message.getJMSMessageID());
+            }
+        });
+
+        int count = hashedMessageIds.size();
+        long[] hashes = hashedMessageIds.hashes;
+        resultBuilder.add("retainedByteCount", hashedMessageIds.byteCount());
+
+        LongHashSet duplicateHashes = new LongHashSet();
+        LongHashSet seenHashes = new LongHashSet(count);
+        for (int i = 0; i < count; i++) {
+            if (!seenHashes.add(hashes[i])) {
+                duplicateHashes.add(hashes[i]);
+            }
+        }
+
+        Map<Long, List<String>> duplicateGroups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (duplicateHashes.contains(hashes[i])) {
+                duplicateGroups.computeIfAbsent(hashes[i], h -> new ArrayList<>())
+                        .add(hashedMessageIds.messageIds.get(i));
+            }
+        }
+        return duplicateGroups;
+    }
+
+    private Map<Long, List<String>> findWithBloomFilter(
+            JMSContext jmsContext,
+            BodyHasher bodyHasher,
+            JsonObjectBuilder resultBuilder) {
+        long expectedMessageCount = Math.max(MIN_EXPECTED_MESSAGE_COUNT, expectedMessageCount(jmsContext));
+        BloomFilter<Long> bloomFilter =
+                BloomFilter.create(Funnels.longFunnel(), expectedMessageCount, BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY);
+        LongHashSet candidateHashes = new LongHashSet();
+
+        // First pass: a hash that does not change the Bloom filter may have been seen before
+        browse(jmsContext, message -> {
+            if (bodyHasher.computeHash(message) && !bloomFilter.put(bodyHasher.hash)) {
+                candidateHashes.add(bodyHasher.hash);
+            }
+        });
+
+        // Second pass: collect the message IDs of the candidates, to confirm the actual duplicates
+        BodyHasher confirmingHasher = new BodyHasher();
+        Map<Long, List<String>> candidateGroups = new LinkedHashMap<>();
+        browse(jmsContext, message -> {
+            if (confirmingHasher.computeHash(message) && candidateHashes.contains(confirmingHasher.hash)) {
+                candidateGroups.computeIfAbsent(confirmingHasher.hash, h -> new ArrayList<>())
+                        .add(message.getJMSMessageID());
+            }
+        });
+        candidateGroups.values().removeIf(ids -> ids.size() < 2);
+
+        resultBuilder
+                .add("expectedMessageCount", expectedMessageCount)
+                .add("candidateHashCount", candidateHashes.size());
+        return candidateGroups;
+    }
+
+    private long expectedMessageCount(JMSContext jmsContext) {
+        try {
+            return QueueInquiries.inquireCurrentDepth(jmsContext, queueName, QueueInquiries.DEFAULT_TIMEOUT);
+        } catch (JMSRuntimeException e) {
+            return defaultExpectedMessageCount;
+        }
+    }
+
+    private void browse(JMSContext jmsContext, MessageHandler messageHandler) {
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            while (messages.hasMoreElements()) {
+                messageHandler.handle(messages.nextElement());
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+}
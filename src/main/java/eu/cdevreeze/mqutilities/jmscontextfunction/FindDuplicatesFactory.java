@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link FindDuplicates} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is the mode ("exact" or "bloom", defaulting
+ * to "exact"), and the optional third argument is the message selector. A "-" leaves the corresponding optional
+ * argument unset.
+ * <p>
+ * The maximum number of reported duplicate groups is taken from config property
+ * "find_duplicates.max_reported_groups" (default 1000). In Bloom filter mode, the Bloom filter is sized for the
+ * current queue depth, or, if that cannot be inquired, for the message count in config property
+ * "find_duplicates.expected_message_count" (default 10000000).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("FindDuplicates")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class FindDuplicatesFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_MAX_REPORTED_GROUPS = 1000;
+    private static final long DEFAULT_EXPECTED_MESSAGE_COUNT = 10_000_000L;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public FindDuplicates apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        FindDuplicates.Mode mode = FactoryArgs.optionalArg(args, 1)
+                .map(FindDuplicates.Mode::parse)
+                .orElse(FindDuplicates.Mode.EXACT);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 2);
+
+        int maxReportedGroups = config.getOptionalValue("find_duplicates.max_reported_groups", Integer.class)
+                .orElse(DEFAULT_MAX_REPORTED_GROUPS);
+        long expectedMessageCount = config.getOptionalValue("find_duplicates.expected_message_count", Long.class)
+                .orElse(DEFAULT_EXPECTED_MESSAGE_COUNT);
+
+        return new FindDuplicates(queueName, mode, messageSelector, maxReportedGroups, expectedMessageCount);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpoint;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpointPools;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that returns the number of messages on a queue that exists on each of
+ * a group of queue managers (see {@link eu.cdevreeze.mqutilities.connection.MultiQueueManagerConnectionFactories}),
+ * without consuming any data. The message counts per queue manager are determined in parallel, each with
+ * a pooled {@link JMSContext} of that queue manager (see {@link QueueManagerEndpointPools}), like {@link GetMessageCount}
+ * does, and summed. The connections to the queue managers are thereby reused across calls.
+ * <p>
+ * The {@link JMSContext} passed to this function is not used. Failures are reported per queue manager, instead of
+ * failing the whole function, and the queue managers that failed do not contribute to the total.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class GetClusterMessageCount implements JmsContextToJsonObjectFunction {
+
+    private final QueueManagerEndpointPools endpointPools;
+    private final ImmutableList<QueueManagerEndpoint> endpoints;
+    private final GetMessageCount getMessageCount;
+
+    public GetClusterMessageCount(QueueManagerEndpointPools endpointPools, GetMessageCount getMessageCount) {
+        Preconditions.checkArgument(!endpointPools.endpoints().isEmpty(), "Expected at least one queue manager endpoint");
+        this.endpointPools = endpointPools;
+        this.endpoints = endpointPools.endpoints();
+        this.getMessageCount = getMessageCount;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        List<JsonObject> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(endpoints.size());
+        try {
+            List<Future<JsonObject>> futures = new ArrayList<>();
+            for (QueueManagerEndpoint endpoint : endpoints) {
+                futures.add(executor.submit(() -> getMessageCount(endpoint)));
+            }
+            for (Future<JsonObject> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long totalMessageCount = 0;
+        int failedCount = 0;
+        JsonArrayBuilder queueManagersBuilder = Json.createArrayBuilder();
+        for (JsonObject result : results) {
+            if (result.getString("status").equals("ok")) {
+                totalMessageCount += Long.parseLong(result.getString("messageCount"));
+            } else {
+                failedCount += 1;
+            }
+            queueManagersBuilder.add(result);
+        }
+
+        return Json.createObjectBuilder()
+                .add("messageCount", totalMessageCount)
+                .add("queueManagerCount", endpoints.size())
+                .add("failedQueueManagerCount", failedCount)
+                .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .add("queueManagers", queueManagersBuilder)
+                .build();
+    }
+
+    private JsonObject getMessageCount(QueueManagerEndpoint endpoint) {
+        long start = System.nanoTime();
+        try {
+            return Json.createObjectBuilder(endpointPools.pool(endpoint).apply(getMessageCount))
+                    .add("queueManager", endpoint.queueManagerName())
+                    .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                    .add("status", "ok")
+                    .build();
+        } catch (JMSRuntimeException e) {
+            return Json.createObjectBuilder()
+                    .add("queueManager", endpoint.queueManagerName())
+                    .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                    .add("status", "error")
+                    .add("error", String.valueOf(e.getMessage()))
+                    .build();
+        }
+    }
+}
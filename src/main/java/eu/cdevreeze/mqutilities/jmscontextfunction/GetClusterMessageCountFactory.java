@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpointPools;
+import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
+import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link GetClusterMessageCount} objects. The queue manager endpoints are those of connection type
+ * "MULTI_QUEUE_MANAGER".
+ * <p>
+ * The arguments are the same as for {@link GetMessageCountFactory}.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("GetClusterMessageCount")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class GetClusterMessageCountFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    @Inject
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    private QueueManagerEndpointPools endpointPools;
+
+    @Override
+    public GetClusterMessageCount apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        GetMessageCount.Method method = FactoryArgs.optionalArg(args, 1)
+                .map(GetMessageCount.Method::parse)
+                .orElse(GetMessageCount.Method.AUTO);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 2);
+        Optional<PayloadFilter> payloadFilter = FactoryArgs.optionalArg(args, 3).map(PayloadFilter::parse);
+        return new GetClusterMessageCount(
+                endpointPools,
+                new GetMessageCount(queueName, method, messageSelector, payloadFilter)
+        );
+    }
+}
@@ -16,43 +16,141 @@
 
 package eu.cdevreeze.mqutilities.jmscontextfunction;
 
+import com.google.common.base.Preconditions;
 import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.pcf.QueueInquiries;
 import jakarta.jms.*;
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Enumeration;
-import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 /**
  * {@link JmsContextToJsonObjectFunction} that returns the number of messages on the given queue, without
  * consuming any data.
  * <p>
+ * By default, the current queue depth is asked from the queue manager (see {@link QueueInquiries}), which
+ * takes constant time and memory. If that fails, for example because the JMS provider cannot answer
+ * such inquiries, the messages on the queue are counted by browsing them, without retaining them.
+ * The result reports which method has been used.
+ * <p>
+ * Optionally, only the messages matching a JMS message selector (evaluated by the queue manager) and/or a
+ * {@link PayloadFilter} (evaluated on the client, against text payloads) are counted. That requires browsing,
+ * so in that case the default method is browsing, and inquiring the queue depth is not allowed.
+ * <p>
  * Instances are created by a dedicated factory object, and not by CDI injection.
  *
  * @author Chris de Vreeze
  */
 public class GetMessageCount implements JmsContextToJsonObjectFunction {
 
+    public enum Method {
+        AUTO, INQUIRE, BROWSE;
+
+        public static Method parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown method '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
     private final String queueName;
+    private final Method method;
+    private final Optional<String> messageSelector;
+    private final Optional<PayloadFilter> payloadFilter;
 
-    public GetMessageCount(String queueName) {
+    public GetMessageCount(
+            String queueName,
+            Method method,
+            Optional<String> messageSelector,
+            Optional<PayloadFilter> payloadFilter) {
+        boolean filtered = messageSelector.isPresent() || payloadFilter.isPresent();
+        Preconditions.checkArgument(
+                !filtered || method != Method.INQUIRE,
+                "Counting messages matching a selector or filter requires browsing"
+        );
         this.queueName = queueName;
+        this.method = (filtered && method == Method.AUTO) ? Method.BROWSE : method;
+        this.messageSelector = messageSelector;
+        this.payloadFilter = payloadFilter;
+    }
+
+    public GetMessageCount(String queueName, Method method) {
+        this(queueName, method, Optional.empty(), Optional.empty());
+    }
+
+    public GetMessageCount(String queueName) {
+        this(queueName, Method.AUTO);
     }
 
     @Override
     public JsonObject apply(JMSContext jmsContext) {
-        try (QueueBrowser queueBrowser = jmsContext.createBrowser(jmsContext.createQueue(queueName))) {
-            @SuppressWarnings("unchecked")
-            List<Message> messages = Collections.list((Enumeration<Message>) queueBrowser.getEnumeration());
-            return Json.createObjectBuilder(
-                    Map.of(
-                            "queue", queueName,
-                            "messageCount", String.valueOf(messages.size())
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder().add("queue", queueName);
+        messageSelector.ifPresent(selector -> resultBuilder.add("selector", selector));
+        payloadFilter.ifPresent(filter -> resultBuilder.add("filter", filter.toString()));
+
+        switch (method) {
+            case INQUIRE -> {
+                int depth = QueueInquiries.inquireCurrentDepth(jmsContext, queueName, QueueInquiries.DEFAULT_TIMEOUT);
+                resultBuilder.add("messageCount", String.valueOf(depth)).add("method", "inquire");
+            }
+            case BROWSE -> resultBuilder
+                    .add(
+                            "messageCount",
+                            String.valueOf(countByBrowsing(jmsContext, queueName, messageSelector, payloadFilter))
                     )
-            ).build();
+                    .add("method", "browse");
+            case AUTO -> {
+                try {
+                    int depth = QueueInquiries.inquireCurrentDepth(jmsContext, queueName, QueueInquiries.DEFAULT_TIMEOUT);
+                    resultBuilder.add("messageCount", String.valueOf(depth)).add("method", "inquire");
+                } catch (JMSRuntimeException e) {
+                    resultBuilder
+                            .add("messageCount", String.valueOf(countByBrowsing(jmsContext, queueName)))
+                            .add("method", "browse")
+                            .add("inquiryError", String.valueOf(e.getMessage()));
+                }
+            }
+        }
+        return resultBuilder.build();
+    }
+
+    /**
+     * Counts the messages on the given queue by browsing them, without retaining them.
+     */
+    static long countByBrowsing(JMSContext jmsContext, String queueName) {
+        return countByBrowsing(jmsContext, queueName, Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * Counts the messages on the given queue matching the optional selector and payload filter by browsing them,
+     * without retaining them. If there is a payload filter, only text messages can match.
+     */
+    static long countByBrowsing(
+            JMSContext jmsContext,
+            String queueName,
+            Optional<String> messageSelector,
+            Optional<PayloadFilter> payloadFilter) {
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            Enumeration<?> messages = queueBrowser.getEnumeration();
+            long count = 0;
+            while (messages.hasMoreElements()) {
+                Object message = messages.nextElement();
+                if (payloadFilter.isEmpty() ||
+                        (message instanceof TextMessage textMessage && payloadFilter.get().test(textMessage.getText()))) {
+                    count += 1;
+                }
+            }
+            return count;
         } catch (JMSException e) {
             throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
         }
@@ -24,9 +24,15 @@ import jakarta.inject.Named;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Factory of {@link GetMessageCount} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is the method used to determine
+ * the message count ("auto", "inquire" or "browse", defaulting to "auto"). The optional third argument is a JMS
+ * message selector, and the optional fourth argument is a {@link PayloadFilter} ("kind:expression"). A "-" leaves
+ * the corresponding optional argument unset.
  *
  * @author Chris de Vreeze
  */
@@ -39,6 +45,11 @@ public class GetMessageCountFactory implements JmsContextToJsonObjectFunctionFac
     public GetMessageCount apply(List<String> args) {
         Objects.checkIndex(0, args.size());
         String queueName = Objects.requireNonNull(args.get(0));
-        return new GetMessageCount(queueName);
+        GetMessageCount.Method method = FactoryArgs.optionalArg(args, 1)
+                .map(GetMessageCount.Method::parse)
+                .orElse(GetMessageCount.Method.AUTO);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 2);
+        Optional<PayloadFilter> payloadFilter = FactoryArgs.optionalArg(args, 3).map(PayloadFilter::parse);
+        return new GetMessageCount(queueName, method, messageSelector, payloadFilter);
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.pcf.QueueInquiries;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that returns the number of messages on each of the given queues,
+ * without consuming any data. The queue names may also be generic names ending with an asterisk (e.g. "DEV.*"),
+ * which are expanded to all matching local queues.
+ * <p>
+ * The message counts are determined concurrently, by a bounded number of worker threads. Each worker
+ * uses its own {@link JMSContext}, created from the {@link JMSContext} passed to this function, so all
+ * workers share the same connection. Per queue, the message count is determined like {@link GetMessageCount}
+ * does, except for generic names, which always require a queue depth inquiry. Failures are reported per
+ * queue (or generic name), instead of failing the whole function.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class GetMessageCounts implements JmsContextToJsonObjectFunction {
+
+    private final ImmutableList<String> queueNames;
+    private final int parallelism;
+
+    public GetMessageCounts(ImmutableList<String> queueNames, int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "Expected a positive parallelism");
+        this.queueNames = queueNames;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+        int workerCount = Math.max(1, Math.min(parallelism, queueNames.size()));
+
+        BlockingQueue<Integer> pendingTasks = new LinkedBlockingQueue<>();
+        for (int i = 0; i < queueNames.size(); i++) {
+            pendingTasks.add(i);
+        }
+        Map<Integer, List<JsonObject>> results = new ConcurrentHashMap<>();
+
+        // JMSContext objects are not thread-safe, so create the child contexts in this thread
+        List<JMSContext> childContexts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                childContexts.add(jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE));
+            }
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (JMSContext childContext : childContexts) {
+                futures.add(executor.submit(() -> {
+                    Integer taskIndex;
+                    while ((taskIndex = pendingTasks.poll()) != null) {
+                        results.put(taskIndex, getMessageCounts(childContext, queueNames.get(taskIndex)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+
+        JsonArrayBuilder queuesBuilder = Json.createArrayBuilder();
+        for (int i = 0; i < queueNames.size(); i++) {
+            results.getOrDefault(i, List.of()).forEach(queuesBuilder::add);
+        }
+
+        return Json.createObjectBuilder()
+                .add("queues", queuesBuilder)
+                .add("parallelism", workerCount)
+                .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .build();
+    }
+
+    private List<JsonObject> getMessageCounts(JMSContext jmsContext, String queueName) {
+        long start = System.nanoTime();
+        try {
+            if (QueueInquiries.isGenericName(queueName)) {
+                Map<String, Integer> depths =
+                        QueueInquiries.inquireCurrentDepths(jmsContext, queueName, QueueInquiries.DEFAULT_TIMEOUT);
+                long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+                return depths.entrySet().stream()
+                        .map(kv -> Json.createObjectBuilder()
+                                .add("queue", kv.getKey())
+                                .add("messageCount", String.valueOf(kv.getValue()))
+                                .add("method", "inquire")
+                                .add("elapsedMillis", elapsedMillis)
+                                .add("status", "ok")
+                                .build())
+                        .toList();
+            } else {
+                JsonObject messageCount = new GetMessageCount(queueName).apply(jmsContext);
+                JsonObjectBuilder resultBuilder = Json.createObjectBuilder(messageCount)
+                        .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                        .add("status", "ok");
+                return List.of(resultBuilder.build());
+            }
+        } catch (JMSRuntimeException e) {
+            return List.of(
+                    Json.createObjectBuilder()
+                            .add("queue", queueName)
+                            .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                            .add("status", "error")
+                            .add("error", String.valueOf(e.getMessage()))
+                            .build()
+            );
+        }
+    }
+}
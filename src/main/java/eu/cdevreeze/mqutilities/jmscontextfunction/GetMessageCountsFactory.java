@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link GetMessageCounts} objects.
+ * <p>
+ * The arguments are the queue names, which may be generic names ending with an asterisk. The maximum number
+ * of worker threads is taken from config property "get_message_counts.parallelism", defaulting to 8.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("GetMessageCounts")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class GetMessageCountsFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_PARALLELISM = 8;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public GetMessageCounts apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        ImmutableList<String> queueNames = args.stream().map(Objects::requireNonNull).collect(ImmutableList.toImmutableList());
+        int parallelism =
+                config.getOptionalValue("get_message_counts.parallelism", Integer.class).orElse(DEFAULT_PARALLELISM);
+        return new GetMessageCounts(queueNames, parallelism);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash-partitioned collection of (key, message ID) records, which spills its partitions to disk when the records
+ * buffered in memory exceed a memory budget. Records with the same key always end up in the same partition, so two
+ * such collections with the same partition count can be compared partition by partition, holding only one partition
+ * in memory at a time.
+ * <p>
+ * Each partition has a spill file in the given directory, created on the first spill. The partitions are read
+ * back in insertion order, spilled records first. Closing the collection deletes its spill files.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class KeyedRecordPartitions implements Closeable {
+
+    private static final HashFunction PARTITION_HASH_FUNCTION = Hashing.murmur3_32_fixed();
+    private static final int INITIAL_BUFFER_SIZE = 1 << 13;
+
+    private final Path spillDirectory;
+    private final String spillFilePrefix;
+    private final long memoryBudgetBytes;
+
+    private final ByteArrayOutputStream[] buffers;
+    private final DataOutputStream[] outputs;
+    private final boolean[] spilled;
+    private long bufferedByteCount;
+    private long spilledByteCount;
+    private long recordCount;
+
+    KeyedRecordPartitions(Path spillDirectory, String spillFilePrefix, int partitionCount, long memoryBudgetBytes) {
+        Preconditions.checkArgument(partitionCount > 0, "Expected a positive partition count");
+        Preconditions.checkArgument(memoryBudgetBytes > 0, "Expected a positive memory budget");
+        this.spillDirectory = spillDirectory;
+        this.spillFilePrefix = spillFilePrefix;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.buffers = new ByteArrayOutputStream[partitionCount];
+        this.outputs = new DataOutputStream[partitionCount];
+        this.spilled = new boolean[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            resetBuffer(i);
+        }
+    }
+
+    int partitionCount() {
+        return buffers.length;
+    }
+
+    long recordCount() {
+        return recordCount;
+    }
+
+    long spilledByteCount() {
+        return spilledByteCount;
+    }
+
+    void add(String key, String messageId) {
+        int partition = partition(key);
+        DataOutputStream output = outputs[partition];
+        int sizeBefore = output.size();
+        try {
+            writeString(key, output);
+            writeString(messageId, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bufferedByteCount += output.size() - sizeBefore;
+        recordCount += 1;
+
+        if (bufferedByteCount > memoryBudgetBytes) {
+            spill();
+        }
+    }
+
+    /**
+     * Passes all records of the given partition, as key and message ID, to the given consumer.
+     */
+    void forEachInPartition(int partition, BiConsumer<String, String> consumer) {
+        Preconditions.checkElementIndex(partition, buffers.length);
+        try (DataInputStream input = new DataInputStream(openPartition(partition))) {
+            while (true) {
+                int keyLength = input.read();
+                if (keyLength < 0) {
+                    break;
+                }
+                String key = readString(keyLength, input);
+                String messageId = readString(input.readUnsignedByte(), input);
+                consumer.accept(key, messageId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            for (int i = 0; i < buffers.length; i++) {
+                Files.deleteIfExists(spillFile(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int partition(String key) {
+        return Math.floorMod(PARTITION_HASH_FUNCTION.hashUnencodedChars(key).asInt(), buffers.length);
+    }
+
+    private void spill() {
+        try {
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i].size() > 0) {
+                    Files.write(spillFile(i), buffers[i].toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    spilled[i] = true;
+                    spilledByteCount += buffers[i].size();
+                    // Replacing the buffer rather than resetting it releases its memory
+                    resetBuffer(i);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bufferedByteCount = 0;
+    }
+
+    private InputStream openPartition(int partition) throws IOException {
+        InputStream buffered = new ByteArrayInputStream(buffers[partition].toByteArray());
+        if (!spilled[partition]) {
+            return buffered;
+        }
+        InputStream spilledRecords = new BufferedInputStream(Files.newInputStream(spillFile(partition)), 1 << 16);
+        return new SequenceInputStream(spilledRecords, buffered);
+    }
+
+    private void resetBuffer(int partition) {
+        buffers[partition] = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        outputs[partition] = new DataOutputStream(buffers[partition]);
+    }
+
+    private Path spillFile(int partition) {
+        return spillDirectory.resolve(spillFilePrefix + "-" + partition + ".bin");
+    }
+
+    /**
+     * Writes the given string as UTF-8, prefixed by its length as a variable-length integer (7 bits per byte).
+     */
+    private static void writeString(String s, DataOutputStream output) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while (length >= 0x80) {
+            output.write((length & 0x7f) | 0x80);
+            length >>>= 7;
+        }
+        output.write(length);
+        output.write(bytes);
+    }
+
+    private static String readString(int firstLengthByte, DataInputStream input) throws IOException {
+        int length = firstLengthByte & 0x7f;
+        int shift = 7;
+        int lengthByte = firstLengthByte;
+        while ((lengthByte & 0x80) != 0) {
+            lengthByte = input.readUnsignedByte();
+            length |= (lengthByte & 0x7f) << shift;
+            shift += 7;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.util.Arrays;
+
+/**
+ * Recorder of latencies (in nanoseconds), offering summary statistics in milliseconds.
+ * All recorded values are retained, in a growable primitive array, so this class is meant for a modest
+ * number of values, such as one per transaction commit.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class LatencyStatistics {
+
+    private long[] values = new long[64];
+    private int count = 0;
+
+    void record(long latencyNanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[count++] = latencyNanos;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns count, min, mean, p50, p99 and max (in milliseconds) as JSON object.
+     */
+    JsonObject toJsonObject() {
+        if (count == 0) {
+            return Json.createObjectBuilder().add("count", 0).build();
+        }
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+
+        return Json.createObjectBuilder()
+                .add("count", count)
+                .add("min", toMillis(sorted[0]))
+                .add("mean", toMillis(mean))
+                .add("p50", toMillis(percentile(sorted, 50.0)))
+                .add("p99", toMillis(percentile(sorted, 99.0)))
+                .add("max", toMillis(sorted[count - 1]))
+                .build();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that generates load on a queue, sending text messages at a target rate
+ * during a given time, while consuming them again, and reporting latency percentiles and achieved throughput.
+ * <p>
+ * The producers use open-loop scheduling: each message has an intended send time, derived from the target rate,
+ * regardless of how long previous sends took. Latencies are measured from the intended send time, so a stalled
+ * send also counts against the messages that should have been sent in the meantime (correcting for
+ * "coordinated omission"). The pure service time of each send is reported separately.
+ * <p>
+ * The intended send time is embedded in a message property, so the consumers can compute end-to-end latencies.
+ * The consumers only receive messages of this run, using a message selector on a run ID property. After the
+ * producers finish, the consumers keep receiving until all messages have arrived, or the drain timeout expires.
+ * <p>
+ * Each producer and consumer runs in its own thread, with its own {@link JMSContext} created from the
+ * {@link JMSContext} passed to this function. Latencies are recorded in HDR-style histograms.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class LoadTest implements JmsContextToJsonObjectFunction {
+
+    static final String RUN_ID_PROPERTY = "mqutilities_load_test_run";
+    static final String INTENDED_SEND_NANOS_PROPERTY = "mqutilities_intended_send_nanos";
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long RECEIVE_TIMEOUT_MILLIS = 100;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String queueName;
+    private final double targetMessagesPerSecond;
+    private final Duration duration;
+    private final int producerCount;
+    private final int consumerCount;
+    private final int payloadSize;
+
+    public LoadTest(
+            String queueName,
+            double targetMessagesPerSecond,
+            Duration duration,
+            int producerCount,
+            int consumerCount,
+            int payloadSize) {
+        Preconditions.checkArgument(targetMessagesPerSecond > 0, "Expected a positive target rate");
+        Preconditions.checkArgument(producerCount > 0, "Expected a positive producer count");
+        Preconditions.checkArgument(consumerCount >= 0, "Expected a non-negative consumer count");
+        Preconditions.checkArgument(payloadSize >= 0, "Expected a non-negative payload size");
+        this.queueName = queueName;
+        this.targetMessagesPerSecond = targetMessagesPerSecond;
+        this.duration = duration;
+        this.producerCount = producerCount;
+        this.consumerCount = consumerCount;
+        this.payloadSize = payloadSize;
+    }
+
+    private record ProducerResult(
+            long sentCount,
+            long errorCount,
+            LogLinearHistogram sendLatencies,
+            LogLinearHistogram serviceTimes) {
+    }
+
+    private record ConsumerResult(long receivedCount, LogLinearHistogram endToEndLatencies) {
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        String runId = UUID.randomUUID().toString();
+        String payload = "x".repeat(payloadSize);
+
+        AtomicLong sentCount = new AtomicLong();
+        AtomicLong receivedCount = new AtomicLong();
+        AtomicBoolean producersDone = new AtomicBoolean(false);
+
+        List<JMSContext> childContexts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(producerCount + consumerCount);
+        List<ProducerResult> producerResults = new ArrayList<>();
+        List<ConsumerResult> consumerResults = new ArrayList<>();
+        long startNanos;
+        long producersEndNanos;
+        long consumersEndNanos;
+        try {
+            // JMSContext objects are not thread-safe, so create the child contexts and consumers in this thread
+            List<Future<ConsumerResult>> consumerFutures = new ArrayList<>();
+            for (int i = 0; i < consumerCount; i++) {
+                JMSContext childContext = jmsContext.createContext(JMSContext.DUPS_OK_ACKNOWLEDGE);
+                childContexts.add(childContext);
+                JMSConsumer jmsConsumer = childContext.createConsumer(
+                        childContext.createQueue(queueName),
+                        String.format("%s = '%s'", RUN_ID_PROPERTY, runId)
+                );
+                consumerFutures.add(executor.submit(() ->
+                        consume(jmsConsumer, sentCount, receivedCount, producersDone)));
+            }
+
+            List<JMSContext> producerContexts = new ArrayList<>();
+            for (int i = 0; i < producerCount; i++) {
+                JMSContext childContext = jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE);
+                childContexts.add(childContext);
+                producerContexts.add(childContext);
+            }
+
+            startNanos = System.nanoTime();
+            List<Future<ProducerResult>> producerFutures = new ArrayList<>();
+            for (int i = 0; i < producerCount; i++) {
+                JMSContext childContext = producerContexts.get(i);
+                int producerIndex = i;
+                producerFutures.add(executor.submit(() ->
+                        produce(childContext, producerIndex, startNanos, runId, payload, sentCount)));
+            }
+
+            for (Future<ProducerResult> future : producerFutures) {
+                producerResults.add(future.get());
+            }
+            producersEndNanos = System.nanoTime();
+            producersDone.set(true);
+
+            for (Future<ConsumerResult> future : consumerFutures) {
+                consumerResults.add(future.get());
+            }
+            consumersEndNanos = System.nanoTime();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+
+        LogLinearHistogram sendLatencies = new LogLinearHistogram();
+        LogLinearHistogram serviceTimes = new LogLinearHistogram();
+        long errorCount = 0;
+        for (ProducerResult producerResult : producerResults) {
+            sendLatencies.add(producerResult.sendLatencies());
+            serviceTimes.add(producerResult.serviceTimes());
+            errorCount += producerResult.errorCount();
+        }
+        LogLinearHistogram endToEndLatencies = new LogLinearHistogram();
+        consumerResults.forEach(r -> endToEndLatencies.add(r.endToEndLatencies()));
+
+        double producerSeconds = Math.max(producersEndNanos - startNanos, 1L) / 1_000_000_000.0;
+        double consumerSeconds = Math.max(consumersEndNanos - startNanos, 1L) / 1_000_000_000.0;
+
+        return Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("runId", runId)
+                .add("targetMessagesPerSecond", targetMessagesPerSecond)
+                .add("durationMillis", duration.toMillis())
+                .add("producerCount", producerCount)
+                .add("consumerCount", consumerCount)
+                .add("payloadSize", payloadSize)
+                .add("sentCount", sentCount.get())
+                .add("sendErrorCount", errorCount)
+                .add("receivedCount", receivedCount.get())
+                .add("achievedSendRate", sentCount.get() / producerSeconds)
+                .add("achievedReceiveRate", receivedCount.get() / consumerSeconds)
+                .add("sendLatencyMillis", sendLatencies.toJsonObject(NANOS_PER_MILLI))
+                .add("sendServiceTimeMillis", serviceTimes.toJsonObject(NANOS_PER_MILLI))
+                .add("endToEndLatencyMillis", endToEndLatencies.toJsonObject(NANOS_PER_MILLI))
+                .build();
+    }
+
+    private ProducerResult produce(
+            JMSContext producerContext,
+            int producerIndex,
+            long startNanos,
+            String runId,
+            String payload,
+            AtomicLong sentCount) {
+        Queue queue = producerContext.createQueue(queueName);
+        JMSProducer jmsProducer = producerContext.createProducer();
+        LogLinearHistogram sendLatencies = new LogLinearHistogram();
+        LogLinearHistogram serviceTimes = new LogLinearHistogram();
+        long errorCount = 0;
+
+        // Each producer sends at its share of the target rate, with the producers' schedules interleaved
+        double intervalNanos = 1_000_000_000.0 * producerCount / targetMessagesPerSecond;
+        double firstOffsetNanos = intervalNanos * producerIndex / producerCount;
+        long endNanos = startNanos + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + (long) (firstOffsetNanos + i * intervalNanos);
+            if (intendedNanos >= endNanos || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            long waitNanos = intendedNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+
+            long sendStartNanos = System.nanoTime();
+            try {
+                TextMessage message = producerContext.createTextMessage(payload);
+                message.setStringProperty(RUN_ID_PROPERTY, runId);
+                message.setLongProperty(INTENDED_SEND_NANOS_PROPERTY, intendedNanos);
+                jmsProducer.send(queue, message);
+                sentCount.incrementAndGet();
+            } catch (JMSException | JMSRuntimeException e) {
+                errorCount += 1;
+            }
+            long sendEndNanos = System.nanoTime();
+
+            sendLatencies.record(sendEndNanos - intendedNanos);
+            serviceTimes.record(sendEndNanos - sendStartNanos);
+        }
+        return new ProducerResult(sendLatencies.count() - errorCount, errorCount, sendLatencies, serviceTimes);
+    }
+
+    private ConsumerResult consume(
+            JMSConsumer jmsConsumer,
+            AtomicLong sentCount,
+            AtomicLong receivedCount,
+            AtomicBoolean producersDone) {
+        LogLinearHistogram endToEndLatencies = new LogLinearHistogram();
+        long count = 0;
+        long drainDeadlineNanos = Long.MAX_VALUE;
+
+        try (jmsConsumer) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Message message = jmsConsumer.receive(RECEIVE_TIMEOUT_MILLIS);
+
+                if (message != null) {
+                    long receivedNanos = System.nanoTime();
+                    long intendedNanos = message.getLongProperty(INTENDED_SEND_NANOS_PROPERTY);
+                    endToEndLatencies.record(Math.max(0, receivedNanos - intendedNanos));
+                    count += 1;
+                    receivedCount.incrementAndGet();
+                } else if (producersDone.get()) {
+                    if (drainDeadlineNanos == Long.MAX_VALUE) {
+                        drainDeadlineNanos = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+                    }
+                    if (receivedCount.get() >= sentCount.get() || System.nanoTime() > drainDeadlineNanos) {
+                        break;
+                    }
+                }
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+        return new ConsumerResult(count, endToEndLatencies);
+    }
+}
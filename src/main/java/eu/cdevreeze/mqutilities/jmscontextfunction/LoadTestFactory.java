@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link LoadTest} objects.
+ * <p>
+ * The first argument is the queue name, the second one the target number of messages per second, and the third
+ * one the duration in seconds. The optional further arguments are the number of producers (default 1), the number
+ * of consumers (default 1, where 0 means send-only) and the payload size in characters (default 1024). A "-" leaves
+ * the corresponding optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("LoadTest")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class LoadTestFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_PRODUCER_COUNT = 1;
+    private static final int DEFAULT_CONSUMER_COUNT = 1;
+    private static final int DEFAULT_PAYLOAD_SIZE = 1024;
+
+    @Override
+    public LoadTest apply(List<String> args) {
+        Objects.checkIndex(2, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        double targetMessagesPerSecond = Double.parseDouble(args.get(1));
+        Duration duration = Duration.ofSeconds(Long.parseLong(args.get(2)));
+        int producerCount = FactoryArgs.optionalArg(args, 3).map(Integer::parseInt).orElse(DEFAULT_PRODUCER_COUNT);
+        int consumerCount = FactoryArgs.optionalArg(args, 4).map(Integer::parseInt).orElse(DEFAULT_CONSUMER_COUNT);
+        int payloadSize = FactoryArgs.optionalArg(args, 5).map(Integer::parseInt).orElse(DEFAULT_PAYLOAD_SIZE);
+        return new LoadTest(queueName, targetMessagesPerSecond, duration, producerCount, consumerCount, payloadSize);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+
+/**
+ * Histogram of non-negative long values in constant memory, with HDR-style buckets: each power-of-2 range
+ * is split into 16 linear sub-buckets, so values are recorded with a relative error below 1/16, whatever
+ * their magnitude. Values below 16 are recorded exactly.
+ * <p>
+ * Instances are not thread-safe, but can be merged.
+ *
+ * @author Chris de Vreeze
+ */
+final class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    void record(long value) {
+        Preconditions.checkArgument(value >= 0, "Expected a non-negative value");
+        counts[bucketIndex(value)] += 1;
+        count += 1;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the recorded values of the other histogram to this one.
+     */
+    void add(LogLinearHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Returns the value at the given percentile, which is the upper bound of the bucket containing it,
+     * but never more than the maximum recorded value.
+     */
+    long percentile(double percentile) {
+        Preconditions.checkState(count > 0, "Empty histogram");
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns count, min, mean, percentiles, max and the non-empty buckets as JSON object.
+     * Values are divided by the given divisor, e.g. to convert nanoseconds to milliseconds.
+     */
+    JsonObject toJsonObject(double divisor) {
+        if (count == 0) {
+            return Json.createObjectBuilder().add("count", 0).build();
+        }
+        JsonArrayBuilder bucketsBuilder = Json.createArrayBuilder();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] > 0) {
+                bucketsBuilder.add(
+                        Json.createObjectBuilder()
+                                .add("from", bucketLowerBound(i) / divisor)
+                                .add("to", bucketUpperBound(i) / divisor)
+                                .add("count", counts[i])
+                );
+            }
+        }
+        return Json.createObjectBuilder()
+                .add("count", count)
+                .add("min", min / divisor)
+                .add("mean", (double) sum / count / divisor)
+                .add("p50", percentile(50.0) / divisor)
+                .add("p90", percentile(90.0) / divisor)
+                .add("p99", percentile(99.0) / divisor)
+                .add("p999", percentile(99.9) / divisor)
+                .add("max", max / divisor)
+                .add("buckets", bucketsBuilder)
+                .build();
+    }
+
+    JsonObject toJsonObject() {
+        return toJsonObject(1.0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return bucketLowerBound(index) + (1L << shift) - 1;
+    }
+}
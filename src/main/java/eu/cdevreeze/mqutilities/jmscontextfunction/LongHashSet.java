@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Set of primitive long values, using open addressing with linear probing in a single long array. Compared to
+ * a {@code HashSet<Long>}, this saves the boxing and the hash table entries, so each element takes about 8 to 16
+ * bytes, depending on the load of the table. The table doubles when it is more than half full.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    // The empty-slot marker 0 cannot be stored in the table, so its membership is kept separately
+    private boolean containsZero;
+
+    LongHashSet(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "Expected a non-negative expected size");
+        this.table = new long[tableSizeFor(expectedSize)];
+    }
+
+    LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Adds the given value, returning true if it was not yet in the set.
+     */
+    boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsZero;
+            containsZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        if (2 * (size + 1) > table.length) {
+            resize(2 * table.length);
+        }
+        boolean added = insert(table, value);
+        size += added ? 1 : 0;
+        return added;
+    }
+
+    boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) {
+                return true;
+            } else if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int newLength) {
+        Preconditions.checkState(newLength > 0, "Set too large");
+        long[] newTable = new long[newLength];
+        for (long value : table) {
+            if (value != EMPTY) {
+                insert(newTable, value);
+            }
+        }
+        table = newTable;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) {
+                return false;
+            } else if (current == EMPTY) {
+                table[i] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int slot(long value, int mask) {
+        // Fibonacci hashing, spreading the high bits over the slot index
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int minLength = Math.max(16, 2 * expectedSize);
+        return (minLength > (1 << 30)) ? (1 << 30) : Integer.highestOneBit(minLength - 1) << 1;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import jakarta.jms.*;
+
+/**
+ * The body type of a JMS message, as reported by the functions that browse message metadata. A plain
+ * {@link Message}, which has no body, has body type {@link #NONE}.
+ *
+ * @author Chris de Vreeze
+ */
+enum MessageBodyType {
+    TEXT, BYTES, MAP, STREAM, OBJECT, NONE;
+
+    /**
+     * Returns the label of this body type in function results, such as "text" or "none".
+     */
+    String label() {
+        return toString().toLowerCase();
+    }
+
+    static MessageBodyType of(Message message) {
+        if (message instanceof TextMessage) {
+            return TEXT;
+        } else if (message instanceof BytesMessage) {
+            return BYTES;
+        } else if (message instanceof MapMessage) {
+            return MAP;
+        } else if (message instanceof StreamMessage) {
+            return STREAM;
+        } else if (message instanceof ObjectMessage) {
+            return OBJECT;
+        } else {
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Utf8;
+import jakarta.jms.*;
+
+/**
+ * Support for forwarding received or browsed messages to another queue, as done by {@link MoveMessages}
+ * and {@link CopyMessages}.
+ * <p>
+ * The message itself is sent again, so its body, properties, correlation ID, JMS type and reply-to destination
+ * are preserved. The priority and delivery mode are copied, and the expiration is kept by sending with the
+ * remaining time to live. Message IDs and timestamps are assigned anew by the queue manager.
+ *
+ * @author Chris de Vreeze
+ */
+final class MessageForwarding {
+
+    private MessageForwarding() {
+    }
+
+    /**
+     * Sends the given message to the given queue, returning false if it was skipped because it has expired.
+     */
+    static boolean forward(Message message, JMSProducer jmsProducer, Queue targetQueue) {
+        try {
+            long timeToLive = 0;
+            if (message.getJMSExpiration() > 0) {
+                timeToLive = message.getJMSExpiration() - System.currentTimeMillis();
+                if (timeToLive <= 0) {
+                    return false;
+                }
+            }
+
+            jmsProducer
+                    .setPriority(message.getJMSPriority())
+                    .setDeliveryMode(message.getJMSDeliveryMode())
+                    .setTimeToLive(timeToLive)
+                    .send(targetQueue, message);
+            return true;
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Returns the payload size in bytes of text and bytes messages, and 0 for other message types.
+     */
+    static long payloadSize(Message message) {
+        try {
+            if (message instanceof TextMessage textMessage) {
+                String text = textMessage.getText();
+                return (text == null) ? 0 : Utf8.encodedLength(text);
+            } else if (message instanceof BytesMessage bytesMessage) {
+                return bytesMessage.getBodyLength();
+            } else {
+                return 0;
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+}
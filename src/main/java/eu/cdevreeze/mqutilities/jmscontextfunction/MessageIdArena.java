@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Compact append-only store of JMS message IDs, packed into one growable byte array, so that millions of
+ * message IDs can be retained without millions of String objects. IBM MQ message IDs ("ID:" followed by 48 lowercase
+ * hex digits) are stored as their 24 raw bytes; other message IDs are stored as UTF-8.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class MessageIdArena {
+
+    private static final String ID_PREFIX = "ID:";
+    private static final byte HEX_TAG = 1;
+    private static final byte UTF8_TAG = 2;
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    private byte[] data = new byte[1 << 16];
+    private int dataLength;
+    private int[] offsets = new int[1 << 12];
+    private int size;
+
+    /**
+     * Adds the given message ID, returning its index.
+     */
+    int add(String messageId) {
+        byte tag;
+        byte[] bytes;
+        if (isLowercaseHexId(messageId)) {
+            tag = HEX_TAG;
+            bytes = HEX_FORMAT.parseHex(messageId, ID_PREFIX.length(), messageId.length());
+        } else {
+            tag = UTF8_TAG;
+            bytes = messageId.getBytes(StandardCharsets.UTF_8);
+        }
+
+        Preconditions.checkState(dataLength + 1L + bytes.length <= Integer.MAX_VALUE - 8, "Too many message IDs");
+        ensureDataCapacity(dataLength + 1 + bytes.length);
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+
+        offsets[size] = dataLength;
+        data[dataLength] = tag;
+        System.arraycopy(bytes, 0, data, dataLength + 1, bytes.length);
+        dataLength += 1 + bytes.length;
+        size += 1;
+        return size - 1;
+    }
+
+    String get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        int start = offsets[index] + 1;
+        int end = (index + 1 < size) ? offsets[index + 1] : dataLength;
+
+        if (data[start - 1] == HEX_TAG) {
+            return ID_PREFIX + HEX_FORMAT.formatHex(data, start, end);
+        } else {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes in use, excluding unused capacity.
+     */
+    long byteCount() {
+        return dataLength + 4L * size;
+    }
+
+    private void ensureDataCapacity(int minCapacity) {
+        if (minCapacity > data.length) {
+            long newCapacity = Math.max(minCapacity, Math.min(2L * data.length, Integer.MAX_VALUE - 8));
+            data = Arrays.copyOf(data, (int) newCapacity);
+        }
+    }
+
+    private static boolean isLowercaseHexId(String messageId) {
+        if (!messageId.startsWith(ID_PREFIX) || (messageId.length() - ID_PREFIX.length()) % 2 != 0) {
+            return false;
+        }
+        for (int i = ID_PREFIX.length(); i < messageId.length(); i++) {
+            char c = messageId.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
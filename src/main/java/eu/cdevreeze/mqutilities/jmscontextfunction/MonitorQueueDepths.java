@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.monitor.DepthSample;
+import eu.cdevreeze.mqutilities.monitor.DepthSampleRing;
+import eu.cdevreeze.mqutilities.monitor.MonitorHttpServer;
+import eu.cdevreeze.mqutilities.pcf.QueueInquiries;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that monitors the depths of the given queues for some time, sampling them
+ * on a fixed schedule over the connection of the {@link JMSContext} passed to this function. The queue names may also
+ * be generic names ending with an asterisk (e.g. "DEV.*"), which are expanded at each sample.
+ * <p>
+ * The depths are inquired with PCF commands (see {@link QueueInquiries}). For each sample, the net rate is computed
+ * from the change in depth since the previous sample. Optionally, enqueue and dequeue rates are computed from the
+ * queue statistics, which are then reset at each sample (see {@link QueueInquiries#resetQueueStatistics}).
+ * <p>
+ * The samples of each queue are kept in a fixed-size {@link DepthSampleRing}. While the monitor runs, they are
+ * exported as newline-delimited JSON and in Prometheus text format by a local {@link MonitorHttpServer}, if an HTTP
+ * address has been given. The function returns a summary when the monitoring duration has elapsed. A zero duration
+ * means that the monitor runs until the program is stopped. Sampling failures are counted, without stopping
+ * the monitor.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class MonitorQueueDepths implements JmsContextToJsonObjectFunction {
+
+    private final ImmutableList<String> queueNames;
+    private final Duration duration;
+    private final Duration sampleInterval;
+    private final int ringSize;
+    private final boolean sampleQueueStatistics;
+    private final Optional<InetSocketAddress> httpAddress;
+
+    public MonitorQueueDepths(
+            ImmutableList<String> queueNames,
+            Duration duration,
+            Duration sampleInterval,
+            int ringSize,
+            boolean sampleQueueStatistics,
+            Optional<InetSocketAddress> httpAddress) {
+        Preconditions.checkArgument(!queueNames.isEmpty(), "Expected at least one queue name");
+        Preconditions.checkArgument(!duration.isNegative(), "Expected a non-negative duration");
+        Preconditions.checkArgument(sampleInterval.toMillis() > 0, "Expected a positive sample interval");
+        Preconditions.checkArgument(ringSize > 0, "Expected a positive ring size");
+        this.queueNames = queueNames;
+        this.duration = duration;
+        this.sampleInterval = sampleInterval;
+        this.ringSize = ringSize;
+        this.sampleQueueStatistics = sampleQueueStatistics;
+        this.httpAddress = httpAddress;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        SortedMap<String, DepthSampleRing> rings = new ConcurrentSkipListMap<>();
+        AtomicLong roundCount = new AtomicLong();
+        AtomicLong errorCount = new AtomicLong();
+        AtomicReference<String> lastError = new AtomicReference<>();
+
+        // JMSContext objects are not thread-safe, so create the child context in this thread
+        JMSContext samplingContext = jmsContext.createContext(JMSContext.AUTO_ACKNOWLEDGE);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "queue-depth-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Optional<MonitorHttpServer> httpServer = httpAddress.map(address -> new MonitorHttpServer(address, rings));
+        try {
+            ScheduledFuture<?> sampling = scheduler.scheduleAtFixedRate(
+                    () -> {
+                        sample(samplingContext, rings, errorCount, lastError);
+                        roundCount.incrementAndGet();
+                    },
+                    0,
+                    sampleInterval.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+
+            if (duration.isZero()) {
+                sampling.get();
+            } else {
+                try {
+                    sampling.get(duration.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // The monitoring duration has elapsed
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            httpServer.ifPresent(MonitorHttpServer::close);
+            scheduler.shutdownNow();
+            awaitTermination(scheduler);
+            samplingContext.close();
+        }
+
+        JsonArrayBuilder queuesBuilder = Json.createArrayBuilder();
+        rings.forEach((queueName, ring) -> queuesBuilder.add(summarize(queueName, ring)));
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("queueNames", Json.createArrayBuilder(queueNames))
+                .add("sampleIntervalMillis", sampleInterval.toMillis())
+                .add("ringSize", ringSize)
+                .add("sampleQueueStatistics", sampleQueueStatistics);
+        httpAddress.ifPresent(address -> resultBuilder.add("httpAddress", address.toString()));
+        resultBuilder
+                .add("roundCount", roundCount.get())
+                .add("errorCount", errorCount.get());
+        Optional.ofNullable(lastError.get()).ifPresent(error -> resultBuilder.add("lastError", error));
+        return resultBuilder
+                .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .add("queues", queuesBuilder)
+                .build();
+    }
+
+    private void sample(
+            JMSContext samplingContext,
+            SortedMap<String, DepthSampleRing> rings,
+            AtomicLong errorCount,
+            AtomicReference<String> lastError) {
+        Duration inquiryTimeout =
+                (sampleInterval.compareTo(QueueInquiries.DEFAULT_TIMEOUT) < 0) ? sampleInterval : QueueInquiries.DEFAULT_TIMEOUT;
+
+        for (String queueName : queueNames) {
+            try {
+                Map<String, Integer> depths =
+                        QueueInquiries.inquireCurrentDepths(samplingContext, queueName, inquiryTimeout);
+                Map<String, QueueInquiries.MessageFlowCounts> flowCounts = sampleQueueStatistics ?
+                        QueueInquiries.resetQueueStatistics(samplingContext, queueName, inquiryTimeout) :
+                        Map.of();
+                long now = System.currentTimeMillis();
+
+                depths.forEach((name, depth) -> {
+                    DepthSampleRing ring = rings.computeIfAbsent(name, n -> new DepthSampleRing(ringSize));
+                    double netRate = ring.latest()
+                            .filter(previous -> now > previous.timestampMillis())
+                            .map(previous -> (depth - previous.depth()) * 1000.0 / (now - previous.timestampMillis()))
+                            .orElse(Double.NaN);
+                    QueueInquiries.MessageFlowCounts counts = flowCounts.get(name);
+                    double secondsSinceReset = (counts == null) ? Double.NaN : Math.max(1, counts.secondsSinceReset());
+
+                    ring.add(new DepthSample(
+                            name,
+                            now,
+                            depth,
+                            netRate,
+                            (counts == null) ? Double.NaN : counts.enqueueCount() / secondsSinceReset,
+                            (counts == null) ? Double.NaN : counts.dequeueCount() / secondsSinceReset
+                    ));
+                });
+            } catch (JMSRuntimeException e) {
+                errorCount.incrementAndGet();
+                lastError.set(String.format("%s: %s", queueName, e.getMessage()));
+            }
+        }
+    }
+
+    private static JsonObject summarize(String queueName, DepthSampleRing ring) {
+        ImmutableList<DepthSample> samples = ring.snapshot();
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("sampleCount", ring.sampleCount())
+                .add("minDepth", samples.stream().mapToInt(DepthSample::depth).min().orElse(0))
+                .add("maxDepth", samples.stream().mapToInt(DepthSample::depth).max().orElse(0));
+        ring.latest().ifPresent(sample -> builder.add("latest", sample.toJsonObject()));
+        return builder.build();
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            // Wait for a running sample, so the sampling context is no longer used when it is closed
+            executor.awaitTermination(QueueInquiries.DEFAULT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
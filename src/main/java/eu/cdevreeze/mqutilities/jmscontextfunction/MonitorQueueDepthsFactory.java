@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link MonitorQueueDepths} objects.
+ * <p>
+ * The first argument is the monitoring duration in seconds, where 0 means "until stopped". The remaining arguments
+ * are the queue names, which may be generic names ending with an asterisk.
+ * <p>
+ * The sample interval, the number of samples retained per queue, and whether queue statistics are sampled
+ * (and reset) are taken from config properties "monitor.sample_interval_millis" (default 5000),
+ * "monitor.ring_size" (default 720) and "monitor.sample_queue_statistics" (default false). The samples are
+ * exported over HTTP on the loopback address, at the port given by config property "monitor.http_port"
+ * (default 9464, where -1 disables the HTTP endpoint).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("MonitorQueueDepths")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class MonitorQueueDepthsFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 5000;
+    private static final int DEFAULT_RING_SIZE = 720;
+    private static final int DEFAULT_HTTP_PORT = 9464;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public MonitorQueueDepths apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        Duration duration = Duration.ofSeconds(Long.parseLong(args.get(0)));
+        ImmutableList<String> queueNames =
+                args.stream().skip(1).map(Objects::requireNonNull).collect(ImmutableList.toImmutableList());
+
+        long sampleIntervalMillis = config.getOptionalValue("monitor.sample_interval_millis", Long.class)
+                .orElse(DEFAULT_SAMPLE_INTERVAL_MILLIS);
+        int ringSize = config.getOptionalValue("monitor.ring_size", Integer.class).orElse(DEFAULT_RING_SIZE);
+        boolean sampleQueueStatistics =
+                config.getOptionalValue("monitor.sample_queue_statistics", Boolean.class).orElse(false);
+        int httpPort = config.getOptionalValue("monitor.http_port", Integer.class).orElse(DEFAULT_HTTP_PORT);
+        Optional<InetSocketAddress> httpAddress = (httpPort < 0) ?
+                Optional.empty() :
+                Optional.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort));
+
+        return new MonitorQueueDepths(
+                queueNames,
+                duration,
+                Duration.ofMillis(sampleIntervalMillis),
+                ringSize,
+                sampleQueueStatistics,
+                httpAddress
+        );
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that moves the messages on a source queue to a target queue, optionally
+ * restricted to those matching a message selector, and optionally up to a maximum number of messages. A typical
+ * use is moving messages from a backout queue back to the queue they came from.
+ * <p>
+ * The messages are moved by N consumer/producer pairs. Each pair receives from the source queue and sends to
+ * the target queue within its own transacted {@link JMSContext}, created from the {@link JMSContext} passed to
+ * this function. Each pair commits every M messages, so each batch is moved atomically: after a failure, a message
+ * is either still on the source queue or already on the target queue. A pair stops when no message arrives
+ * within the receive timeout.
+ * <p>
+ * Headers and properties are preserved as described in {@link MessageForwarding}. Messages that expire while
+ * being moved are consumed without being sent.
+ * <p>
+ * If a pair fails, its current batch is rolled back, the other pairs stop after committing their current batch,
+ * and the function fails.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class MoveMessages implements JmsContextToJsonObjectFunction {
+
+    private final String sourceQueueName;
+    private final String targetQueueName;
+    private final int pairCount;
+    private final int batchSize;
+    private final OptionalLong maxMessageCount;
+    private final Optional<String> messageSelector;
+    private final Duration receiveTimeout;
+
+    public MoveMessages(
+            String sourceQueueName,
+            String targetQueueName,
+            int pairCount,
+            int batchSize,
+            OptionalLong maxMessageCount,
+            Optional<String> messageSelector,
+            Duration receiveTimeout) {
+        Preconditions.checkArgument(!sourceQueueName.equals(targetQueueName), "Source and target queue must differ");
+        Preconditions.checkArgument(pairCount > 0, "Expected a positive consumer/producer pair count");
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        this.sourceQueueName = sourceQueueName;
+        this.targetQueueName = targetQueueName;
+        this.pairCount = pairCount;
+        this.batchSize = batchSize;
+        this.maxMessageCount = maxMessageCount;
+        this.messageSelector = messageSelector;
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    private record PairResult(long messageCount, long expiredCount, long byteCount, LatencyStatistics commitLatencies) {
+
+        JsonObject toJsonObject() {
+            return Json.createObjectBuilder()
+                    .add("messageCount", messageCount)
+                    .add("expiredCount", expiredCount)
+                    .add("byteCount", byteCount)
+                    .add("commitLatencyMillis", commitLatencies.toJsonObject())
+                    .build();
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        // Shared claim counter, so that the pairs together do not exceed the maximum message count
+        AtomicLong remainingMessageCount = new AtomicLong(maxMessageCount.orElse(Long.MAX_VALUE));
+        AtomicBoolean stopped = new AtomicBoolean(false);
+
+        // JMSContext objects are not thread-safe, so create the child contexts, consumers and producers in this thread
+        List<JMSContext> childContexts = new ArrayList<>();
+        List<PairResult> pairResults = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(pairCount);
+        try {
+            List<Future<PairResult>> futures = new ArrayList<>();
+            for (int i = 0; i < pairCount; i++) {
+                JMSContext childContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED);
+                childContexts.add(childContext);
+                Queue sourceQueue = childContext.createQueue(sourceQueueName);
+                Queue targetQueue = childContext.createQueue(targetQueueName);
+                JMSConsumer jmsConsumer = childContext.createConsumer(sourceQueue, messageSelector.orElse(null));
+                JMSProducer jmsProducer = childContext.createProducer();
+
+                futures.add(executor.submit(() ->
+                        move(childContext, jmsConsumer, jmsProducer, targetQueue, remainingMessageCount, stopped)));
+            }
+            // Wait for all pairs before closing their contexts, so the others can commit their current batch
+            Throwable failure = null;
+            for (Future<PairResult> future : futures) {
+                try {
+                    pairResults.add(future.get());
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            stopped.set(true);
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+        long messageCount = pairResults.stream().mapToLong(PairResult::messageCount).sum();
+        long expiredCount = pairResults.stream().mapToLong(PairResult::expiredCount).sum();
+        long byteCount = pairResults.stream().mapToLong(PairResult::byteCount).sum();
+
+        JsonArrayBuilder pairsBuilder = Json.createArrayBuilder();
+        pairResults.forEach(r -> pairsBuilder.add(r.toJsonObject()));
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("sourceQueue", sourceQueueName)
+                .add("targetQueue", targetQueueName)
+                .add("pairCount", pairCount)
+                .add("batchSize", batchSize);
+        maxMessageCount.ifPresent(n -> resultBuilder.add("maxMessageCount", n));
+        messageSelector.ifPresent(s -> resultBuilder.add("selector", s));
+        return resultBuilder
+                .add("messageCount", messageCount)
+                .add("expiredCount", expiredCount)
+                .add("byteCount", byteCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("bytesPerSecond", byteCount / elapsedSeconds)
+                .add("pairs", pairsBuilder)
+                .build();
+    }
+
+    private PairResult move(
+            JMSContext transactedContext,
+            JMSConsumer jmsConsumer,
+            JMSProducer jmsProducer,
+            Queue targetQueue,
+            AtomicLong remainingMessageCount,
+            AtomicBoolean stopped) {
+        long messageCount = 0;
+        long expiredCount = 0;
+        long byteCount = 0;
+        LatencyStatistics commitLatencies = new LatencyStatistics();
+
+        try {
+            int messagesInBatch = 0;
+
+            while (!stopped.get() && remainingMessageCount.getAndDecrement() > 0) {
+                Message message = jmsConsumer.receive(receiveTimeout.toMillis());
+
+                if (message == null) {
+                    // Give back the claim; this pair regards the source queue as drained
+                    remainingMessageCount.incrementAndGet();
+                    break;
+                }
+
+                if (MessageForwarding.forward(message, jmsProducer, targetQueue)) {
+                    messageCount += 1;
+                    byteCount += MessageForwarding.payloadSize(message);
+                } else {
+                    expiredCount += 1;
+                }
+                messagesInBatch += 1;
+
+                if (messagesInBatch == batchSize) {
+                    commit(transactedContext, commitLatencies);
+                    messagesInBatch = 0;
+                }
+            }
+            if (messagesInBatch > 0) {
+                commit(transactedContext, commitLatencies);
+            }
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            TransactedContexts.rollback(transactedContext, e);
+            throw e;
+        } finally {
+            jmsConsumer.close();
+        }
+
+        return new PairResult(messageCount, expiredCount, byteCount, commitLatencies);
+    }
+
+    private static void commit(JMSContext transactedContext, LatencyStatistics commitLatencies) {
+        long commitStart = System.nanoTime();
+        transactedContext.commit();
+        commitLatencies.record(System.nanoTime() - commitStart);
+    }
+}
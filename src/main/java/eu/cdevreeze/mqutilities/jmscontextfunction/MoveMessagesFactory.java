@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Factory of {@link MoveMessages} objects.
+ * <p>
+ * The first argument is the source queue name, and the second one the target queue name. The optional third
+ * argument is the maximum message count, and the optional fourth argument is the message selector. A "-" leaves
+ * the corresponding optional argument unset.
+ * <p>
+ * The number of consumer/producer pairs, the number of messages per transaction and the receive timeout are taken
+ * from config properties "move_messages.pairs" (default 1), "move_messages.batch_size" (default 100) and
+ * "move_messages.receive_timeout_millis" (default 1000).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("MoveMessages")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class MoveMessagesFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_PAIR_COUNT = 1;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_RECEIVE_TIMEOUT_MILLIS = 1000;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public MoveMessages apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String sourceQueueName = Objects.requireNonNull(args.get(0));
+        String targetQueueName = Objects.requireNonNull(args.get(1));
+        OptionalLong maxMessageCount = FactoryArgs.optionalArg(args, 2).stream().mapToLong(Long::parseLong).findFirst();
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 3);
+
+        int pairCount = config.getOptionalValue("move_messages.pairs", Integer.class).orElse(DEFAULT_PAIR_COUNT);
+        int batchSize = config.getOptionalValue("move_messages.batch_size", Integer.class).orElse(DEFAULT_BATCH_SIZE);
+        long receiveTimeoutMillis = config.getOptionalValue("move_messages.receive_timeout_millis", Long.class)
+                .orElse(DEFAULT_RECEIVE_TIMEOUT_MILLIS);
+
+        return new MoveMessages(
+                sourceQueueName,
+                targetQueueName,
+                pairCount,
+                batchSize,
+                maxMessageCount,
+                messageSelector,
+                Duration.ofMillis(receiveTimeoutMillis)
+        );
+    }
+}
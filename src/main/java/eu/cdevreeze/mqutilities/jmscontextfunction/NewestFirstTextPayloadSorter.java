@@ -0,0 +1,207 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Sorter of text message payloads on descending JMS timestamp ("newest first"), with bounded memory usage.
+ * <p>
+ * In bounded mode, only the newest N payloads are retained, in a min-heap of size N. In unbounded mode,
+ * an external merge sort is performed: sorted runs of bounded size are spilled to temporary files, and
+ * these runs are merged with a k-way merge when the payloads are consumed. Payloads with the same
+ * timestamp keep their original (browse) order.
+ * <p>
+ * Instances are not thread-safe. They must be closed, in order to delete any temporary files.
+ *
+ * @author Chris de Vreeze
+ */
+final class NewestFirstTextPayloadSorter implements Closeable {
+
+    private static final Comparator<Entry> NEWEST_FIRST =
+            Comparator.comparingLong(Entry::timestamp).reversed().thenComparingLong(Entry::sequenceNumber);
+
+    private final int maxRetained;
+    private final boolean bounded;
+    private final PriorityQueue<Entry> topN;
+    private final List<Entry> currentRun;
+    private final List<Path> spilledRuns;
+    private long sequenceNumber;
+
+    private NewestFirstTextPayloadSorter(int maxRetained, boolean bounded) {
+        Preconditions.checkArgument(maxRetained > 0, "Expected a positive number of retained payloads");
+        this.maxRetained = maxRetained;
+        this.bounded = bounded;
+        this.topN = new PriorityQueue<>(NEWEST_FIRST.reversed());
+        this.currentRun = new ArrayList<>();
+        this.spilledRuns = new ArrayList<>();
+        this.sequenceNumber = 0;
+    }
+
+    /**
+     * Returns a sorter that only retains the newest {@code maxCount} payloads.
+     */
+    static NewestFirstTextPayloadSorter bounded(int maxCount) {
+        return new NewestFirstTextPayloadSorter(maxCount, true);
+    }
+
+    /**
+     * Returns a sorter that retains all payloads, spilling sorted runs of {@code runSize} payloads to disk.
+     */
+    static NewestFirstTextPayloadSorter spilling(int runSize) {
+        return new NewestFirstTextPayloadSorter(runSize, false);
+    }
+
+    void add(long timestamp, String text) {
+        Entry entry = new Entry(timestamp, sequenceNumber++, text);
+
+        if (bounded) {
+            topN.add(entry);
+            if (topN.size() > maxRetained) {
+                topN.poll();
+            }
+        } else {
+            currentRun.add(entry);
+            if (currentRun.size() >= maxRetained) {
+                spillCurrentRun();
+            }
+        }
+    }
+
+    /**
+     * Passes all retained payloads to the given consumer, newest first. This method must be called at most once.
+     */
+    void forEachNewestFirst(Consumer<String> consumer) {
+        if (bounded) {
+            List<Entry> entries = new ArrayList<>(topN);
+            topN.clear();
+            entries.sort(NEWEST_FIRST);
+            entries.forEach(e -> consumer.accept(e.text()));
+        } else if (spilledRuns.isEmpty()) {
+            currentRun.sort(NEWEST_FIRST);
+            currentRun.forEach(e -> consumer.accept(e.text()));
+            currentRun.clear();
+        } else {
+            if (!currentRun.isEmpty()) {
+                spillCurrentRun();
+            }
+            mergeSpilledRuns(consumer);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Path run : spilledRuns) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        spilledRuns.clear();
+    }
+
+    private void spillCurrentRun() {
+        currentRun.sort(NEWEST_FIRST);
+        try {
+            Path run = Files.createTempFile("mqutilities-run-", ".bin");
+            spilledRuns.add(run);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                for (Entry entry : currentRun) {
+                    writeEntry(entry, out);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        currentRun.clear();
+    }
+
+    private void mergeSpilledRuns(Consumer<String> consumer) {
+        List<DataInputStream> inputs = new ArrayList<>();
+        try {
+            PriorityQueue<RunHead> heads = new PriorityQueue<>(Comparator.comparing(RunHead::entry, NEWEST_FIRST));
+
+            for (Path run : spilledRuns) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+                inputs.add(in);
+                readEntry(in).ifPresent(e -> heads.add(new RunHead(e, in)));
+            }
+
+            while (!heads.isEmpty()) {
+                RunHead head = heads.poll();
+                consumer.accept(head.entry().text());
+                readEntry(head.input()).ifPresent(e -> heads.add(new RunHead(e, head.input())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (DataInputStream in : inputs) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore, the temporary file is deleted on close anyway
+                }
+            }
+        }
+    }
+
+    private static void writeEntry(Entry entry, DataOutputStream out) throws IOException {
+        out.writeLong(entry.timestamp());
+        out.writeLong(entry.sequenceNumber());
+        if (entry.text() == null) {
+            // A text message without body
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = entry.text().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Optional<Entry> readEntry(DataInputStream in) {
+        try {
+            long timestamp = in.readLong();
+            long seqNr = in.readLong();
+            int length = in.readInt();
+            if (length < 0) {
+                return Optional.of(new Entry(timestamp, seqNr, null));
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return Optional.of(new Entry(timestamp, seqNr, new String(bytes, StandardCharsets.UTF_8)));
+        } catch (EOFException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(long timestamp, long sequenceNumber, String text) {
+    }
+
+    private record RunHead(Entry entry, DataInputStream input) {
+    }
+}
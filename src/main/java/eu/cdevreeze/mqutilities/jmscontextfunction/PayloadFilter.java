@@ -0,0 +1,252 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParsingException;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Client-side filter on text message payloads, applied after any JMS message selector has been applied by the
+ * queue manager. A filter is specified as "kind:expression", where the kind is one of:
+ * <ul>
+ *     <li>"contains": the payload contains the expression as substring</li>
+ *     <li>"regex": the regular expression matches part of the payload</li>
+ *     <li>"xpath": the XPath expression, evaluated as boolean against the XML payload, is true</li>
+ *     <li>"json-pointer": the JSON pointer, optionally followed by "=" and a value, exists in the JSON payload
+ *     (and refers to that value, compared with the JSON text of scalar values without string quotes)</li>
+ * </ul>
+ * <p>
+ * JSON payloads are matched with a streaming parse, which stops as soon as the result is known. Payloads that
+ * cannot be parsed as XML or JSON do not match.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class PayloadFilter implements Predicate<String> {
+
+    public enum Kind {
+        CONTAINS, REGEX, XPATH, JSON_POINTER;
+
+        public static Kind parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().replace('_', '-').equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown payload filter kind '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().replace('_', '-').toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final Kind kind;
+    private final String expression;
+    private final Predicate<String> predicate;
+
+    private PayloadFilter(Kind kind, String expression) {
+        this.kind = kind;
+        this.expression = expression;
+        this.predicate = switch (kind) {
+            case CONTAINS -> payload -> payload.contains(expression);
+            case REGEX -> {
+                Pattern pattern = Pattern.compile(expression);
+                yield payload -> pattern.matcher(payload).find();
+            }
+            case XPATH -> xpathPredicate(expression);
+            case JSON_POINTER -> jsonPointerPredicate(expression);
+        };
+    }
+
+    /**
+     * Parses a filter specified as "kind:expression".
+     */
+    public static PayloadFilter parse(String spec) {
+        int colonIndex = spec.indexOf(':');
+        Preconditions.checkArgument(colonIndex > 0, String.format("Expected 'kind:expression', got '%s'", spec));
+        return new PayloadFilter(Kind.parse(spec.substring(0, colonIndex)), spec.substring(colonIndex + 1));
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    @Override
+    public boolean test(String payload) {
+        return payload != null && predicate.test(payload);
+    }
+
+    @Override
+    public String toString() {
+        return kind.toString().toLowerCase().replace('_', '-') + ":" + expression;
+    }
+
+    private static Predicate<String> xpathPredicate(String expression) {
+        try {
+            XPathFactory xpathFactory = XPathFactory.newInstance();
+            xpathFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            XPathExpression xpathExpression = xpathFactory.newXPath().compile(expression);
+
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            documentBuilderFactory.setNamespaceAware(true);
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            // Non-XML payloads simply do not match, so do not let the parser report errors on standard error
+            documentBuilder.setErrorHandler(new DefaultHandler());
+
+            return payload -> {
+                try {
+                    Document document = documentBuilder.parse(new InputSource(new StringReader(payload)));
+                    return (Boolean) xpathExpression.evaluate(document, XPathConstants.BOOLEAN);
+                } catch (SAXException | IOException | XPathExpressionException e) {
+                    return false;
+                }
+            };
+        } catch (XPathFactoryConfigurationException | XPathExpressionException e) {
+            throw new IllegalArgumentException(String.format("Invalid XPath expression '%s'", expression), e);
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Predicate<String> jsonPointerPredicate(String expression) {
+        int equalsIndex = expression.indexOf('=');
+        String pointer = (equalsIndex >= 0) ? expression.substring(0, equalsIndex) : expression;
+        String expectedValue = (equalsIndex >= 0) ? expression.substring(equalsIndex + 1) : null;
+        Preconditions.checkArgument(
+                pointer.isEmpty() || pointer.startsWith("/"),
+                String.format("Invalid JSON pointer '%s'", pointer)
+        );
+
+        // Reference tokens, unescaped as per RFC 6901
+        List<String> pointerTokens = pointer.isEmpty() ?
+                List.of() :
+                Arrays.stream(pointer.substring(1).split("/", -1))
+                        .map(t -> t.replace("~1", "/").replace("~0", "~"))
+                        .toList();
+
+        return payload -> {
+            try (JsonParser jsonParser = Json.createParser(new StringReader(payload))) {
+                return matchesJsonPointer(jsonParser, pointerTokens, expectedValue);
+            } catch (JsonParsingException e) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Streams through the JSON document until the value at the JSON pointer has been found. Each entry of the
+     * path stack is the current object member name or array index of an enclosing container.
+     */
+    private static boolean matchesJsonPointer(JsonParser jsonParser, List<String> pointerTokens, String expectedValue) {
+        Deque<String> path = new ArrayDeque<>();
+        Deque<Boolean> inArray = new ArrayDeque<>();
+
+        while (jsonParser.hasNext()) {
+            JsonParser.Event event = jsonParser.next();
+
+            if (event == JsonParser.Event.KEY_NAME) {
+                path.removeLast();
+                path.addLast(jsonParser.getString());
+                continue;
+            }
+            if (event == JsonParser.Event.END_OBJECT || event == JsonParser.Event.END_ARRAY) {
+                path.removeLast();
+                inArray.removeLast();
+                continue;
+            }
+
+            // A value starts here: advance the array index, if within an array
+            if (Boolean.TRUE.equals(inArray.peekLast())) {
+                path.addLast(String.valueOf(Integer.parseInt(path.removeLast()) + 1));
+            }
+
+            if (pathEquals(path, pointerTokens)) {
+                return expectedValue == null || expectedValue.equals(scalarText(jsonParser, event));
+            }
+
+            if (event == JsonParser.Event.START_OBJECT) {
+                if (isPrefix(path, pointerTokens)) {
+                    path.addLast("");
+                    inArray.addLast(false);
+                } else {
+                    jsonParser.skipObject();
+                }
+            } else if (event == JsonParser.Event.START_ARRAY) {
+                if (isPrefix(path, pointerTokens)) {
+                    path.addLast("-1");
+                    inArray.addLast(true);
+                } else {
+                    jsonParser.skipArray();
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String scalarText(JsonParser jsonParser, JsonParser.Event event) {
+        return switch (event) {
+            case VALUE_STRING, VALUE_NUMBER -> jsonParser.getString();
+            case VALUE_TRUE -> "true";
+            case VALUE_FALSE -> "false";
+            case VALUE_NULL -> "null";
+            default -> null;
+        };
+    }
+
+    private static boolean pathEquals(Deque<String> path, List<String> pointerTokens) {
+        return path.size() == pointerTokens.size() && isPrefix(path, pointerTokens);
+    }
+
+    private static boolean isPrefix(Deque<String> path, List<String> pointerTokens) {
+        if (path.size() > pointerTokens.size()) {
+            return false;
+        }
+        int i = 0;
+        for (String token : path) {
+            if (!token.equals(pointerTokens.get(i))) {
+                return false;
+            }
+            i += 1;
+        }
+        return true;
+    }
+}
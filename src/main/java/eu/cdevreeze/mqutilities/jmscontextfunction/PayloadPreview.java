@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import jakarta.jms.*;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Optional;
+
+import static eu.cdevreeze.yaidom4j.dom.immutabledom.Nodes.elem;
+
+/**
+ * Bounded preview of non-text message payloads, as XML element. Supported are bytes messages, map messages and
+ * stream messages. Decoding is bounded: of a bytes message body, only the first N bytes are read (into a reused
+ * buffer) and encoded as base64 or hex, of map and stream messages only the first M entries are read, and string
+ * and byte array values within them are truncated as well. A preview element tells whether it was truncated.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class PayloadPreview {
+
+    public enum Encoding {
+        BASE64(BaseEncoding.base64()), HEX(BaseEncoding.base16().lowerCase());
+
+        private final BaseEncoding baseEncoding;
+
+        Encoding(BaseEncoding baseEncoding) {
+            this.baseEncoding = baseEncoding;
+        }
+
+        public static Encoding parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown encoding '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final Encoding encoding;
+    private final int maxBytes;
+    private final int maxEntries;
+
+    private byte[] buffer = new byte[0];
+
+    public PayloadPreview(Encoding encoding, int maxBytes, int maxEntries) {
+        Preconditions.checkArgument(maxBytes >= 0, "Expected a non-negative maximum number of bytes");
+        Preconditions.checkArgument(maxEntries >= 0, "Expected a non-negative maximum number of entries");
+        this.encoding = encoding;
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns a new preview with the default settings: base64 encoding, at most 1024 bytes (or characters) per
+     * preview, and at most 100 map or stream message entries.
+     */
+    public static PayloadPreview defaults() {
+        return new PayloadPreview(Encoding.BASE64, 1024, 100);
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public int maxBytes() {
+        return maxBytes;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the preview of the given message payload, or an empty Optional if the message is not a bytes, map
+     * or stream message.
+     */
+    public Optional<Element> preview(Message message) throws JMSException {
+        if (message instanceof BytesMessage bytesMessage) {
+            return Optional.of(previewBytesMessage(bytesMessage));
+        } else if (message instanceof MapMessage mapMessage) {
+            return Optional.of(previewMapMessage(mapMessage));
+        } else if (message instanceof StreamMessage streamMessage) {
+            return Optional.of(previewStreamMessage(streamMessage));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    private Element previewBytesMessage(BytesMessage message) throws JMSException {
+        long length = message.getBodyLength();
+        int previewLength = (int) Math.min(length, maxBytes);
+        if (buffer.length < previewLength) {
+            buffer = new byte[previewLength];
+        }
+        int readLength = (previewLength == 0) ? 0 : Math.max(0, message.readBytes(buffer, previewLength));
+
+        return elem(new QName("bytesMessagePayload"))
+                .plusChild(elem(new QName("length")).plusText(String.valueOf(length)))
+                .plusChild(elem(new QName("encoding")).plusText(encoding.toString().toLowerCase()))
+                .plusChild(elem(new QName("truncated")).plusText(String.valueOf(readLength < length)))
+                .plusChild(elem(new QName("preview")).plusText(encoding.baseEncoding.encode(buffer, 0, readLength)));
+    }
+
+    private Element previewMapMessage(MapMessage message) throws JMSException {
+        @SuppressWarnings("unchecked")
+        Enumeration<String> names = (Enumeration<String>) message.getMapNames();
+
+        ImmutableList.Builder<Element> entries = ImmutableList.builder();
+        int entryCount = 0;
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (entryCount < maxEntries) {
+                Element entryElement = elem(new QName("entry")).plusChild(elem(new QName("name")).plusText(name));
+                entries.add(previewValue(entryElement, message.getObject(name)));
+            }
+            entryCount += 1;
+        }
+
+        return elem(new QName("mapMessagePayload"))
+                .plusChild(elem(new QName("entryCount")).plusText(String.valueOf(entryCount)))
+                .plusChild(elem(new QName("truncated")).plusText(String.valueOf(entryCount > maxEntries)))
+                .plusChildren(entries.build());
+    }
+
+    private Element previewStreamMessage(StreamMessage message) throws JMSException {
+        ImmutableList.Builder<Element> items = ImmutableList.builder();
+        int itemCount = 0;
+        boolean truncated = false;
+        try {
+            while (true) {
+                Object value = message.readObject();
+                if (itemCount == maxEntries) {
+                    // There is at least one more item, so stop reading
+                    truncated = true;
+                    break;
+                }
+                items.add(previewValue(elem(new QName("item")), value));
+                itemCount += 1;
+            }
+        } catch (MessageEOFException e) {
+            // All items have been read
+        }
+
+        return elem(new QName("streamMessagePayload"))
+                .plusChild(elem(new QName("truncated")).plusText(String.valueOf(truncated)))
+                .plusChildren(items.build());
+    }
+
+    private Element previewValue(Element valueElement, Object value) {
+        if (value == null) {
+            return valueElement.plusChild(elem(new QName("type")).plusText("null"));
+        } else if (value instanceof byte[] bytes) {
+            int previewLength = Math.min(bytes.length, maxBytes);
+            return valueElement
+                    .plusChild(elem(new QName("type")).plusText("bytes"))
+                    .plusChild(elem(new QName("truncated")).plusText(String.valueOf(previewLength < bytes.length)))
+                    .plusChild(elem(new QName("value")).plusText(encoding.baseEncoding.encode(bytes, 0, previewLength)));
+        } else {
+            String text = value.toString();
+            int previewLength = Math.min(text.length(), maxBytes);
+            return valueElement
+                    .plusChild(elem(new QName("type")).plusText(value.getClass().getSimpleName().toLowerCase()))
+                    .plusChild(elem(new QName("truncated")).plusText(String.valueOf(previewLength < text.length())))
+                    .plusChild(elem(new QName("value")).plusText(text.substring(0, previewLength)));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Utf8;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Enumeration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that summarizes the messages on the given queue, without consuming
+ * any data. It browses the queue once, and computes the following aggregates in constant memory:
+ * <ul>
+ *     <li>the message count per message type</li>
+ *     <li>a payload size histogram, for text messages (UTF-8 size) and bytes messages</li>
+ *     <li>a message age histogram, based on the JMS timestamps</li>
+ *     <li>the oldest and newest JMS timestamps</li>
+ *     <li>the (approximately) most frequent property values, estimated with a count-min sketch</li>
+ * </ul>
+ * Each browsed message is discarded as soon as it has been processed. JMSX and JMS_IBM properties are
+ * not included in the property value counts.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class QueueStatistics implements JmsContextToJsonObjectFunction {
+
+    private final String queueName;
+    private final Optional<String> messageSelector;
+    private final int topPropertyValueCount;
+
+    public QueueStatistics(String queueName, Optional<String> messageSelector, int topPropertyValueCount) {
+        Preconditions.checkArgument(topPropertyValueCount > 0, "Expected a positive number of top property values");
+        this.queueName = queueName;
+        this.messageSelector = messageSelector;
+        this.topPropertyValueCount = topPropertyValueCount;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+
+        Map<MessageBodyType, Long> countsByType = new EnumMap<>(MessageBodyType.class);
+        LogLinearHistogram payloadSizes = new LogLinearHistogram();
+        LogLinearHistogram ages = new LogLinearHistogram();
+        TopKCounter propertyValues = new TopKCounter(topPropertyValueCount);
+        long messageCount = 0;
+        long oldestTimestamp = Long.MAX_VALUE;
+        long newestTimestamp = Long.MIN_VALUE;
+
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
+            Enumeration<?> messages = queueBrowser.getEnumeration();
+
+            while (messages.hasMoreElements()) {
+                Message message = (Message) messages.nextElement();
+                messageCount += 1;
+
+                countsByType.merge(MessageBodyType.of(message), 1L, Long::sum);
+
+                if (message instanceof TextMessage textMessage) {
+                    String text = textMessage.getText();
+                    payloadSizes.record((text == null) ? 0 : Utf8.encodedLength(text));
+                } else if (message instanceof BytesMessage bytesMessage) {
+                    payloadSizes.record(bytesMessage.getBodyLength());
+                }
+
+                long timestamp = message.getJMSTimestamp();
+                if (timestamp > 0) {
+                    ages.record(Math.max(0, now - timestamp));
+                    oldestTimestamp = Math.min(oldestTimestamp, timestamp);
+                    newestTimestamp = Math.max(newestTimestamp, timestamp);
+                }
+
+                Enumeration<?> propertyNames = message.getPropertyNames();
+                while (propertyNames.hasMoreElements()) {
+                    String propertyName = propertyNames.nextElement().toString();
+                    if (!propertyName.startsWith("JMSX") && !propertyName.startsWith("JMS_IBM_")) {
+                        propertyValues.add(propertyName + "=" + message.getObjectProperty(propertyName));
+                    }
+                }
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+
+        JsonObjectBuilder countsByTypeBuilder = Json.createObjectBuilder();
+        for (MessageBodyType bodyType : MessageBodyType.values()) {
+            countsByTypeBuilder.add(bodyType.label(), countsByType.getOrDefault(bodyType, 0L));
+        }
+
+        JsonArrayBuilder topPropertyValuesBuilder = Json.createArrayBuilder();
+        for (TopKCounter.ItemCount itemCount : propertyValues.topItems()) {
+            int equalsIndex = itemCount.item().indexOf('=');
+            topPropertyValuesBuilder.add(
+                    Json.createObjectBuilder()
+                            .add("property", itemCount.item().substring(0, equalsIndex))
+                            .add("value", itemCount.item().substring(equalsIndex + 1))
+                            .add("estimatedCount", itemCount.estimatedCount())
+            );
+        }
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder().add("queue", queueName);
+        messageSelector.ifPresent(selector -> resultBuilder.add("selector", selector));
+        resultBuilder
+                .add("messageCount", messageCount)
+                .add("messageCountByType", countsByTypeBuilder)
+                .add("payloadSizeBytes", payloadSizes.toJsonObject())
+                .add("ageMillis", ages.toJsonObject());
+        if (ages.count() > 0) {
+            resultBuilder
+                    .add("oldestTimestamp", Instant.ofEpochMilli(oldestTimestamp).toString())
+                    .add("newestTimestamp", Instant.ofEpochMilli(newestTimestamp).toString());
+        }
+        return resultBuilder
+                .add("topPropertyValues", topPropertyValuesBuilder)
+                .add("elapsedMillis", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Factory of {@link QueueStatistics} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is a JMS message selector, and the optional
+ * third argument is the number of most frequent property values to report, defaulting to 10. A "-" leaves the
+ * corresponding optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("QueueStatistics")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class QueueStatisticsFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final int DEFAULT_TOP_PROPERTY_VALUE_COUNT = 10;
+
+    @Override
+    public QueueStatistics apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 1);
+        int topPropertyValueCount =
+                FactoryArgs.optionalArg(args, 2).map(Integer::parseInt).orElse(DEFAULT_TOP_PROPERTY_VALUE_COUNT);
+        return new QueueStatistics(queueName, messageSelector, topPropertyValueCount);
+    }
+}
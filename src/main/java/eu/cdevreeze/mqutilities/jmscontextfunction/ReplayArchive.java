@@ -0,0 +1,340 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import eu.cdevreeze.mqutilities.archive.ArchiveReader;
+import eu.cdevreeze.mqutilities.archive.ArchiveRecord;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that sends the messages of an archive written by {@link ArchiveQueue}
+ * to a queue, preserving body types, properties, correlation IDs, JMS types, priorities and delivery modes.
+ * Message IDs and timestamps are assigned anew by the queue manager, and JMSX and (most) JMS_IBM properties
+ * are not copied. Messages that expired in the meantime are skipped; the others keep their remaining time to live.
+ * Object messages are skipped as well, since their bodies are not archived.
+ * <p>
+ * The archive segments are read sequentially, memory-mapped. The messages are sent in transacted batches, by one
+ * or more producers, each using its own transacted {@link JMSContext} created from the {@link JMSContext} passed
+ * to this function. With multiple producers, each producer replays whole segments, so the message order is only
+ * retained within a segment. Optionally the send rate is limited to a fixed number of messages per second,
+ * shared by all producers.
+ * <p>
+ * Optionally a checkpoint file records, after each commit, how far each segment has been replayed. Running
+ * the replay again with the same checkpoint file resumes where the previous run stopped. Only if the process
+ * dies between a commit and the subsequent checkpoint update can the last batch of a producer be sent twice.
+ * A checkpoint file is tied to one archive, and the replay fails if it was written for another archive.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class ReplayArchive implements JmsContextToJsonObjectFunction {
+
+    // Properties set by the queue manager or the JMS provider, which cannot or should not be replayed
+    private static final Set<String> REPLAYED_IBM_PROPERTIES =
+            Set.of("JMS_IBM_Format", "JMS_IBM_Character_Set", "JMS_IBM_Encoding");
+
+    private final String queueName;
+    private final Path archiveDirectory;
+    private final int batchSize;
+    private final int producerCount;
+    private final OptionalDouble messagesPerSecond;
+    private final Optional<Path> checkpointFile;
+
+    public ReplayArchive(
+            String queueName,
+            Path archiveDirectory,
+            int batchSize,
+            int producerCount,
+            OptionalDouble messagesPerSecond,
+            Optional<Path> checkpointFile) {
+        Preconditions.checkArgument(batchSize > 0, "Expected a positive batch size");
+        Preconditions.checkArgument(producerCount > 0, "Expected a positive producer count");
+        this.queueName = queueName;
+        this.archiveDirectory = archiveDirectory;
+        this.batchSize = batchSize;
+        this.producerCount = producerCount;
+        this.messagesPerSecond = messagesPerSecond;
+        this.checkpointFile = checkpointFile;
+    }
+
+    private record ProducerResult(
+            long messageCount,
+            long skippedExpiredCount,
+            long skippedObjectCount,
+            LatencyStatistics commitLatencies) {
+
+        JsonObject toJsonObject() {
+            return Json.createObjectBuilder()
+                    .add("messageCount", messageCount)
+                    .add("skippedExpiredCount", skippedExpiredCount)
+                    .add("skippedObjectCount", skippedObjectCount)
+                    .add("commitLatencyMillis", commitLatencies.toJsonObject())
+                    .build();
+        }
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        long start = System.nanoTime();
+
+        Optional<RateLimiter> rateLimiter = messagesPerSecond.stream().mapToObj(RateLimiter::create).findFirst();
+
+        // Determine the pending segments, and how many records were replayed before
+        BlockingQueue<Integer> pendingSegments = new LinkedBlockingQueue<>();
+        long alreadyReplayedCount = 0;
+        int segmentCount;
+        ReplayCheckpoint checkpoint;
+        try (ArchiveReader archiveReader = ArchiveReader.open(archiveDirectory)) {
+            long recordCount = archiveReader.recordCount();
+            checkpoint = checkpointFile
+                    .map(f -> ReplayCheckpoint.load(f, archiveDirectory, recordCount))
+                    .orElse(null);
+            segmentCount = archiveReader.segmentFiles().size();
+            for (int i = 0; i < segmentCount; i++) {
+                long first = archiveReader.firstRecordNumber(i);
+                long next = (checkpoint == null) ? first : checkpoint.nextRecordNumber(i, first);
+                alreadyReplayedCount += next - first;
+                if (next < archiveReader.endRecordNumber(i)) {
+                    pendingSegments.add(i);
+                }
+            }
+        }
+        int workerCount = Math.max(1, Math.min(producerCount, pendingSegments.size()));
+
+        // JMSContext objects are not thread-safe, so create the child contexts in this thread
+        List<JMSContext> childContexts = new ArrayList<>();
+        List<ProducerResult> producerResults = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<ProducerResult>> futures = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                JMSContext childContext = jmsContext.createContext(JMSContext.SESSION_TRANSACTED);
+                childContexts.add(childContext);
+                Queue queue = childContext.createQueue(queueName);
+                JMSProducer jmsProducer = childContext.createProducer();
+
+                futures.add(executor.submit(() ->
+                        replay(childContext, jmsProducer, queue, pendingSegments, checkpoint, rateLimiter)));
+            }
+            for (Future<ProducerResult> future : futures) {
+                producerResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            childContexts.forEach(JMSContext::close);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        double elapsedSeconds = Math.max(elapsed.toNanos(), 1L) / 1_000_000_000.0;
+        long messageCount = producerResults.stream().mapToLong(ProducerResult::messageCount).sum();
+
+        JsonArrayBuilder producersBuilder = Json.createArrayBuilder();
+        producerResults.forEach(r -> producersBuilder.add(r.toJsonObject()));
+
+        JsonObjectBuilder resultBuilder = Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("archiveDirectory", archiveDirectory.toString())
+                .add("segmentCount", segmentCount)
+                .add("producerCount", workerCount)
+                .add("batchSize", batchSize);
+        messagesPerSecond.ifPresent(rate -> resultBuilder.add("maxMessagesPerSecond", rate));
+        checkpointFile.ifPresent(f -> resultBuilder.add("checkpointFile", f.toString()));
+        return resultBuilder
+                .add("alreadyReplayedCount", alreadyReplayedCount)
+                .add("messageCount", messageCount)
+                .add("elapsedMillis", elapsed.toMillis())
+                .add("messagesPerSecond", messageCount / elapsedSeconds)
+                .add("producers", producersBuilder)
+                .build();
+    }
+
+    private ProducerResult replay(
+            JMSContext transactedContext,
+            JMSProducer jmsProducer,
+            Queue queue,
+            BlockingQueue<Integer> pendingSegments,
+            ReplayCheckpoint checkpoint,
+            Optional<RateLimiter> rateLimiter) {
+        AtomicLong messageCount = new AtomicLong();
+        AtomicLong skippedExpiredCount = new AtomicLong();
+        AtomicLong skippedObjectCount = new AtomicLong();
+        LatencyStatistics commitLatencies = new LatencyStatistics();
+
+        try (ArchiveReader archiveReader = ArchiveReader.open(archiveDirectory)) {
+            Integer segmentIndex;
+            while ((segmentIndex = pendingSegments.poll()) != null) {
+                int currentSegmentIndex = segmentIndex;
+                long first = archiveReader.firstRecordNumber(currentSegmentIndex);
+                long from = (checkpoint == null) ? first : checkpoint.nextRecordNumber(currentSegmentIndex, first);
+                int[] messagesInBatch = {0};
+
+                try {
+                    archiveReader.forEachInSegment(currentSegmentIndex, from, (archiveRecord, recordNumber) -> {
+                        rateLimiter.ifPresent(RateLimiter::acquire);
+                        switch (send(archiveRecord, transactedContext, jmsProducer, queue)) {
+                            case SENT -> messageCount.incrementAndGet();
+                            case SKIPPED_EXPIRED -> skippedExpiredCount.incrementAndGet();
+                            case SKIPPED_OBJECT -> skippedObjectCount.incrementAndGet();
+                        }
+                        messagesInBatch[0] += 1;
+
+                        if (messagesInBatch[0] == batchSize) {
+                            commit(transactedContext, commitLatencies, checkpoint, currentSegmentIndex, recordNumber + 1);
+                            messagesInBatch[0] = 0;
+                        }
+                    });
+                    if (messagesInBatch[0] > 0) {
+                        commit(
+                                transactedContext,
+                                commitLatencies,
+                                checkpoint,
+                                currentSegmentIndex,
+                                archiveReader.endRecordNumber(currentSegmentIndex)
+                        );
+                    }
+                } catch (RuntimeException e) {
+                    TransactedContexts.rollback(transactedContext, e);
+                    throw e;
+                }
+            }
+        }
+        return new ProducerResult(
+                messageCount.get(),
+                skippedExpiredCount.get(),
+                skippedObjectCount.get(),
+                commitLatencies
+        );
+    }
+
+    private static void commit(
+            JMSContext transactedContext,
+            LatencyStatistics commitLatencies,
+            ReplayCheckpoint checkpoint,
+            int segmentIndex,
+            long nextRecordNumber) {
+        long commitStart = System.nanoTime();
+        transactedContext.commit();
+        commitLatencies.record(System.nanoTime() - commitStart);
+
+        if (checkpoint != null) {
+            checkpoint.update(segmentIndex, nextRecordNumber);
+        }
+    }
+
+    private enum SendOutcome {
+        SENT, SKIPPED_EXPIRED, SKIPPED_OBJECT
+    }
+
+    /**
+     * Sends the archived message, unless it has expired or is an object message, whose body is not archived.
+     */
+    private static SendOutcome send(
+            ArchiveRecord archiveRecord,
+            JMSContext jmsContext,
+            JMSProducer jmsProducer,
+            Queue queue) {
+        if (archiveRecord.bodyType() == ArchiveRecord.BodyType.OBJECT) {
+            return SendOutcome.SKIPPED_OBJECT;
+        }
+        long timeToLive = 0;
+        if (archiveRecord.expiration() > 0) {
+            timeToLive = archiveRecord.expiration() - System.currentTimeMillis();
+            if (timeToLive <= 0) {
+                return SendOutcome.SKIPPED_EXPIRED;
+            }
+        }
+
+        try {
+            Message message = toMessage(archiveRecord, jmsContext);
+            jmsProducer
+                    .setPriority(archiveRecord.priority())
+                    .setDeliveryMode(archiveRecord.deliveryMode())
+                    .setTimeToLive(timeToLive)
+                    .send(queue, message);
+            return SendOutcome.SENT;
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    private static Message toMessage(ArchiveRecord archiveRecord, JMSContext jmsContext) throws JMSException {
+        Message message = switch (archiveRecord.bodyType()) {
+            case TEXT -> jmsContext.createTextMessage(archiveRecord.textBody());
+            case BYTES -> {
+                BytesMessage bytesMessage = jmsContext.createBytesMessage();
+                if (archiveRecord.bytesBody() != null) {
+                    bytesMessage.writeBytes(archiveRecord.bytesBody());
+                }
+                yield bytesMessage;
+            }
+            case MAP -> {
+                MapMessage mapMessage = jmsContext.createMapMessage();
+                for (Map.Entry<String, Object> entry : archiveRecord.mapBody().entrySet()) {
+                    mapMessage.setObject(entry.getKey(), entry.getValue());
+                }
+                yield mapMessage;
+            }
+            case STREAM -> {
+                StreamMessage streamMessage = jmsContext.createStreamMessage();
+                for (Object value : archiveRecord.streamBody()) {
+                    streamMessage.writeObject(value);
+                }
+                yield streamMessage;
+            }
+            // Object message bodies are not archived, so they are skipped before getting here
+            case OBJECT -> throw new IllegalArgumentException("Object messages cannot be replayed");
+            case NONE -> jmsContext.createMessage();
+        };
+
+        message.setJMSCorrelationID(archiveRecord.correlationId());
+        message.setJMSType(archiveRecord.jmsType());
+
+        for (Map.Entry<String, Object> property : archiveRecord.properties().entrySet()) {
+            String name = property.getKey();
+            boolean replayed = !name.startsWith("JMSX") &&
+                    (!name.startsWith("JMS_IBM_") || REPLAYED_IBM_PROPERTIES.contains(name));
+            if (replayed && property.getValue() != null) {
+                message.setObjectProperty(name, property.getValue());
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+/**
+ * Factory of {@link ReplayArchive} objects.
+ * <p>
+ * The first argument is the queue name, and the second one the archive directory. The optional third argument
+ * is the maximum number of messages per second, or "max" for no limit (the default). The optional fourth argument
+ * is the checkpoint file.
+ * <p>
+ * The number of messages per transaction and the number of producers are taken from config properties
+ * "replay.batch_size" (default 100) and "replay.producers" (default 1).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("ReplayArchive")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class ReplayArchiveFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    private static final String UNLIMITED_RATE = "max";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_PRODUCER_COUNT = 1;
+
+    @Inject
+    private Config config;
+
+    @Override
+    public ReplayArchive apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        Path archiveDirectory = Path.of(args.get(1));
+        OptionalDouble messagesPerSecond = (args.size() >= 3 && !args.get(2).equalsIgnoreCase(UNLIMITED_RATE)) ?
+                OptionalDouble.of(Double.parseDouble(args.get(2))) :
+                OptionalDouble.empty();
+        Optional<Path> checkpointFile = (args.size() >= 4) ? Optional.of(Path.of(args.get(3))) : Optional.empty();
+
+        int batchSize = config.getOptionalValue("replay.batch_size", Integer.class).orElse(DEFAULT_BATCH_SIZE);
+        int producerCount = config.getOptionalValue("replay.producers", Integer.class).orElse(DEFAULT_PRODUCER_COUNT);
+
+        return new ReplayArchive(queueName, archiveDirectory, batchSize, producerCount, messagesPerSecond, checkpointFile);
+    }
+}
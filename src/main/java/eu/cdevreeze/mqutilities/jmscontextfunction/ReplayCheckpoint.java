@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress checkpoint of an archive replay, holding per archive segment the number of the next record to replay.
+ * The checkpoint is stored as properties file, which is replaced atomically on each update, so an interrupted
+ * replay leaves a consistent checkpoint behind. The file also records the archive directory and its record count,
+ * so that a checkpoint cannot be applied to another archive by mistake.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class ReplayCheckpoint {
+
+    private static final String ARCHIVE_DIRECTORY_KEY = "archive.directory";
+    private static final String ARCHIVE_RECORD_COUNT_KEY = "archive.recordCount";
+
+    private final Path file;
+    private final Properties nextRecordNumbers;
+
+    private ReplayCheckpoint(Path file, Properties nextRecordNumbers) {
+        this.file = file;
+        this.nextRecordNumbers = nextRecordNumbers;
+    }
+
+    /**
+     * Loads the checkpoint of the given archive from the given file, returning an empty checkpoint if the file
+     * does not exist. An {@link IllegalArgumentException} is thrown if the checkpoint belongs to another archive,
+     * or to an archive with another record count.
+     */
+    static ReplayCheckpoint load(Path file, Path archiveDirectory, long archiveRecordCount) {
+        String directory = archiveDirectory.toAbsolutePath().normalize().toString();
+        String recordCount = String.valueOf(archiveRecordCount);
+
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Preconditions.checkArgument(
+                    directory.equals(properties.getProperty(ARCHIVE_DIRECTORY_KEY)) &&
+                            recordCount.equals(properties.getProperty(ARCHIVE_RECORD_COUNT_KEY)),
+                    String.format(
+                            "Checkpoint '%s' belongs to archive '%s' with %s records, not to archive '%s' with %s records",
+                            file,
+                            properties.getProperty(ARCHIVE_DIRECTORY_KEY),
+                            properties.getProperty(ARCHIVE_RECORD_COUNT_KEY),
+                            directory,
+                            recordCount
+                    )
+            );
+        } else {
+            properties.setProperty(ARCHIVE_DIRECTORY_KEY, directory);
+            properties.setProperty(ARCHIVE_RECORD_COUNT_KEY, recordCount);
+        }
+        return new ReplayCheckpoint(file, properties);
+    }
+
+    synchronized long nextRecordNumber(int segmentIndex, long defaultValue) {
+        String value = nextRecordNumbers.getProperty(key(segmentIndex));
+        return (value == null) ? defaultValue : Long.parseLong(value);
+    }
+
+    synchronized void update(int segmentIndex, long nextRecordNumber) {
+        nextRecordNumbers.setProperty(key(segmentIndex), String.valueOf(nextRecordNumber));
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            nextRecordNumbers.store(writer, "Archive replay checkpoint");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String key(int segmentIndex) {
+        return String.format("segment.%06d", segmentIndex);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunction;
+import jakarta.jms.*;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link JmsContextToJsonObjectFunction} that sends the content of a (potentially large) file as one message
+ * to a queue. Unlike {@link SendTextMessageFromFile}, the file is memory-mapped instead of read into a heap
+ * byte array, and the result only contains the size, CRC-32C checksum and JMS message ID instead of
+ * echoing the payload.
+ * <p>
+ * By default, the message is sent as {@link BytesMessage}, copying the mapped file into the message through
+ * one small reusable buffer. Alternatively, it can be sent as {@link TextMessage}, in which case the mapped
+ * file is decoded chunk by chunk into a {@link StringBuilder} presized from the file length. Since the JMS API
+ * requires the text as a String, the text is then copied once more.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class SendMessageFromLargeFile implements JmsContextToJsonObjectFunction {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_TEXT_CAPACITY = Integer.MAX_VALUE - 8;
+
+    public enum BodyType {
+        BYTES, TEXT;
+
+        public static BodyType parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown body type '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final Path file;
+    private final BodyType bodyType;
+    private final Charset charset;
+
+    public SendMessageFromLargeFile(String queueName, Path file, BodyType bodyType, Charset charset) {
+        this.queueName = queueName;
+        this.file = file;
+        this.bodyType = bodyType;
+        this.charset = charset;
+    }
+
+    @Override
+    public JsonObject apply(JMSContext jmsContext) {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            CRC32C checksum = new CRC32C();
+
+            Message message = switch (bodyType) {
+                case BYTES -> createBytesMessage(jmsContext, fileChannel, size, checksum);
+                case TEXT -> createTextMessage(jmsContext, fileChannel, size, checksum);
+            };
+
+            jmsContext.createProducer().send(jmsContext.createQueue(queueName), message);
+
+            return Json.createObjectBuilder()
+                    .add("queue", queueName)
+                    .add("file", file.toString())
+                    .add("bodyType", bodyType.toString().toLowerCase())
+                    .add("size", size)
+                    .add("crc32c", String.format("%08x", checksum.getValue()))
+                    .add("messageId", String.valueOf(message.getJMSMessageID()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    private BytesMessage createBytesMessage(JMSContext jmsContext, FileChannel fileChannel, long size, CRC32C checksum)
+            throws IOException, JMSException {
+        BytesMessage message = jmsContext.createBytesMessage();
+        byte[] chunk = new byte[CHUNK_SIZE];
+
+        // Map the file in regions, since one MappedByteBuffer cannot exceed 2 GB
+        for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+            MappedByteBuffer region = fileChannel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    position,
+                    Math.min(Integer.MAX_VALUE, size - position)
+            );
+
+            while (region.hasRemaining()) {
+                int length = Math.min(chunk.length, region.remaining());
+                region.get(chunk, 0, length);
+                checksum.update(chunk, 0, length);
+                message.writeBytes(chunk, 0, length);
+            }
+        }
+        return message;
+    }
+
+    private TextMessage createTextMessage(JMSContext jmsContext, FileChannel fileChannel, long size, CRC32C checksum)
+            throws IOException, JMSException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("File '%s' too large for a text message", file));
+        }
+        MappedByteBuffer mappedFile = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        checksum.update(mappedFile.duplicate());
+
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        StringBuilder text = new StringBuilder((int) Math.min(size * decoder.averageCharsPerByte(), MAX_TEXT_CAPACITY));
+        CharBuffer chunk = CharBuffer.allocate(CHUNK_SIZE);
+
+        // Decode chunk by chunk, so the only full-size copies are the StringBuilder and the resulting String
+        try {
+            CoderResult result;
+            do {
+                result = decoder.decode(mappedFile, chunk, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                appendChunk(chunk, text);
+            } while (result.isOverflow());
+
+            do {
+                result = decoder.flush(chunk);
+                appendChunk(chunk, text);
+            } while (result.isOverflow());
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return jmsContext.createTextMessage(text.toString());
+    }
+
+    private static void appendChunk(CharBuffer chunk, StringBuilder text) {
+        chunk.flip();
+        text.append(chunk);
+        chunk.clear();
+    }
+}
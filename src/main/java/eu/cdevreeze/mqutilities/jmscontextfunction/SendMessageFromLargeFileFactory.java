@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
+import eu.cdevreeze.mqutilities.JmsContextToJsonObjectFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Factory of {@link SendMessageFromLargeFile} objects.
+ * <p>
+ * The first two arguments are the queue name and file path. The optional third argument is the body type
+ * ("bytes" or "text", defaulting to "bytes"), and the optional fourth argument the charset of the file
+ * for body type "text" (defaulting to UTF-8).
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("SendMessageFromLargeFile")
+@Typed({JmsContextToJsonObjectFunctionFactory.class, JmsContextFunctionFactory.class})
+public class SendMessageFromLargeFileFactory implements JmsContextToJsonObjectFunctionFactory {
+
+    @Override
+    public SendMessageFromLargeFile apply(List<String> args) {
+        Objects.checkIndex(1, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        Path file = Path.of(Objects.requireNonNull(args.get(1)));
+        SendMessageFromLargeFile.BodyType bodyType = (args.size() >= 3) ?
+                SendMessageFromLargeFile.BodyType.parse(args.get(2)) :
+                SendMessageFromLargeFile.BodyType.BYTES;
+        Charset charset = (args.size() >= 4) ? Charset.forName(args.get(3)) : StandardCharsets.UTF_8;
+        return new SendMessageFromLargeFile(queueName, file, bodyType, charset);
+    }
+}
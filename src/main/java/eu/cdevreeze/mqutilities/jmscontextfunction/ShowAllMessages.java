@@ -19,7 +19,6 @@ package eu.cdevreeze.mqutilities.jmscontextfunction;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.mqutilities.JmsContextToElementFunction;
 import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
-import eu.cdevreeze.yaidom4j.dom.immutabledom.Node;
 import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
 import jakarta.jms.*;
 
@@ -30,7 +29,16 @@ import static eu.cdevreeze.yaidom4j.dom.immutabledom.Nodes.elem;
 
 /**
  * {@link JmsContextToElementFunction} that returns all (text) message payloads on the given queue, without
- * consuming any data. The text message payloads are returned as CDATA sections.
+ * consuming any data. The text message payloads are returned as CDATA sections, newest first.
+ * <p>
+ * The payloads of bytes, map and stream messages are returned as bounded previews (see {@link PayloadPreview}),
+ * also newest first, in a separate "otherMessagePayloads" element, which is left out if there are no such messages.
+ * Other message types are skipped.
+ * <p>
+ * Optionally, a JMS message selector is passed to the queue manager, so only matching messages are sent to
+ * the client. Optionally, the text payloads are subsequently filtered by a {@link PayloadFilter} on the client.
+ * Only the payloads of matching messages are kept in memory. A payload filter cannot be applied to previews, so
+ * if a payload filter is present, the previews of non-text payloads are left out altogether.
  * <p>
  * Instances are created by a dedicated factory object, and not by CDI injection.
  *
@@ -38,55 +46,92 @@ import static eu.cdevreeze.yaidom4j.dom.immutabledom.Nodes.elem;
  */
 public class ShowAllMessages implements JmsContextToElementFunction {
 
+    private record TimestampedText(long timestamp, String text) {
+    }
+
+    private record TimestampedElement(long timestamp, Element element) {
+    }
+
     private final String queueName;
+    private final Optional<String> messageSelector;
+    private final Optional<PayloadFilter> payloadFilter;
+    private final PayloadPreview payloadPreview;
 
-    public ShowAllMessages(String queueName) {
+    public ShowAllMessages(
+            String queueName,
+            Optional<String> messageSelector,
+            Optional<PayloadFilter> payloadFilter,
+            PayloadPreview payloadPreview) {
         this.queueName = queueName;
+        this.messageSelector = messageSelector;
+        this.payloadFilter = payloadFilter;
+        this.payloadPreview = payloadPreview;
+    }
+
+    public ShowAllMessages(String queueName, Optional<String> messageSelector, Optional<PayloadFilter> payloadFilter) {
+        this(queueName, messageSelector, payloadFilter, PayloadPreview.defaults());
+    }
+
+    public ShowAllMessages(String queueName) {
+        this(queueName, Optional.empty(), Optional.empty());
     }
 
     @Override
     public Element apply(JMSContext jmsContext) {
-        try (QueueBrowser queueBrowser = jmsContext.createBrowser(jmsContext.createQueue(queueName))) {
+        try (QueueBrowser queueBrowser =
+                     jmsContext.createBrowser(jmsContext.createQueue(queueName), messageSelector.orElse(null))) {
             @SuppressWarnings("unchecked")
-            List<Message> messages = Collections.list((Enumeration<Message>) queueBrowser.getEnumeration())
-                    .stream()
-                    .sorted(Comparator.comparingLong((Message m) -> {
-                        try {
-                            return m.getJMSTimestamp();
-                        } catch (JMSException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }).reversed())
-                    .toList();
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            List<TimestampedText> payloads = new ArrayList<>();
+            List<TimestampedElement> otherPayloads = new ArrayList<>();
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+
+                if (message instanceof TextMessage textMessage) {
+                    String text = textMessage.getText();
+                    if (payloadFilter.map(f -> f.test(text)).orElse(true)) {
+                        payloads.add(new TimestampedText(textMessage.getJMSTimestamp(), text));
+                    }
+                } else if (payloadFilter.isEmpty()) {
+                    Optional<Element> preview = payloadPreview.preview(message);
+                    if (preview.isPresent()) {
+                        otherPayloads.add(new TimestampedElement(message.getJMSTimestamp(), preview.get()));
+                    }
+                }
+            }
+            payloads.sort(Comparator.comparingLong(TimestampedText::timestamp).reversed());
+            otherPayloads.sort(Comparator.comparingLong(TimestampedElement::timestamp).reversed());
 
-            return elem(new QName("queueContent"))
-                    .plusChild(elem(new QName("queue")).plusText(queueName))
+            Element queueContent = elem(new QName("queueContent"))
+                    .plusChild(elem(new QName("queue")).plusText(queueName));
+            if (messageSelector.isPresent()) {
+                queueContent = queueContent.plusChild(elem(new QName("selector")).plusText(messageSelector.get()));
+            }
+            if (payloadFilter.isPresent()) {
+                queueContent = queueContent.plusChild(elem(new QName("filter")).plusText(payloadFilter.get().toString()));
+            }
+            queueContent = queueContent
                     .plusChild(
                             elem(new QName("textMessagePayloads"))
                                     .plusChildren(
-                                            messages.stream()
-                                                    .flatMap(msg ->
-                                                            extractOptionalTextPayload(msg).map(t ->
-                                                                            elem(new QName("textMessagePayload"))
-                                                                                    .plusChild(t)
-                                                                    )
-                                                                    .stream()
-                                                    )
+                                            payloads.stream()
+                                                    .map(p -> elem(new QName("textMessagePayload"))
+                                                            .plusChild(new Text(p.text(), true)))
                                                     .collect(ImmutableList.toImmutableList())
                                     )
                     );
-        } catch (JMSException e) {
-            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
-        }
-    }
-
-    private Optional<Node> extractOptionalTextPayload(Message message) {
-        try {
-            if (message instanceof TextMessage textMessage) {
-                return Optional.of(new Text(textMessage.getText(), true));
-            } else {
-                return Optional.empty();
+            if (!otherPayloads.isEmpty()) {
+                queueContent = queueContent.plusChild(
+                        elem(new QName("otherMessagePayloads"))
+                                .plusChildren(
+                                        otherPayloads.stream()
+                                                .map(TimestampedElement::element)
+                                                .collect(ImmutableList.toImmutableList())
+                                )
+                );
             }
+            return queueContent;
         } catch (JMSException e) {
             throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
         }
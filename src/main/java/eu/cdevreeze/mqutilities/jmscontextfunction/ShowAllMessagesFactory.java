@@ -20,13 +20,26 @@ import eu.cdevreeze.mqutilities.JmsContextFunctionFactory;
 import eu.cdevreeze.mqutilities.JmsContextToElementFunctionFactory;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import org.eclipse.microprofile.config.Config;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Factory of {@link ShowAllMessages} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is a JMS message selector, and the optional
+ * third argument is a {@link PayloadFilter} ("kind:expression"). A "-" leaves the corresponding optional
+ * argument unset.
+ * <p>
+ * Unless a payload filter is given, non-text payloads are previewed (see {@link PayloadPreview}) with the encoding
+ * of bytes taken from config property "show_messages.preview_encoding" ("base64" or "hex", default "base64"), the
+ * maximum number of bytes (or characters) per preview from config property "show_messages.preview_max_bytes"
+ * (default 1024), and the maximum number of map or stream message entries from config property
+ * "show_messages.preview_max_entries" (default 100).
  *
  * @author Chris de Vreeze
  */
@@ -35,10 +48,30 @@ import java.util.Objects;
 @Typed({JmsContextToElementFunctionFactory.class, JmsContextFunctionFactory.class})
 public class ShowAllMessagesFactory implements JmsContextToElementFunctionFactory {
 
+    @Inject
+    private Config config;
+
     @Override
     public ShowAllMessages apply(List<String> args) {
         Objects.checkIndex(0, args.size());
         String queueName = Objects.requireNonNull(args.get(0));
-        return new ShowAllMessages(queueName);
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 1);
+        Optional<PayloadFilter> payloadFilter = FactoryArgs.optionalArg(args, 2).map(PayloadFilter::parse);
+
+        PayloadPreview defaultPreview = PayloadPreview.defaults();
+        PayloadPreview.Encoding previewEncoding = config.getOptionalValue("show_messages.preview_encoding", String.class)
+                .map(PayloadPreview.Encoding::parse)
+                .orElse(defaultPreview.encoding());
+        int previewMaxBytes = config.getOptionalValue("show_messages.preview_max_bytes", Integer.class)
+                .orElse(defaultPreview.maxBytes());
+        int previewMaxEntries = config.getOptionalValue("show_messages.preview_max_entries", Integer.class)
+                .orElse(defaultPreview.maxEntries());
+
+        return new ShowAllMessages(
+                queueName,
+                messageSelector,
+                payloadFilter,
+                new PayloadPreview(previewEncoding, previewMaxBytes, previewMaxEntries)
+        );
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunction;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpoint;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpointPools;
+import jakarta.jms.*;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link JmsContextToXmlStreamFunction} that writes the (text) message payloads on a queue that exists on each of
+ * a group of queue managers (see {@link eu.cdevreeze.mqutilities.connection.MultiQueueManagerConnectionFactories}),
+ * without consuming any data, merged on ascending JMS timestamp.
+ * <p>
+ * The queue is browsed on all queue managers in parallel, each with a pooled {@link JMSContext} of that queue manager
+ * (see {@link QueueManagerEndpointPools}), so the connections are reused across calls. Each browser feeds
+ * a small bounded buffer. The buffers are merged with a k-way merge on the timestamps of their heads, so payloads are
+ * written as soon as they are known to be next, and memory usage stays flat regardless of the queue depths.
+ * The merge assumes that the browse order of each queue is its timestamp order, which holds for FIFO queues
+ * with messages of a single priority.
+ * <p>
+ * The {@link JMSContext} passed to this function is not used. If browsing fails on any of the queue managers,
+ * the function fails.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class StreamAllClusterMessages implements JmsContextToXmlStreamFunction {
+
+    private static final int BUFFER_SIZE = 1000;
+
+    /**
+     * Browsed text message, or the end of the browsed messages of a queue manager, or a browsing failure.
+     */
+    private record BrowsedItem(long timestamp, String text, boolean last, RuntimeException failure) {
+
+        static final BrowsedItem LAST = new BrowsedItem(0, null, true, null);
+    }
+
+    private record Head(BrowsedItem item, int endpointIndex) {
+    }
+
+    private final QueueManagerEndpointPools endpointPools;
+    private final ImmutableList<QueueManagerEndpoint> endpoints;
+    private final String queueName;
+    private final Optional<String> messageSelector;
+    private final OptionalLong maxMessageCount;
+
+    public StreamAllClusterMessages(
+            QueueManagerEndpointPools endpointPools,
+            String queueName,
+            Optional<String> messageSelector,
+            OptionalLong maxMessageCount) {
+        Preconditions.checkArgument(!endpointPools.endpoints().isEmpty(), "Expected at least one queue manager endpoint");
+        this.endpointPools = endpointPools;
+        this.endpoints = endpointPools.endpoints();
+        this.queueName = queueName;
+        this.messageSelector = messageSelector;
+        this.maxMessageCount = maxMessageCount;
+    }
+
+    @Override
+    public void accept(JMSContext jmsContext, XMLStreamWriter xmlStreamWriter) {
+        List<BlockingQueue<BrowsedItem>> buffers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(endpoints.size());
+        try {
+            for (QueueManagerEndpoint endpoint : endpoints) {
+                BlockingQueue<BrowsedItem> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+                buffers.add(buffer);
+                executor.execute(() -> browse(endpoint, buffer));
+            }
+
+            xmlStreamWriter.writeStartElement("queueContent");
+            xmlStreamWriter.writeStartElement("queue");
+            xmlStreamWriter.writeCharacters(queueName);
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeStartElement("queueManagers");
+            for (QueueManagerEndpoint endpoint : endpoints) {
+                xmlStreamWriter.writeStartElement("queueManager");
+                xmlStreamWriter.writeCharacters(endpoint.queueManagerName());
+                xmlStreamWriter.writeEndElement();
+            }
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeStartElement("textMessagePayloads");
+
+            merge(buffers, xmlStreamWriter);
+
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeEndElement();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // Stops the browsers that are still running, if any
+            executor.shutdownNow();
+        }
+    }
+
+    private void merge(List<BlockingQueue<BrowsedItem>> buffers, XMLStreamWriter xmlStreamWriter)
+            throws InterruptedException, XMLStreamException {
+        PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparingLong((Head h) -> h.item().timestamp()).thenComparingInt(Head::endpointIndex)
+        );
+        for (int i = 0; i < buffers.size(); i++) {
+            takeNext(buffers, i, heads);
+        }
+
+        long limit = maxMessageCount.orElse(Long.MAX_VALUE);
+        long count = 0;
+
+        while (count < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+
+            xmlStreamWriter.writeStartElement("textMessagePayload");
+            xmlStreamWriter.writeAttribute("queueManager", endpoints.get(head.endpointIndex()).queueManagerName());
+            xmlStreamWriter.writeAttribute("timestamp", String.valueOf(head.item().timestamp()));
+            StreamAllMessages.writeCData(head.item().text(), xmlStreamWriter);
+            xmlStreamWriter.writeEndElement();
+            count += 1;
+
+            takeNext(buffers, head.endpointIndex(), heads);
+        }
+    }
+
+    private static void takeNext(List<BlockingQueue<BrowsedItem>> buffers, int endpointIndex, PriorityQueue<Head> heads)
+            throws InterruptedException {
+        BrowsedItem item = buffers.get(endpointIndex).take();
+
+        if (item.failure() != null) {
+            throw item.failure();
+        }
+        if (!item.last()) {
+            heads.add(new Head(item, endpointIndex));
+        }
+    }
+
+    private void browse(QueueManagerEndpoint endpoint, BlockingQueue<BrowsedItem> buffer) {
+        BrowsedItem lastItem = BrowsedItem.LAST;
+        try {
+            endpointPools.pool(endpoint).apply(endpointContext -> {
+                browse(endpointContext, buffer);
+                return null;
+            });
+        } catch (CancellationException e) {
+            // The merge has stopped, so nobody is waiting for more items
+            return;
+        } catch (RuntimeException e) {
+            lastItem = failure(endpoint, e);
+        }
+
+        try {
+            buffer.put(lastItem);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void browse(JMSContext endpointContext, BlockingQueue<BrowsedItem> buffer) {
+        try (QueueBrowser queueBrowser = endpointContext.createBrowser(
+                endpointContext.createQueue(queueName),
+                messageSelector.orElse(null))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+
+                if (message instanceof TextMessage textMessage) {
+                    buffer.put(new BrowsedItem(textMessage.getJMSTimestamp(), textMessage.getText(), false, null));
+                }
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        } catch (InterruptedException e) {
+            // Fails the pooled function, so that the context is discarded rather than reused
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Browsing stopped");
+        }
+    }
+
+    private static BrowsedItem failure(QueueManagerEndpoint endpoint, RuntimeException e) {
+        return new BrowsedItem(
+                0,
+                null,
+                true,
+                new RuntimeException(String.format("Browsing failed on queue manager %s", endpoint.queueManagerName()), e)
+        );
+    }
+}
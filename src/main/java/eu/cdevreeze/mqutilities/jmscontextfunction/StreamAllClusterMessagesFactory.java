@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunctionFactory;
+import eu.cdevreeze.mqutilities.connection.QueueManagerEndpointPools;
+import eu.cdevreeze.mqutilities.qualifier.connection.ConnectionType;
+import eu.cdevreeze.mqutilities.qualifier.connection.HasConnectionType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Factory of {@link StreamAllClusterMessages} objects. The queue manager endpoints are those of connection type
+ * "MULTI_QUEUE_MANAGER".
+ * <p>
+ * The first argument is the queue name. The optional second argument is the maximum message count, and the optional
+ * third argument is the message selector. A "-" leaves the corresponding optional argument unset.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("StreamAllClusterMessages")
+@Typed({JmsContextToXmlStreamFunctionFactory.class})
+public class StreamAllClusterMessagesFactory implements JmsContextToXmlStreamFunctionFactory {
+
+    @Inject
+    @HasConnectionType(ConnectionType.MULTI_QUEUE_MANAGER)
+    private QueueManagerEndpointPools endpointPools;
+
+    @Override
+    public StreamAllClusterMessages apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        OptionalLong maxMessageCount = FactoryArgs.optionalArg(args, 1).stream().mapToLong(Long::parseLong).findFirst();
+        Optional<String> messageSelector = FactoryArgs.optionalArg(args, 2);
+        return new StreamAllClusterMessages(endpointPools, queueName, messageSelector, maxMessageCount);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunction;
+import jakarta.jms.*;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.OptionalInt;
+
+/**
+ * {@link JmsContextToXmlStreamFunction} that writes all (text) message payloads on the given queue, without
+ * consuming any data. The text message payloads are written as CDATA sections. The output has the same format
+ * as the output of {@link ShowAllMessages}, but the queue browser enumeration is walked only once, and
+ * each payload is written as soon as possible, so memory usage stays flat even for very deep queues.
+ * <p>
+ * By default, the payloads are written in browse order. If newest-first order is requested, the payloads
+ * are sorted on descending JMS timestamp by a {@link NewestFirstTextPayloadSorter}. If a maximum message count
+ * is given as well, only that many payloads are retained in memory; otherwise sorted runs are spilled
+ * to temporary files.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class StreamAllMessages implements JmsContextToXmlStreamFunction {
+
+    private static final int RUN_SIZE = 10_000;
+
+    public enum Order {
+        BROWSE_ORDER, NEWEST_FIRST;
+
+        public static Order parse(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.toString().replace('_', '-').equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Unknown order '%s', expected one of %s",
+                            s,
+                            Arrays.stream(values()).map(v -> v.toString().replace('_', '-').toLowerCase()).toList()
+                    )));
+        }
+    }
+
+    private final String queueName;
+    private final Order order;
+    private final OptionalInt maxMessageCount;
+
+    public StreamAllMessages(String queueName, Order order, OptionalInt maxMessageCount) {
+        this.queueName = queueName;
+        this.order = order;
+        this.maxMessageCount = maxMessageCount;
+    }
+
+    @Override
+    public void accept(JMSContext jmsContext, XMLStreamWriter xmlStreamWriter) {
+        try (QueueBrowser queueBrowser = jmsContext.createBrowser(jmsContext.createQueue(queueName))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            xmlStreamWriter.writeStartElement("queueContent");
+            xmlStreamWriter.writeStartElement("queue");
+            xmlStreamWriter.writeCharacters(queueName);
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeStartElement("textMessagePayloads");
+
+            if (order == Order.BROWSE_ORDER) {
+                writeInBrowseOrder(messages, xmlStreamWriter);
+            } else {
+                writeNewestFirst(messages, xmlStreamWriter);
+            }
+
+            xmlStreamWriter.writeEndElement();
+            xmlStreamWriter.writeEndElement();
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeInBrowseOrder(Enumeration<Message> messages, XMLStreamWriter xmlStreamWriter)
+            throws JMSException, XMLStreamException {
+        int limit = maxMessageCount.orElse(Integer.MAX_VALUE);
+        int count = 0;
+
+        while (count < limit && messages.hasMoreElements()) {
+            Message message = messages.nextElement();
+
+            if (message instanceof TextMessage textMessage) {
+                writeTextMessagePayload(textMessage.getText(), xmlStreamWriter);
+                count += 1;
+            }
+        }
+    }
+
+    private void writeNewestFirst(Enumeration<Message> messages, XMLStreamWriter xmlStreamWriter)
+            throws JMSException {
+        try (NewestFirstTextPayloadSorter sorter = maxMessageCount.isPresent() ?
+                NewestFirstTextPayloadSorter.bounded(maxMessageCount.getAsInt()) :
+                NewestFirstTextPayloadSorter.spilling(RUN_SIZE)) {
+
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+
+                if (message instanceof TextMessage textMessage) {
+                    sorter.add(textMessage.getJMSTimestamp(), textMessage.getText());
+                }
+            }
+
+            sorter.forEachNewestFirst(text -> {
+                try {
+                    writeTextMessagePayload(text, xmlStreamWriter);
+                } catch (XMLStreamException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    private static void writeTextMessagePayload(String text, XMLStreamWriter xmlStreamWriter)
+            throws XMLStreamException {
+        xmlStreamWriter.writeStartElement("textMessagePayload");
+        writeCData(text, xmlStreamWriter);
+        xmlStreamWriter.writeEndElement();
+    }
+
+    /**
+     * Writes the given text as CDATA, splitting it over multiple CDATA sections if needed.
+     */
+    static void writeCData(String text, XMLStreamWriter xmlStreamWriter) throws XMLStreamException {
+        if (text == null) {
+            // A text message without body, written as an empty element
+            return;
+        }
+        // A CDATA section cannot contain "]]>", so split it over multiple CDATA sections if needed
+        int start = 0;
+        int idx = text.indexOf("]]>");
+        while (idx >= 0) {
+            xmlStreamWriter.writeCData(text.substring(start, idx + 2));
+            start = idx + 2;
+            idx = text.indexOf("]]>", start);
+        }
+        xmlStreamWriter.writeCData(text.substring(start));
+    }
+}
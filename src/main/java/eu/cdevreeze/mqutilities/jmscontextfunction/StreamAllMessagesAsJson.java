@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextToJsonStreamFunction;
+import jakarta.jms.*;
+import jakarta.json.stream.JsonGenerator;
+
+import java.util.Enumeration;
+import java.util.OptionalInt;
+
+/**
+ * {@link JmsContextToJsonStreamFunction} that writes all (text) message payloads on the given queue, without
+ * consuming any data. It is the JSON counterpart of {@link StreamAllMessages}: the queue browser enumeration is
+ * walked only once, and each payload is written as soon as possible, so memory usage stays flat even for very
+ * deep queues. The output is a JSON object with members "queue" and "textMessagePayloads". Text messages
+ * without body have a null payload.
+ * <p>
+ * Like for {@link StreamAllMessages}, the payloads are written in browse order or newest first.
+ * <p>
+ * Instances are created by a dedicated factory object, and not by CDI injection.
+ *
+ * @author Chris de Vreeze
+ */
+public class StreamAllMessagesAsJson implements JmsContextToJsonStreamFunction {
+
+    private static final int RUN_SIZE = 10_000;
+
+    private final String queueName;
+    private final StreamAllMessages.Order order;
+    private final OptionalInt maxMessageCount;
+
+    public StreamAllMessagesAsJson(String queueName, StreamAllMessages.Order order, OptionalInt maxMessageCount) {
+        this.queueName = queueName;
+        this.order = order;
+        this.maxMessageCount = maxMessageCount;
+    }
+
+    @Override
+    public void accept(JMSContext jmsContext, JsonGenerator jsonGenerator) {
+        try (QueueBrowser queueBrowser = jmsContext.createBrowser(jmsContext.createQueue(queueName))) {
+            @SuppressWarnings("unchecked")
+            Enumeration<Message> messages = (Enumeration<Message>) queueBrowser.getEnumeration();
+
+            jsonGenerator.writeStartObject();
+            jsonGenerator.write("queue", queueName);
+            jsonGenerator.writeStartArray("textMessagePayloads");
+
+            if (order == StreamAllMessages.Order.BROWSE_ORDER) {
+                writeInBrowseOrder(messages, jsonGenerator);
+            } else {
+                writeNewestFirst(messages, jsonGenerator);
+            }
+
+            jsonGenerator.writeEnd();
+            jsonGenerator.writeEnd();
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    private void writeInBrowseOrder(Enumeration<Message> messages, JsonGenerator jsonGenerator) throws JMSException {
+        int limit = maxMessageCount.orElse(Integer.MAX_VALUE);
+        int count = 0;
+
+        while (count < limit && messages.hasMoreElements()) {
+            Message message = messages.nextElement();
+
+            if (message instanceof TextMessage textMessage) {
+                writeText(textMessage.getText(), jsonGenerator);
+                count += 1;
+            }
+        }
+    }
+
+    private void writeNewestFirst(Enumeration<Message> messages, JsonGenerator jsonGenerator) throws JMSException {
+        try (NewestFirstTextPayloadSorter sorter = maxMessageCount.isPresent() ?
+                NewestFirstTextPayloadSorter.bounded(maxMessageCount.getAsInt()) :
+                NewestFirstTextPayloadSorter.spilling(RUN_SIZE)) {
+
+            while (messages.hasMoreElements()) {
+                Message message = messages.nextElement();
+
+                if (message instanceof TextMessage textMessage) {
+                    sorter.add(textMessage.getJMSTimestamp(), textMessage.getText());
+                }
+            }
+
+            sorter.forEachNewestFirst(text -> writeText(text, jsonGenerator));
+        }
+    }
+
+    private static void writeText(String text, JsonGenerator jsonGenerator) {
+        // A text message without body is written as JSON null, so the payloads still match the messages
+        if (text == null) {
+            jsonGenerator.writeNull();
+        } else {
+            jsonGenerator.write(text);
+        }
+    }
+}
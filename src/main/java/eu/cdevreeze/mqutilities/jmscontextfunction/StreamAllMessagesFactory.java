@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import eu.cdevreeze.mqutilities.JmsContextToXmlStreamFunctionFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Named;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalInt;
+
+/**
+ * Factory of {@link StreamAllMessages} objects.
+ * <p>
+ * The first argument is the queue name. The optional second argument is the order ("browse-order" or
+ * "newest-first", defaulting to "browse-order"). The optional third argument is the maximum message count.
+ *
+ * @author Chris de Vreeze
+ */
+@ApplicationScoped
+@Named("StreamAllMessages")
+@Typed({JmsContextToXmlStreamFunctionFactory.class})
+public class StreamAllMessagesFactory implements JmsContextToXmlStreamFunctionFactory {
+
+    @Override
+    public StreamAllMessages apply(List<String> args) {
+        Objects.checkIndex(0, args.size());
+        String queueName = Objects.requireNonNull(args.get(0));
+        StreamAllMessages.Order order =
+                (args.size() >= 2) ? StreamAllMessages.Order.parse(args.get(1)) : StreamAllMessages.Order.BROWSE_ORDER;
+        OptionalInt maxMessageCount =
+                (args.size() >= 3) ? OptionalInt.of(Integer.parseInt(args.get(2))) : OptionalInt.empty();
+        return new StreamAllMessages(queueName, order, maxMessageCount);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate counter of the most frequent items in a stream, in constant memory. Item frequencies are
+ * estimated with a count-min sketch (which may overestimate, but never underestimates), and only the
+ * K items with the highest estimates seen so far are retained.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class TopKCounter {
+
+    record ItemCount(String item, long estimatedCount) {
+    }
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final int k;
+    private final int width;
+    private final long[][] sketch;
+    private final Map<String, Long> topItems = new HashMap<>();
+
+    TopKCounter(int k, int width, int depth) {
+        Preconditions.checkArgument(k > 0 && width > 0 && depth > 0, "Expected positive parameters");
+        this.k = k;
+        this.width = width;
+        this.sketch = new long[depth][width];
+    }
+
+    TopKCounter(int k) {
+        this(k, 4096, 4);
+    }
+
+    void add(String item) {
+        ByteBuffer hashBytes = ByteBuffer.wrap(HASH_FUNCTION.hashString(item, StandardCharsets.UTF_8).asBytes());
+        long hash1 = hashBytes.getLong();
+        long hash2 = hashBytes.getLong();
+
+        // Derive the row hashes from two hashes (Kirsch-Mitzenmacher)
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            int column = (int) Math.floorMod(hash1 + row * hash2, (long) width);
+            sketch[row][column] += 1;
+            estimate = Math.min(estimate, sketch[row][column]);
+        }
+
+        if (topItems.containsKey(item) || topItems.size() < k) {
+            topItems.put(item, estimate);
+        } else {
+            Map.Entry<String, Long> smallest =
+                    topItems.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+            if (estimate > smallest.getValue()) {
+                topItems.remove(smallest.getKey());
+                topItems.put(item, estimate);
+            }
+        }
+    }
+
+    /**
+     * Returns the retained items, most frequent first.
+     */
+    List<ItemCount> topItems() {
+        return topItems.entrySet().stream()
+                .map(kv -> new ItemCount(kv.getKey(), kv.getValue()))
+                .sorted(Comparator.comparingLong(ItemCount::estimatedCount).reversed()
+                        .thenComparing(ItemCount::item))
+                .toList();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import jakarta.jms.JMSContext;
+
+/**
+ * Support for the transacted {@link JMSContext} objects used by the functions that send or consume in batches.
+ *
+ * @author Chris de Vreeze
+ */
+final class TransactedContexts {
+
+    private TransactedContexts() {
+    }
+
+    /**
+     * Rolls back the current transaction of the given context after the given failure. If the rollback fails
+     * as well (typically because the connection is broken), that exception is added as suppressed exception
+     * to the failure, so the failure that caused the rollback is the one that is reported.
+     */
+    static void rollback(JMSContext transactedContext, Throwable failure) {
+        try {
+            transactedContext.rollback();
+        } catch (RuntimeException rollbackFailure) {
+            failure.addSuppressed(rollbackFailure);
+        }
+    }
+}
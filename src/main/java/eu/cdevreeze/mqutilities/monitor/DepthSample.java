@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.monitor;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+/**
+ * One depth sample of a queue. The net rate is the change in depth per second since the previous sample. The
+ * enqueue and dequeue rates are only known if queue statistics are sampled as well. Unknown rates are NaN.
+ *
+ * @author Chris de Vreeze
+ */
+public record DepthSample(
+        String queueName,
+        long timestampMillis,
+        int depth,
+        double netRatePerSecond,
+        double enqueueRatePerSecond,
+        double dequeueRatePerSecond) {
+
+    public JsonObject toJsonObject() {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("queue", queueName)
+                .add("timestamp", timestampMillis)
+                .add("depth", depth);
+        addIfKnown(builder, "netRatePerSecond", netRatePerSecond);
+        addIfKnown(builder, "enqueueRatePerSecond", enqueueRatePerSecond);
+        addIfKnown(builder, "dequeueRatePerSecond", dequeueRatePerSecond);
+        return builder.build();
+    }
+
+    private static void addIfKnown(JsonObjectBuilder builder, String name, double value) {
+        if (!Double.isNaN(value)) {
+            builder.add(name, value);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.monitor;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Optional;
+
+/**
+ * Fixed-size ring buffer of the most recent {@link DepthSample} instances of one queue. When the buffer is full,
+ * each new sample overwrites the oldest one, so memory use stays constant however long the monitor runs.
+ * <p>
+ * Instances are thread-safe, so samples can be added by the sampling thread while they are being exported.
+ *
+ * @author Chris de Vreeze
+ */
+public final class DepthSampleRing {
+
+    private final DepthSample[] samples;
+    private long sampleCount;
+
+    public DepthSampleRing(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Expected a positive capacity");
+        this.samples = new DepthSample[capacity];
+    }
+
+    public synchronized void add(DepthSample sample) {
+        samples[(int) (sampleCount % samples.length)] = sample;
+        sampleCount += 1;
+    }
+
+    /**
+     * Returns the total number of samples added, including those that have been overwritten.
+     */
+    public synchronized long sampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized Optional<DepthSample> latest() {
+        return (sampleCount == 0) ? Optional.empty() : Optional.of(samples[(int) ((sampleCount - 1) % samples.length)]);
+    }
+
+    /**
+     * Returns the retained samples, oldest first.
+     */
+    public synchronized ImmutableList<DepthSample> snapshot() {
+        long first = Math.max(0, sampleCount - samples.length);
+        ImmutableList.Builder<DepthSample> result = ImmutableList.builder();
+        for (long i = first; i < sampleCount; i++) {
+            result.add(samples[(int) (i % samples.length)]);
+        }
+        return result.build();
+    }
+}
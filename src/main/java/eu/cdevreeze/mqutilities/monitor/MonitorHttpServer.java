@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.monitor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Local HTTP endpoint exporting the samples held in {@link DepthSampleRing} instances, keyed by queue name.
+ * Path "/metrics" returns the latest sample of each queue in Prometheus text format, and path "/samples" returns
+ * all retained samples as newline-delimited JSON, oldest first per queue. The latter can be restricted to one queue
+ * with query string "queue=QUEUE.NAME".
+ * <p>
+ * The server uses the JDK built-in HTTP server, with a single handler thread.
+ *
+ * @author Chris de Vreeze
+ */
+public final class MonitorHttpServer implements Closeable {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final SortedMap<String, DepthSampleRing> rings;
+
+    /**
+     * Starts the server on the given address. The rings map must be safe for concurrent access.
+     */
+    public MonitorHttpServer(InetSocketAddress address, SortedMap<String, DepthSampleRing> rings) {
+        this.rings = rings;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "monitor-http-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.httpServer = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            executor.shutdownNow();
+            throw new UncheckedIOException(e);
+        }
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/metrics", exchange -> respond(exchange, PROMETHEUS_CONTENT_TYPE, this::writeMetrics));
+        httpServer.createContext("/samples", exchange -> respond(exchange, NDJSON_CONTENT_TYPE, w -> writeSamples(
+                w,
+                Optional.ofNullable(exchange.getRequestURI().getQuery())
+                        .filter(q -> q.startsWith("queue="))
+                        .map(q -> q.substring("queue=".length()))
+        )));
+        httpServer.start();
+    }
+
+    public InetSocketAddress address() {
+        return httpServer.getAddress();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface BodyWriter {
+
+        void write(Writer writer) throws IOException;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, BodyWriter bodyWriter) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringWriter body = new StringWriter();
+            bodyWriter.write(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, (bytes.length == 0) ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+        }
+    }
+
+    private void writeMetrics(Writer writer) throws IOException {
+        Map<String, DepthSample> latestSamples = new TreeMap<>();
+        rings.forEach((queueName, ring) -> ring.latest().ifPresent(s -> latestSamples.put(queueName, s)));
+
+        writeMetric(writer, latestSamples, "mq_queue_depth", "Current depth of the queue.", DepthSample::depth);
+        writeMetric(writer, latestSamples, "mq_queue_net_rate_per_second",
+                "Change in queue depth per second since the previous sample.", DepthSample::netRatePerSecond);
+        writeMetric(writer, latestSamples, "mq_queue_enqueue_rate_per_second",
+                "Messages put on the queue per second.", DepthSample::enqueueRatePerSecond);
+        writeMetric(writer, latestSamples, "mq_queue_dequeue_rate_per_second",
+                "Messages removed from the queue per second.", DepthSample::dequeueRatePerSecond);
+    }
+
+    private static void writeMetric(
+            Writer writer,
+            Map<String, DepthSample> latestSamples,
+            String metricName,
+            String help,
+            ToDoubleFunction<DepthSample> sampleValue) throws IOException {
+        boolean headerWritten = false;
+        for (Map.Entry<String, DepthSample> entry : latestSamples.entrySet()) {
+            double value = sampleValue.applyAsDouble(entry.getValue());
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (!headerWritten) {
+                writer.write(String.format("# HELP %s %s%n# TYPE %s gauge%n", metricName, help, metricName));
+                headerWritten = true;
+            }
+            writer.write(String.format(
+                    "%s{queue=\"%s\"} %s %d%n",
+                    metricName,
+                    escapeLabelValue(entry.getKey()),
+                    (value == Math.rint(value)) ? String.valueOf((long) value) : String.valueOf(value),
+                    entry.getValue().timestampMillis()
+            ));
+        }
+    }
+
+    private void writeSamples(Writer writer, Optional<String> queueName) throws IOException {
+        for (Map.Entry<String, DepthSampleRing> entry : rings.entrySet()) {
+            if (queueName.isPresent() && !queueName.get().equals(entry.getKey())) {
+                continue;
+            }
+            for (DepthSample sample : entry.getValue().snapshot()) {
+                writer.write(sample.toJsonObject().toString());
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
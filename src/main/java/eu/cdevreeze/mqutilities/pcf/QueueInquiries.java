@@ -0,0 +1,271 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.pcf;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.io.LittleEndianDataInputStream;
+import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.headers.MQDataException;
+import com.ibm.mq.headers.pcf.PCFException;
+import com.ibm.mq.headers.pcf.PCFMessage;
+import com.ibm.msg.client.jakarta.wmq.WMQConstants;
+import jakarta.jms.*;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Queue inquiries, using PCF commands sent over JMS to the command server of the IBM MQ queue manager.
+ * Unlike browsing a queue, inquiring about its current depth takes constant time and memory, regardless
+ * of the number of messages on the queue.
+ * <p>
+ * The PCF command messages are sent as MQ (non-JMS) messages to queue SYSTEM.ADMIN.COMMAND.QUEUE, and the
+ * replies are received on a temporary queue. This requires the connecting user to be authorized to
+ * send PCF commands and to create temporary queues. A {@link JMSRuntimeException} is thrown if the
+ * inquiry fails for whatever reason, including the use of a JMS provider other than IBM MQ.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QueueInquiries {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String COMMAND_QUEUE_URI = "queue:///SYSTEM.ADMIN.COMMAND.QUEUE?targetClient=1";
+
+    private QueueInquiries() {
+    }
+
+    /**
+     * Returns the current depth of the given local queue.
+     */
+    public static int inquireCurrentDepth(JMSContext jmsContext, String queueName, Duration timeout) {
+        SortedMap<String, Integer> depths = inquireCurrentDepths(jmsContext, queueName, timeout);
+        Integer depth = depths.get(queueName);
+
+        if (depth == null) {
+            throw new JMSRuntimeException(
+                    String.format("No current depth returned for queue '%s'", queueName),
+                    String.valueOf(MQConstants.MQRC_UNKNOWN_OBJECT_NAME)
+            );
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the current depths of the local queues matching the given queue name, which may be a generic
+     * name ending with an asterisk (e.g. "DEV.*"). The result is sorted on queue name. For a generic name
+     * not matching any local queue, the result is empty.
+     */
+    public static SortedMap<String, Integer> inquireCurrentDepths(
+            JMSContext jmsContext,
+            String queueNameOrGenericName,
+            Duration timeout) {
+        PCFMessage request = new PCFMessage(MQConstants.MQCMD_INQUIRE_Q);
+        request.addParameter(MQConstants.MQCA_Q_NAME, queueNameOrGenericName);
+        request.addParameter(MQConstants.MQIA_Q_TYPE, MQConstants.MQQT_LOCAL);
+        request.addParameter(
+                MQConstants.MQIACF_Q_ATTRS,
+                new int[]{MQConstants.MQCA_Q_NAME, MQConstants.MQIA_CURRENT_Q_DEPTH}
+        );
+
+        List<PCFMessage> responses;
+        try {
+            responses = sendCommand(jmsContext, request, timeout);
+        } catch (JMSRuntimeException e) {
+            if (isGenericName(queueNameOrGenericName) &&
+                    String.valueOf(MQConstants.MQRC_UNKNOWN_OBJECT_NAME).equals(e.getErrorCode())) {
+                // No queue matches the generic name
+                return ImmutableSortedMap.of();
+            }
+            throw e;
+        }
+
+        try {
+            ImmutableSortedMap.Builder<String, Integer> result = ImmutableSortedMap.naturalOrder();
+            for (PCFMessage response : responses) {
+                result.put(
+                        response.getStringParameterValue(MQConstants.MQCA_Q_NAME).trim(),
+                        response.getIntParameterValue(MQConstants.MQIA_CURRENT_Q_DEPTH)
+                );
+            }
+            return result.build();
+        } catch (PCFException e) {
+            throw new JMSRuntimeException(e.getMessage(), String.valueOf(e.getReason()), e);
+        }
+    }
+
+    /**
+     * Enqueue and dequeue counts of a local queue since the previous statistics reset, as returned by
+     * {@link #resetQueueStatistics(JMSContext, String, Duration)}.
+     */
+    public record MessageFlowCounts(int enqueueCount, int dequeueCount, int highQueueDepth, int secondsSinceReset) {
+    }
+
+    /**
+     * Resets the statistics of the local queues matching the given queue name, which may be a generic name ending
+     * with an asterisk, returning the statistics since the previous reset. The result is sorted on queue name.
+     * For a generic name not matching any local queue, the result is empty.
+     * <p>
+     * Note that resetting queue statistics affects any other tool relying on them, and that it requires
+     * the queue manager to have performance events enabled.
+     */
+    public static SortedMap<String, MessageFlowCounts> resetQueueStatistics(
+            JMSContext jmsContext,
+            String queueNameOrGenericName,
+            Duration timeout) {
+        PCFMessage request = new PCFMessage(MQConstants.MQCMD_RESET_Q_STATS);
+        request.addParameter(MQConstants.MQCA_Q_NAME, queueNameOrGenericName);
+
+        List<PCFMessage> responses;
+        try {
+            responses = sendCommand(jmsContext, request, timeout);
+        } catch (JMSRuntimeException e) {
+            if (isGenericName(queueNameOrGenericName) &&
+                    String.valueOf(MQConstants.MQRC_UNKNOWN_OBJECT_NAME).equals(e.getErrorCode())) {
+                // No queue matches the generic name
+                return ImmutableSortedMap.of();
+            }
+            throw e;
+        }
+
+        try {
+            ImmutableSortedMap.Builder<String, MessageFlowCounts> result = ImmutableSortedMap.naturalOrder();
+            for (PCFMessage response : responses) {
+                result.put(
+                        response.getStringParameterValue(MQConstants.MQCA_Q_NAME).trim(),
+                        new MessageFlowCounts(
+                                response.getIntParameterValue(MQConstants.MQIA_MSG_ENQ_COUNT),
+                                response.getIntParameterValue(MQConstants.MQIA_MSG_DEQ_COUNT),
+                                response.getIntParameterValue(MQConstants.MQIA_HIGH_Q_DEPTH),
+                                response.getIntParameterValue(MQConstants.MQIA_TIME_SINCE_RESET)
+                        )
+                );
+            }
+            return result.build();
+        } catch (PCFException e) {
+            throw new JMSRuntimeException(e.getMessage(), String.valueOf(e.getReason()), e);
+        }
+    }
+
+    /**
+     * Returns true if the given queue name is a generic name, ending with an asterisk.
+     */
+    public static boolean isGenericName(String queueName) {
+        return queueName.endsWith("*");
+    }
+
+    /**
+     * Sends the given PCF command, and returns all responses to it. Throws an exception if the command
+     * failed or if no (complete) response has been received within the given timeout.
+     */
+    public static List<PCFMessage> sendCommand(JMSContext jmsContext, PCFMessage request, Duration timeout) {
+        try {
+            TemporaryQueue replyQueue = jmsContext.createTemporaryQueue();
+
+            try (JMSConsumer consumer = jmsContext.createConsumer(replyQueue)) {
+                BytesMessage requestMessage = jmsContext.createBytesMessage();
+                requestMessage.writeBytes(toBytes(request));
+                requestMessage.setJMSReplyTo(replyQueue);
+                requestMessage.setStringProperty(WMQConstants.JMS_IBM_FORMAT, MQConstants.MQFMT_ADMIN);
+                requestMessage.setIntProperty(WMQConstants.JMS_IBM_MSGTYPE, MQConstants.MQMT_REQUEST);
+                requestMessage.setIntProperty(
+                        WMQConstants.JMS_IBM_ENCODING,
+                        MQConstants.MQENC_INTEGER_NORMAL | MQConstants.MQENC_DECIMAL_NORMAL | MQConstants.MQENC_FLOAT_IEEE_NORMAL
+                );
+
+                jmsContext.createProducer()
+                        .setTimeToLive(timeout.toMillis())
+                        .send(jmsContext.createQueue(COMMAND_QUEUE_URI), requestMessage);
+
+                List<PCFMessage> responses = new ArrayList<>();
+                long deadline = System.nanoTime() + timeout.toNanos();
+                while (true) {
+                    long remainingMillis = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                    Message reply = (remainingMillis > 0) ? consumer.receive(remainingMillis) : null;
+
+                    if (!(reply instanceof BytesMessage bytesReply)) {
+                        throw new JMSRuntimeException(
+                                String.format("No (complete) reply to PCF command %d within %s", request.getCommand(), timeout)
+                        );
+                    }
+
+                    PCFMessage response = fromBytesMessage(bytesReply);
+
+                    if (response.getCompCode() != MQConstants.MQCC_OK) {
+                        throw new JMSRuntimeException(
+                                String.format(
+                                        "PCF command %d failed with completion code %d and reason %d",
+                                        request.getCommand(),
+                                        response.getCompCode(),
+                                        response.getReason()
+                                ),
+                                String.valueOf(response.getReason())
+                        );
+                    }
+                    responses.add(response);
+
+                    if (response.getControl() == MQConstants.MQCFC_LAST) {
+                        return List.copyOf(responses);
+                    }
+                }
+            } finally {
+                replyQueue.delete();
+            }
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+    }
+
+    private static byte[] toBytes(PCFMessage pcfMessage) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(pcfMessage.size());
+            DataOutputStream dos = new DataOutputStream(bos);
+            pcfMessage.write(dos);
+            dos.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            // Thrown as JMSRuntimeException, like any other inquiry failure
+            throw new JMSRuntimeException(String.format("Could not encode PCF command: %s", e.getMessage()), null, e);
+        }
+    }
+
+    private static PCFMessage fromBytesMessage(BytesMessage message) throws JMSException {
+        byte[] bytes = new byte[(int) message.getBodyLength()];
+        message.readBytes(bytes);
+
+        int encoding = message.propertyExists(WMQConstants.JMS_IBM_ENCODING) ?
+                message.getIntProperty(WMQConstants.JMS_IBM_ENCODING) :
+                MQConstants.MQENC_INTEGER_NORMAL;
+        boolean littleEndian =
+                (encoding & MQConstants.MQENC_INTEGER_MASK) == MQConstants.MQENC_INTEGER_REVERSED;
+
+        InputStream is = new ByteArrayInputStream(bytes);
+        DataInput dataInput = littleEndian ? new LittleEndianDataInputStream(is) : new DataInputStream(is);
+
+        try {
+            return new PCFMessage(dataInput);
+        } catch (MQDataException e) {
+            throw new JMSRuntimeException(e.getMessage(), String.valueOf(e.getReason()), e);
+        } catch (IOException e) {
+            // A truncated or otherwise malformed PCF response
+            throw new JMSRuntimeException(String.format("Could not decode PCF response: %s", e.getMessage()), null, e);
+        }
+    }
+}
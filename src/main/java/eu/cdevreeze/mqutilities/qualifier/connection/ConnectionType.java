@@ -26,7 +26,7 @@ import java.util.Arrays;
  * @author Chris de Vreeze
  */
 public enum ConnectionType {
-    SIMPLE, TWO_WAY_SSL;
+    SIMPLE, TWO_WAY_SSL, MULTI_QUEUE_MANAGER;
 
     public static ConnectionType parse(String s) {
         return Arrays.stream(values())
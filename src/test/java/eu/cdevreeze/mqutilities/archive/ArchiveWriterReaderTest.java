@@ -0,0 +1,286 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import jakarta.jms.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests of {@link ArchiveWriter} and {@link ArchiveReader}, with multiple blocks and segments.
+ *
+ * @author Chris de Vreeze
+ */
+class ArchiveWriterReaderTest {
+
+    private static final int MESSAGE_COUNT = 3000;
+    private static final long MAX_SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Returns the body of the given message number. Every 500th message is larger than a block, and the
+     * others vary in size and content, so that they do not compress too well.
+     */
+    private static String text(int messageNumber) {
+        if (messageNumber % 500 == 250) {
+            return "large-" + messageNumber + "-" + "éx".repeat(ArchiveFormat.BLOCK_SIZE);
+        }
+        Random random = new Random(messageNumber);
+        StringBuilder sb = new StringBuilder("text-" + messageNumber + "-");
+        int length = random.nextInt(2000);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private static Message message(int messageNumber) {
+        TestMessages.Headers headers =
+                TestMessages.Headers.of("ID:" + messageNumber, Map.of("number", messageNumber));
+        return switch (messageNumber % 4) {
+            case 0, 1 -> TestMessages.textMessage(headers, text(messageNumber));
+            case 2 -> TestMessages.bytesMessage(headers, text(messageNumber).getBytes());
+            default -> TestMessages.mapMessage(headers, Map.of("text", text(messageNumber)));
+        };
+    }
+
+    private static void assertRecord(int messageNumber, ArchiveRecord record) {
+        assertEquals("ID:" + messageNumber, record.messageId());
+        assertEquals(messageNumber, record.properties().get("number"));
+        switch (messageNumber % 4) {
+            case 0, 1 -> assertEquals(text(messageNumber), record.textBody());
+            case 2 -> assertArrayEquals(text(messageNumber).getBytes(), record.bytesBody());
+            default -> assertEquals(text(messageNumber), record.mapBody().get("text"));
+        }
+    }
+
+    private Path writeArchive(ArchiveWriter.Compression compression) {
+        Path directory = tempDir.resolve("archive");
+        try (ArchiveWriter writer = new ArchiveWriter(directory, compression, MAX_SEGMENT_BYTES)) {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                writer.append(message(i));
+                if (i % 1000 == 999) {
+                    writer.flush();
+                }
+            }
+            assertEquals(MESSAGE_COUNT, writer.recordCount());
+        }
+        return directory;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void readsAllRecordsInOrderAcrossSegments(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            assertEquals(MESSAGE_COUNT, reader.recordCount());
+            assertTrue(reader.segmentFiles().size() > 1, "Expected multiple segments");
+
+            List<ArchiveRecord> records = new ArrayList<>();
+            reader.forEach(records::add);
+
+            assertEquals(MESSAGE_COUNT, records.size());
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                assertRecord(i, records.get(i));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void segmentsPartitionTheRecordNumbers(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            long expectedFirst = 0;
+            for (int segment = 0; segment < reader.segmentFiles().size(); segment++) {
+                assertEquals(expectedFirst, reader.firstRecordNumber(segment));
+                assertTrue(reader.endRecordNumber(segment) > expectedFirst, "Segments are never empty");
+
+                List<Long> recordNumbers = new ArrayList<>();
+                reader.forEachInSegment(segment, reader.firstRecordNumber(segment), (record, recordNumber) -> {
+                    assertRecord(Math.toIntExact(recordNumber), record);
+                    recordNumbers.add(recordNumber);
+                });
+                assertEquals(reader.endRecordNumber(segment) - expectedFirst, recordNumbers.size());
+
+                expectedFirst = reader.endRecordNumber(segment);
+            }
+            assertEquals(MESSAGE_COUNT, expectedFirst);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void resumesWithinASegment(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            int segment = reader.segmentFiles().size() - 1;
+            long first = reader.firstRecordNumber(segment);
+            long end = reader.endRecordNumber(segment);
+            long from = first + (end - first) / 2;
+
+            List<Long> recordNumbers = new ArrayList<>();
+            reader.forEachInSegment(segment, from, (record, recordNumber) -> {
+                assertRecord(Math.toIntExact(recordNumber), record);
+                recordNumbers.add(recordNumber);
+            });
+            assertEquals(end - from, recordNumbers.size());
+            assertEquals(from, recordNumbers.get(0));
+
+            List<Long> none = new ArrayList<>();
+            reader.forEachInSegment(segment, end, (record, recordNumber) -> none.add(recordNumber));
+            assertTrue(none.isEmpty());
+
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> reader.forEachInSegment(segment, end + 1, (record, recordNumber) -> {
+                    })
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void readsRecordsByRecordNumber(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            Random random = new Random(42);
+            for (int i = 0; i < 200; i++) {
+                int recordNumber = random.nextInt(MESSAGE_COUNT);
+                assertRecord(recordNumber, reader.read(recordNumber));
+            }
+            assertRecord(0, reader.read(0));
+            assertRecord(MESSAGE_COUNT - 1, reader.read(MESSAGE_COUNT - 1));
+            assertRecord(250, reader.read(250));
+
+            assertThrows(IllegalArgumentException.class, () -> reader.read(MESSAGE_COUNT));
+            assertThrows(IllegalArgumentException.class, () -> reader.read(-1));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void readsAnEmptyArchive(ArchiveWriter.Compression compression) {
+        Path directory = tempDir.resolve("empty");
+        try (ArchiveWriter writer = new ArchiveWriter(directory, compression, MAX_SEGMENT_BYTES)) {
+            writer.flush();
+        }
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            assertEquals(0, reader.recordCount());
+            assertTrue(reader.segmentFiles().isEmpty());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void discardsPendingRecords(ArchiveWriter.Compression compression) {
+        Path directory = tempDir.resolve("discarded");
+        try (ArchiveWriter writer = new ArchiveWriter(directory, compression, MAX_SEGMENT_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(message(i));
+            }
+            writer.flush();
+            for (int i = 10; i < 15; i++) {
+                writer.append(message(i));
+            }
+            writer.discardPending();
+            assertEquals(10, writer.recordCount());
+        }
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            assertEquals(10, reader.recordCount());
+            List<ArchiveRecord> records = new ArrayList<>();
+            reader.forEach(records::add);
+            for (int i = 0; i < records.size(); i++) {
+                assertRecord(i, records.get(i));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void refusesToOverwriteAnArchive(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ArchiveWriter(directory, compression, MAX_SEGMENT_BYTES)
+        );
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArchiveWriter.Compression.class)
+    void failsOnATruncatedSegment(ArchiveWriter.Compression compression) {
+        Path directory = writeArchive(compression);
+        Path segmentFile = ArchiveFormat.segmentFiles(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+            channel.truncate(ArchiveFormat.SEGMENT_HEADER_SIZE + ArchiveFormat.BLOCK_HEADER_SIZE + 100);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            assertThrows(IllegalStateException.class, () -> reader.read(0));
+            assertThrows(IllegalStateException.class, () -> reader.forEachInSegment(0, rec -> {
+            }));
+        }
+    }
+
+    @Test
+    void failsOnATruncatedDeflateStream() {
+        Path directory = writeArchive(ArchiveWriter.Compression.DEFLATE);
+        Path segmentFile = ArchiveFormat.segmentFiles(directory).get(0);
+        // Halve the stored length of the first block, so that the framing is intact but the deflate stream is cut
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer storedLength = ByteBuffer.allocate(4);
+            channel.read(storedLength, ArchiveFormat.SEGMENT_HEADER_SIZE);
+            channel.write(ByteBuffer.allocate(4).putInt(0, storedLength.getInt(0) / 2), ArchiveFormat.SEGMENT_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (ArchiveReader reader = ArchiveReader.open(directory)) {
+            assertTimeoutPreemptively(
+                    Duration.ofSeconds(10),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.read(0))
+            );
+        }
+    }
+}
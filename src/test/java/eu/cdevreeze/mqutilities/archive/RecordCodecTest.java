@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests of {@link RecordCodec} and {@link RecordBuffer}.
+ *
+ * @author Chris de Vreeze
+ */
+class RecordCodecTest {
+
+    static Map<String, Object> allValueTypes() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("boolean", true);
+        values.put("byte", (byte) -7);
+        values.put("short", (short) 1234);
+        values.put("char", 'é');
+        values.put("int", Integer.MIN_VALUE);
+        values.put("long", Long.MAX_VALUE);
+        values.put("float", 1.5f);
+        values.put("double", -2.25d);
+        values.put("string", "grüße € 😀");
+        values.put("emptyString", "");
+        values.put("bytes", new byte[]{0, 1, -1, 127, -128});
+        values.put("null", null);
+        return values;
+    }
+
+    @Test
+    void roundTripsHeadersAndAllPropertyTypes() throws JMSException {
+        TestMessages.Headers headers = new TestMessages.Headers(
+                "ID:414d5120514d31",
+                "correlation",
+                "type",
+                "queue:///DEV.QUEUE.1",
+                "queue:///DEV.REPLY",
+                1_700_000_000_123L,
+                1_700_000_060_000L,
+                1_700_000_001_000L,
+                9,
+                DeliveryMode.NON_PERSISTENT,
+                true,
+                allValueTypes()
+        );
+        ArchiveRecord record = roundTrip(TestMessages.textMessage(headers, "payload"));
+
+        assertEquals("ID:414d5120514d31", record.messageId());
+        assertEquals("correlation", record.correlationId());
+        assertEquals("type", record.jmsType());
+        assertEquals("queue:///DEV.QUEUE.1", record.destination());
+        assertEquals("queue:///DEV.REPLY", record.replyTo());
+        assertEquals(1_700_000_000_123L, record.timestamp());
+        assertEquals(1_700_000_060_000L, record.expiration());
+        assertEquals(1_700_000_001_000L, record.deliveryTime());
+        assertEquals(9, record.priority());
+        assertEquals(DeliveryMode.NON_PERSISTENT, record.deliveryMode());
+        assertTrue(record.redelivered());
+        assertValuesEqual(allValueTypes(), record.properties());
+        assertEquals(List.copyOf(allValueTypes().keySet()), List.copyOf(record.properties().keySet()));
+    }
+
+    @Test
+    void roundTripsNullHeaderStrings() throws JMSException {
+        TestMessages.Headers headers =
+                new TestMessages.Headers(null, null, null, null, null, 0L, 0L, 0L, 0, 0, false, Map.of());
+        ArchiveRecord record = roundTrip(TestMessages.textMessage(headers, "x"));
+
+        assertNull(record.messageId());
+        assertNull(record.correlationId());
+        assertNull(record.jmsType());
+        assertNull(record.destination());
+        assertNull(record.replyTo());
+        assertTrue(record.properties().isEmpty());
+    }
+
+    @Test
+    void roundTripsTextBodies() throws JMSException {
+        String largeText = "é€".repeat(3 * ArchiveFormat.BLOCK_SIZE);
+        for (String text : Arrays.asList("", "plain", "😀 emoji", largeText, null)) {
+            ArchiveRecord record = roundTrip(TestMessages.textMessage(headers(), text));
+
+            assertEquals(ArchiveRecord.BodyType.TEXT, record.bodyType());
+            assertEquals(text, record.textBody());
+        }
+    }
+
+    @Test
+    void rejectsUnpairedSurrogates() {
+        RecordBuffer buffer = new RecordBuffer(16);
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.putString("broken \uD83D text"));
+    }
+
+    @Test
+    void roundTripsBytesBodies() throws JMSException {
+        byte[] largeBytes = new byte[ArchiveFormat.BLOCK_SIZE + 17];
+        new Random(1).nextBytes(largeBytes);
+        for (byte[] bytes : Arrays.asList(new byte[0], new byte[]{1, 2, 3}, largeBytes, null)) {
+            ArchiveRecord record = roundTrip(TestMessages.bytesMessage(headers(), bytes));
+
+            assertEquals(ArchiveRecord.BodyType.BYTES, record.bodyType());
+            assertArrayEquals(bytes, record.bytesBody());
+        }
+    }
+
+    @Test
+    void roundTripsMapBodiesWithAllValueTypes() throws JMSException {
+        ArchiveRecord record = roundTrip(TestMessages.mapMessage(headers(), allValueTypes()));
+
+        assertEquals(ArchiveRecord.BodyType.MAP, record.bodyType());
+        assertValuesEqual(allValueTypes(), record.mapBody());
+    }
+
+    @Test
+    void roundTripsStreamBodiesWithAllValueTypes() throws JMSException {
+        List<Object> values = new ArrayList<>(allValueTypes().values());
+        ArchiveRecord record = roundTrip(TestMessages.streamMessage(headers(), values));
+
+        assertEquals(ArchiveRecord.BodyType.STREAM, record.bodyType());
+        assertEquals(values.size(), record.streamBody().size());
+        for (int i = 0; i < values.size(); i++) {
+            assertValueEquals(values.get(i), record.streamBody().get(i));
+        }
+    }
+
+    @Test
+    void roundTripsMessagesWithoutBody() throws JMSException {
+        ArchiveRecord record = roundTrip(TestMessages.message(headers()));
+
+        assertEquals(ArchiveRecord.BodyType.NONE, record.bodyType());
+        assertNull(record.body());
+    }
+
+    @Test
+    void decodesConsecutiveRecordsFromOneBuffer() throws JMSException {
+        RecordBuffer buffer = new RecordBuffer(8);
+        for (int i = 0; i < 100; i++) {
+            RecordCodec.encode(TestMessages.textMessage(headers(), "text-" + i), buffer);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("text-" + i, RecordCodec.decode(in).textBody());
+        }
+        assertFalse(in.hasRemaining());
+    }
+
+    static void assertValuesEqual(Map<String, Object> expected, Map<String, Object> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, value) -> assertValueEquals(value, actual.get(name)));
+    }
+
+    static void assertValueEquals(Object expected, Object actual) {
+        if (expected instanceof byte[] bytes) {
+            assertArrayEquals(bytes, (byte[]) actual);
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static TestMessages.Headers headers() {
+        return TestMessages.Headers.of("ID:1", Map.of());
+    }
+
+    private static ArchiveRecord roundTrip(Message message) throws JMSException {
+        // A small initial capacity exercises the growing of the buffer
+        RecordBuffer buffer = new RecordBuffer(16);
+        RecordCodec.encode(message, buffer);
+        ByteBuffer in = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        ArchiveRecord record = RecordCodec.decode(in);
+        assertFalse(in.hasRemaining());
+        return record;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.archive;
+
+import jakarta.jms.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Test messages, implemented as dynamic proxies, offering just enough of the JMS message interfaces for
+ * encoding them as archive records.
+ *
+ * @author Chris de Vreeze
+ */
+final class TestMessages {
+
+    private TestMessages() {
+    }
+
+    record Headers(
+            String messageId,
+            String correlationId,
+            String jmsType,
+            String destination,
+            String replyTo,
+            long timestamp,
+            long expiration,
+            long deliveryTime,
+            int priority,
+            int deliveryMode,
+            boolean redelivered,
+            Map<String, Object> properties) {
+
+        static Headers of(String messageId, Map<String, Object> properties) {
+            return new Headers(
+                    messageId,
+                    "correlation-" + messageId,
+                    "type",
+                    "queue:///DEV.QUEUE.1",
+                    null,
+                    1_700_000_000_000L,
+                    0L,
+                    0L,
+                    4,
+                    DeliveryMode.PERSISTENT,
+                    false,
+                    properties
+            );
+        }
+    }
+
+    static TextMessage textMessage(Headers headers, String text) {
+        return proxy(TextMessage.class, new MessageHandler(headers, (method, args) -> switch (method.getName()) {
+            case "getText" -> text;
+            default -> throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    static BytesMessage bytesMessage(Headers headers, byte[] bytes) {
+        return proxy(BytesMessage.class, new MessageHandler(headers, (method, args) -> switch (method.getName()) {
+            case "getBody" -> bytes;
+            case "getBodyLength" -> (bytes == null) ? 0L : (long) bytes.length;
+            default -> throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    static MapMessage mapMessage(Headers headers, Map<String, Object> map) {
+        return proxy(MapMessage.class, new MessageHandler(headers, (method, args) -> switch (method.getName()) {
+            case "getMapNames" -> Collections.enumeration(map.keySet());
+            case "getObject" -> map.get((String) args[0]);
+            default -> throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    static StreamMessage streamMessage(Headers headers, List<Object> values) {
+        int[] position = {0};
+        return proxy(StreamMessage.class, new MessageHandler(headers, (method, args) -> switch (method.getName()) {
+            case "readObject" -> {
+                if (position[0] == values.size()) {
+                    throw new MessageEOFException("End of stream");
+                }
+                yield values.get(position[0]++);
+            }
+            case "reset" -> {
+                position[0] = 0;
+                yield null;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    static Message message(Headers headers) {
+        return proxy(Message.class, new MessageHandler(headers, (method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TestMessages.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Destination destination(String name) {
+        return (name == null) ? null : proxy(Destination.class, (proxy, method, args) -> switch (method.getName()) {
+            case "toString" -> name;
+            case "hashCode" -> name.hashCode();
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private interface BodyHandler {
+
+        Object invoke(Method method, Object[] args) throws JMSException;
+    }
+
+    private record MessageHandler(Headers headers, BodyHandler bodyHandler) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws JMSException {
+            return switch (method.getName()) {
+                case "getJMSMessageID" -> headers.messageId();
+                case "getJMSCorrelationID" -> headers.correlationId();
+                case "getJMSType" -> headers.jmsType();
+                case "getJMSDestination" -> destination(headers.destination());
+                case "getJMSReplyTo" -> destination(headers.replyTo());
+                case "getJMSTimestamp" -> headers.timestamp();
+                case "getJMSExpiration" -> headers.expiration();
+                case "getJMSDeliveryTime" -> headers.deliveryTime();
+                case "getJMSPriority" -> headers.priority();
+                case "getJMSDeliveryMode" -> headers.deliveryMode();
+                case "getJMSRedelivered" -> headers.redelivered();
+                case "getPropertyNames" -> Collections.enumeration(headers.properties().keySet());
+                case "getObjectProperty" -> headers.properties().get((String) args[0]);
+                case "toString" -> "TestMessage[" + headers.messageId() + "]";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> bodyHandler.invoke(method, args);
+            };
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.console;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Comment;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Node;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests of {@link JmsPrograms#writeXml(Element, java.io.Writer)}: the written XML is parsed back,
+ * and compared with the original element tree.
+ *
+ * @author Chris de Vreeze
+ */
+class JmsProgramsTest {
+
+    private static final String NS_X = "urn:test:x";
+    private static final String NS_Y = "urn:test:y";
+
+    private static final NamespaceScope X_SCOPE = new NamespaceScope(ImmutableMap.of("", NS_X));
+    private static final NamespaceScope Y_SCOPE = new NamespaceScope(ImmutableMap.of("y", NS_Y));
+    private static final NamespaceScope EMPTY_SCOPE = new NamespaceScope(ImmutableMap.of());
+
+    private static Element element(QName name, ImmutableMap<QName, String> attributes, NamespaceScope scope, Node... children) {
+        return new Element(name, attributes, scope, ImmutableList.copyOf(children));
+    }
+
+    /**
+     * Returns an element tree with a default namespace, a child without namespace (which must undeclare the
+     * default namespace), a prefixed grandchild with a prefixed attribute, and text that needs escaping.
+     */
+    private static Element sampleElement() {
+        Element leaf = element(
+                new QName(NS_Y, "leaf", "y"),
+                ImmutableMap.of(new QName(NS_Y, "kind", "y"), "grand\"child", new QName("plain"), "1"),
+                Y_SCOPE,
+                new Text("a < b & c > d", false)
+        );
+        Element unqualified = element(new QName("unqualified"), ImmutableMap.of(), EMPTY_SCOPE, leaf);
+        Element item = element(
+                new QName(NS_X, "item"),
+                ImmutableMap.of(),
+                X_SCOPE,
+                new Text("<payload>]]&gt;</payload>", true)
+        );
+        return element(
+                new QName(NS_X, "root"),
+                ImmutableMap.of(new QName("version"), "1.0"),
+                X_SCOPE,
+                item,
+                new Comment(" a comment "),
+                unqualified
+        );
+    }
+
+    private static org.w3c.dom.Element parse(String xml) throws Exception {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        documentBuilderFactory.setCoalescing(true);
+        return documentBuilderFactory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
+
+    private static void assertSameElement(Element expected, org.w3c.dom.Element actual) {
+        String path = actual.getTagName();
+        assertEquals(expected.name().getNamespaceURI(), nullToEmpty(actual.getNamespaceURI()), path);
+        assertEquals(expected.name().getLocalPart(), actual.getLocalName(), path);
+
+        Map<QName, String> actualAttributes = new HashMap<>();
+        for (int i = 0; i < actual.getAttributes().getLength(); i++) {
+            org.w3c.dom.Node attribute = actual.getAttributes().item(i);
+            if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                actualAttributes.put(
+                        new QName(nullToEmpty(attribute.getNamespaceURI()), attribute.getLocalName()),
+                        attribute.getNodeValue()
+                );
+            }
+        }
+        assertEquals(Map.copyOf(expected.attributes()), actualAttributes, path);
+
+        List<Element> expectedChildElements = expected.children().stream()
+                .filter(n -> n instanceof Element)
+                .map(n -> (Element) n)
+                .toList();
+        List<org.w3c.dom.Element> actualChildElements = new ArrayList<>();
+        StringBuilder actualText = new StringBuilder();
+        for (org.w3c.dom.Node child = actual.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof org.w3c.dom.Element childElement) {
+                actualChildElements.add(childElement);
+            } else if (child instanceof org.w3c.dom.Text text) {
+                actualText.append(text.getData());
+            }
+        }
+        String expectedText = expected.children().stream()
+                .filter(n -> n instanceof Text)
+                .map(n -> ((Text) n).value())
+                .reduce("", String::concat);
+        assertEquals(expectedText, actualText.toString(), path);
+
+        assertEquals(expectedChildElements.size(), actualChildElements.size(), path);
+        for (int i = 0; i < expectedChildElements.size(); i++) {
+            assertSameElement(expectedChildElements.get(i), actualChildElements.get(i));
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return (s == null) ? "" : s;
+    }
+
+    @Test
+    void writtenXmlParsesBackToTheSameElementTree() throws Exception {
+        Element element = sampleElement();
+        StringWriter writer = new StringWriter();
+        JmsPrograms.writeXml(element, writer);
+
+        assertSameElement(element, parse(writer.toString()));
+    }
+
+    @Test
+    void undeclaresTheDefaultNamespaceForUnqualifiedChildren() throws Exception {
+        StringWriter writer = new StringWriter();
+        JmsPrograms.writeXml(sampleElement(), writer);
+        String xml = writer.toString();
+
+        assertTrue(xml.contains("<unqualified xmlns=\"\">"), xml);
+        org.w3c.dom.Element unqualified =
+                (org.w3c.dom.Element) parse(xml).getElementsByTagNameNS("", "unqualified").item(0);
+        assertNotNull(unqualified, xml);
+        assertNull(unqualified.getNamespaceURI(), xml);
+    }
+
+    @Test
+    void keepsCommentsAndCData() throws Exception {
+        StringWriter writer = new StringWriter();
+        JmsPrograms.writeXml(sampleElement(), writer);
+        String xml = writer.toString();
+
+        assertTrue(xml.contains("<!-- a comment -->"), xml);
+        assertTrue(xml.contains("<![CDATA[<payload>]]&gt;</payload>]]>"), xml);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link KeyedRecordPartitions}, covering multi-byte length prefixes and the order in which
+ * spilled and buffered records are read back.
+ *
+ * @author Chris de Vreeze
+ */
+class KeyedRecordPartitionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private record KeyedRecord(String key, String messageId) {
+    }
+
+    private static List<List<KeyedRecord>> readAll(KeyedRecordPartitions partitions) {
+        List<List<KeyedRecord>> result = new ArrayList<>();
+        for (int i = 0; i < partitions.partitionCount(); i++) {
+            List<KeyedRecord> records = new ArrayList<>();
+            partitions.forEachInPartition(i, (key, messageId) -> records.add(new KeyedRecord(key, messageId)));
+            result.add(records);
+        }
+        return result;
+    }
+
+    private static long spillFileCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testLengthsNeedingMultipleVarintBytes() {
+        // UTF-8 lengths around the 1, 2 and 3 byte varint boundaries, including multi-byte characters
+        List<String> keys = List.of(
+                "",
+                "k".repeat(127),
+                "k".repeat(128),
+                "é".repeat(100),
+                "k".repeat(16_383),
+                "k".repeat(16_384),
+                "✓".repeat(30_000)
+        );
+        try (KeyedRecordPartitions partitions = new KeyedRecordPartitions(tempDir, "varint", 1, 1L << 30)) {
+            for (String key : keys) {
+                partitions.add(key, "ID:" + key.length() + "-" + "m".repeat(key.length() % 300));
+            }
+
+            List<KeyedRecord> records = readAll(partitions).get(0);
+            assertEquals(keys.size(), records.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                assertEquals(key, records.get(i).key());
+                assertEquals("ID:" + key.length() + "-" + "m".repeat(key.length() % 300), records.get(i).messageId());
+            }
+        }
+    }
+
+    @Test
+    void testSpilledAndBufferedRecordsAreReadBackInInsertionOrder() throws IOException {
+        int recordCount = 20_000;
+        try (KeyedRecordPartitions partitions = new KeyedRecordPartitions(tempDir, "spill", 8, 16 * 1024)) {
+            for (int i = 0; i < recordCount; i++) {
+                // Some keys occur multiple times, and some records are large enough for 2-byte length prefixes
+                String key = "key-" + (i % 5000) + ((i % 997 == 0) ? "x".repeat(200) : "");
+                partitions.add(key, String.valueOf(i));
+            }
+
+            assertEquals(recordCount, partitions.recordCount());
+            assertTrue(partitions.spilledByteCount() > 0);
+            assertTrue(spillFileCount(tempDir) > 0);
+
+            List<List<KeyedRecord>> partitionRecords = readAll(partitions);
+            Map<String, Integer> partitionOfKey = new HashMap<>();
+            Set<Integer> seenRecordNumbers = new HashSet<>();
+
+            for (int p = 0; p < partitionRecords.size(); p++) {
+                int partition = p;
+                int previousRecordNumber = -1;
+                for (KeyedRecord record : partitionRecords.get(p)) {
+                    int recordNumber = Integer.parseInt(record.messageId());
+                    assertTrue(recordNumber > previousRecordNumber, "insertion order within partition " + p);
+                    previousRecordNumber = recordNumber;
+
+                    String expectedKey = "key-" + (recordNumber % 5000) +
+                            ((recordNumber % 997 == 0) ? "x".repeat(200) : "");
+                    assertEquals(expectedKey, record.key());
+                    assertEquals(p, partitionOfKey.computeIfAbsent(record.key(), k -> partition), "partition of key");
+                    assertTrue(seenRecordNumbers.add(recordNumber));
+                }
+            }
+            assertEquals(recordCount, seenRecordNumbers.size());
+        }
+        assertEquals(0, spillFileCount(tempDir));
+    }
+
+    @Test
+    void testNoSpillWithinBudget() throws IOException {
+        try (KeyedRecordPartitions partitions = new KeyedRecordPartitions(tempDir, "nospill", 4, 1L << 20)) {
+            for (int i = 0; i < 1000; i++) {
+                partitions.add("key-" + i, "ID:" + i);
+            }
+
+            assertEquals(0, partitions.spilledByteCount());
+            assertEquals(0, spillFileCount(tempDir));
+            assertEquals(1000, readAll(partitions).stream().mapToInt(List::size).sum());
+        }
+    }
+
+    @Test
+    void testPartitionIndexIsChecked() {
+        try (KeyedRecordPartitions partitions = new KeyedRecordPartitions(tempDir, "index", 2, 1024)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> partitions.forEachInPartition(2, (k, v) -> {
+            }));
+        }
+    }
+}
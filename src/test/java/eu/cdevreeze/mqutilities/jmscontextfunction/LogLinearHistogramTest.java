@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link LogLinearHistogram}, covering the bucket layout, percentiles and merging.
+ *
+ * @author Chris de Vreeze
+ */
+class LogLinearHistogramTest {
+
+    private static final int LAST_BUCKET_INDEX = LogLinearHistogram.bucketIndex(Long.MAX_VALUE);
+
+    @Test
+    void testSmallValuesAreExact() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LogLinearHistogram.bucketIndex(value));
+            assertEquals(value, LogLinearHistogram.bucketLowerBound(value));
+            assertEquals(value, LogLinearHistogram.bucketUpperBound(value));
+        }
+    }
+
+    @Test
+    void testBucketsAreContiguousUpToMaxLong() {
+        assertEquals(0, LogLinearHistogram.bucketLowerBound(0));
+        for (int i = 0; i < LAST_BUCKET_INDEX; i++) {
+            assertEquals(LogLinearHistogram.bucketUpperBound(i) + 1, LogLinearHistogram.bucketLowerBound(i + 1));
+        }
+        assertEquals(Long.MAX_VALUE, LogLinearHistogram.bucketUpperBound(LAST_BUCKET_INDEX));
+
+        for (int i = 0; i <= LAST_BUCKET_INDEX; i++) {
+            assertEquals(i, LogLinearHistogram.bucketIndex(LogLinearHistogram.bucketLowerBound(i)));
+            assertEquals(i, LogLinearHistogram.bucketIndex(LogLinearHistogram.bucketUpperBound(i)));
+        }
+    }
+
+    @Test
+    void testRelativeErrorIsBelowOneSixteenth() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long value = 16 + (random.nextLong() >>> (1 + random.nextInt(63))) % (Long.MAX_VALUE - 16);
+            int index = LogLinearHistogram.bucketIndex(value);
+            long lowerBound = LogLinearHistogram.bucketLowerBound(index);
+            long upperBound = LogLinearHistogram.bucketUpperBound(index);
+
+            assertTrue(lowerBound <= value && value <= upperBound, "value " + value);
+            // In integer arithmetic, since a double cannot tell 2^56 - 1 from 2^56
+            assertTrue(16 * (upperBound - lowerBound) < lowerBound, "value " + value);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1, histogram.percentile(0.0));
+        assertEquals(1000, histogram.percentile(100.0));
+        for (double percentile : new double[]{25.0, 50.0, 90.0, 99.0}) {
+            long exact = (long) Math.ceil(percentile * 10);
+            long estimate = histogram.percentile(percentile);
+            assertTrue(estimate >= exact && estimate < exact * (1 + 1.0 / 16) + 1, "p" + percentile);
+        }
+    }
+
+    @Test
+    void testPercentileNeverExceedsMax() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(1000);
+        histogram.record(1001);
+
+        // 1000 and 1001 share a bucket whose upper bound is larger than 1001
+        assertTrue(LogLinearHistogram.bucketUpperBound(LogLinearHistogram.bucketIndex(1001)) > 1001);
+        assertEquals(1001, histogram.percentile(50.0));
+        assertEquals(1001, histogram.percentile(100.0));
+    }
+
+    @Test
+    void testMergeEqualsRecordingAll() {
+        LogLinearHistogram all = new LogLinearHistogram();
+        LogLinearHistogram first = new LogLinearHistogram();
+        LogLinearHistogram second = new LogLinearHistogram();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(1_000_000);
+            all.record(value);
+            (i % 3 == 0 ? first : second).record(value);
+        }
+        first.add(second);
+
+        assertEquals(all.toJsonObject(), first.toJsonObject());
+    }
+
+    @Test
+    void testMergeWithEmptyHistogram() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(42);
+        JsonObject before = histogram.toJsonObject();
+
+        histogram.add(new LogLinearHistogram());
+
+        assertEquals(before, histogram.toJsonObject());
+    }
+
+    @Test
+    void testJsonObject() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(2_000_000);
+        histogram.record(4_000_000);
+
+        JsonObject json = histogram.toJsonObject(1_000_000.0);
+        assertEquals(2, json.getInt("count"));
+        assertEquals(2.0, json.getJsonNumber("min").doubleValue());
+        assertEquals(3.0, json.getJsonNumber("mean").doubleValue());
+        assertEquals(4.0, json.getJsonNumber("max").doubleValue());
+        assertEquals(2, json.getJsonArray("buckets").size());
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+
+        assertEquals(0, histogram.toJsonObject().getInt("count"));
+        assertFalse(histogram.toJsonObject().containsKey("p50"));
+        assertThrows(IllegalStateException.class, () -> histogram.percentile(50.0));
+    }
+
+    @Test
+    void testNegativeValueIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram().record(-1));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link LongHashSet}, including the value 0 (the empty-slot marker) and table resizes.
+ *
+ * @author Chris de Vreeze
+ */
+class LongHashSetTest {
+
+    @Test
+    void testZeroIsAnOrdinaryMember() {
+        LongHashSet set = new LongHashSet();
+
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+
+        assertTrue(set.add(1L));
+        assertTrue(set.add(-1L));
+        assertTrue(set.contains(0L));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void testZeroSurvivesResizes() {
+        LongHashSet set = new LongHashSet(0);
+        set.add(0L);
+        for (long value = 1; value <= 1000; value++) {
+            set.add(value);
+        }
+
+        assertTrue(set.contains(0L));
+        assertEquals(1001, set.size());
+    }
+
+    @Test
+    void testResizeKeepsAllValues() {
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            // Include colliding low bits and extreme values, besides random ones
+            long value = switch (i % 4) {
+                case 0 -> (long) i << 32;
+                case 1 -> Long.MIN_VALUE + i;
+                default -> random.nextLong();
+            };
+            assertEquals(expected.add(value), set.add(value), "add " + value);
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertTrue(set.contains(value), "contains " + value);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong();
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    void testDuplicatesAreNotCounted() {
+        LongHashSet set = new LongHashSet(4);
+        for (int round = 0; round < 3; round++) {
+            for (long value = -50; value < 50; value++) {
+                assertEquals(round == 0, set.add(value));
+            }
+        }
+
+        assertEquals(100, set.size());
+        assertFalse(set.contains(50L));
+    }
+
+    @Test
+    void testNegativeExpectedSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(-1));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link MessageIdArena}, covering both the compact hex path and the UTF-8 fallback.
+ *
+ * @author Chris de Vreeze
+ */
+class MessageIdArenaTest {
+
+    private static final String MQ_MESSAGE_ID = "ID:414d5120514d31202020202020202020a1b2c3d4e5f60718";
+
+    @Test
+    void testMqMessageIdIsStoredAsRawBytes() {
+        MessageIdArena arena = new MessageIdArena();
+
+        assertEquals(0, arena.add(MQ_MESSAGE_ID));
+        assertEquals(MQ_MESSAGE_ID, arena.get(0));
+        // One tag byte plus 24 raw bytes, plus 4 bytes for the offset
+        assertEquals(1 + 24 + 4, arena.byteCount());
+    }
+
+    @Test
+    void testOtherMessageIdsFallBackToUtf8() {
+        List<String> messageIds = List.of(
+                // Uppercase hex digits would not survive the hex round trip
+                "ID:414D5120514D31202020202020202020A1B2C3D4E5F60718",
+                // Odd number of hex digits
+                "ID:abc",
+                "ID:not-hex",
+                "no-prefix",
+                "ID:héllo wörld ✓",
+                ""
+        );
+        MessageIdArena arena = new MessageIdArena();
+        messageIds.forEach(arena::add);
+
+        for (int i = 0; i < messageIds.size(); i++) {
+            assertEquals(messageIds.get(i), arena.get(i));
+        }
+        assertEquals(messageIds.size(), arena.size());
+        long expectedByteCount = messageIds.stream()
+                .mapToLong(id -> 1 + id.getBytes(StandardCharsets.UTF_8).length + 4)
+                .sum();
+        assertEquals(expectedByteCount, arena.byteCount());
+    }
+
+    @Test
+    void testEmptyHexId() {
+        MessageIdArena arena = new MessageIdArena();
+        arena.add("ID:");
+        arena.add(MQ_MESSAGE_ID);
+
+        assertEquals("ID:", arena.get(0));
+        assertEquals(MQ_MESSAGE_ID, arena.get(1));
+    }
+
+    @Test
+    void testGrowingKeepsAllIds() {
+        MessageIdArena arena = new MessageIdArena();
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(7);
+        byte[] rawId = new byte[24];
+
+        // Enough IDs to grow both the offsets array and the data array several times
+        for (int i = 0; i < 20_000; i++) {
+            String messageId;
+            if (i % 3 == 0) {
+                messageId = "custom-" + i;
+            } else {
+                random.nextBytes(rawId);
+                messageId = "ID:" + HexFormat.of().formatHex(rawId);
+            }
+            expected.add(messageId);
+            assertEquals(i, arena.add(messageId));
+        }
+
+        assertEquals(expected.size(), arena.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), arena.get(i));
+        }
+    }
+
+    @Test
+    void testIndexOutOfBounds() {
+        MessageIdArena arena = new MessageIdArena();
+        arena.add(MQ_MESSAGE_ID);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.get(-1));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link PayloadFilter}, in particular of the streaming JSON pointer matcher.
+ *
+ * @author Chris de Vreeze
+ */
+class PayloadFilterTest {
+
+    private static final String ORDER_JSON = """
+            {
+              "id": "order-1",
+              "skipped": {"id": "nested", "list": [1, {"id": 2}]},
+              "lines": [
+                {"sku": "A", "quantity": 1},
+                {"sku": "B", "quantity": 2.50, "tags": ["x", "y"]}
+              ],
+              "paid": true,
+              "note": null,
+              "a/b": {"c~d": "escaped"},
+              "0": "numeric key",
+              "customer": {"name": "Jane", "address": {"city": "Utrecht"}}
+            }
+            """;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "/id|true",
+            "/id=order-1|true",
+            "/id=\"order-1\"|false",
+            "/id=order-2|false",
+            "/customer/address/city=Utrecht|true",
+            "/customer/address/zip|false",
+            "/lines/0/sku=A|true",
+            "/lines/1/sku=B|true",
+            "/lines/1/quantity=2.50|true",
+            "/lines/1/quantity=2.5|false",
+            "/lines/1/tags/1=y|true",
+            "/lines/2|false",
+            "/lines/-1|false",
+            "/paid=true|true",
+            "/paid=false|false",
+            "/note=null|true",
+            "/note|true",
+            "/a~1b/c~0d=escaped|true",
+            "/0=numeric key|true",
+            "/skipped/list/1/id=2|true",
+            "/customer|true",
+            "/customer={\"name\": \"Jane\"}|false",
+            "''|true",
+            "/missing|false"
+    })
+    void testJsonPointer(String expression, boolean expectedMatch) {
+        PayloadFilter filter = PayloadFilter.parse("json-pointer:" + expression);
+
+        assertEquals(expectedMatch, filter.test(ORDER_JSON));
+    }
+
+    @Test
+    void testJsonPointerWithinTopLevelArray() {
+        PayloadFilter filter = PayloadFilter.parse("json-pointer:/1/id=b");
+
+        assertTrue(filter.test("[{\"id\": \"a\"}, {\"id\": \"b\"}]"));
+        assertFalse(filter.test("[{\"id\": \"b\"}]"));
+        assertFalse(filter.test("{\"1\": [{\"id\": \"b\"}]}"));
+    }
+
+    @Test
+    void testJsonPointerStopsAtMatch() {
+        PayloadFilter filter = PayloadFilter.parse("json-pointer:/a=1");
+
+        // The parse stops as soon as the result is known, so the malformed remainder is never seen
+        assertTrue(filter.test("{\"a\": 1, \"b\": ][ not json"));
+        assertFalse(filter.test("{\"b\": ][ not json, \"a\": 1}"));
+    }
+
+    @Test
+    void testJsonPointerOnNonJsonPayload() {
+        PayloadFilter filter = PayloadFilter.parse("json-pointer:/a");
+
+        assertFalse(filter.test("<a>1</a>"));
+        assertFalse(filter.test(""));
+        assertFalse(filter.test(null));
+    }
+
+    @Test
+    void testInvalidJsonPointerIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PayloadFilter.parse("json-pointer:a/b"));
+    }
+
+    @Test
+    void testContainsAndRegex() {
+        assertTrue(PayloadFilter.parse("contains:lo w").test("hello world"));
+        assertFalse(PayloadFilter.parse("contains:LO W").test("hello world"));
+        assertTrue(PayloadFilter.parse("regex:w[aeiou]rld$").test("hello world"));
+        assertFalse(PayloadFilter.parse("regex:^world").test("hello world"));
+    }
+
+    @Test
+    void testXPath() {
+        PayloadFilter filter = PayloadFilter.parse("xpath://line[@sku = 'B']/quantity > 1");
+
+        assertTrue(filter.test("<order><line sku='A'><quantity>1</quantity></line>" +
+                "<line sku='B'><quantity>2</quantity></line></order>"));
+        assertFalse(filter.test("<order><line sku='B'><quantity>1</quantity></line></order>"));
+        assertFalse(filter.test("not xml"));
+    }
+
+    @Test
+    void testParseAndToString() {
+        PayloadFilter filter = PayloadFilter.parse("JSON-POINTER:/a/b=c:d");
+
+        assertEquals(PayloadFilter.Kind.JSON_POINTER, filter.kind());
+        assertEquals("/a/b=c:d", filter.expression());
+        assertEquals("json-pointer:/a/b=c:d", filter.toString());
+    }
+
+    @Test
+    void testInvalidSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PayloadFilter.parse("no-colon"));
+        IllegalArgumentException e =
+                assertThrows(IllegalArgumentException.class, () -> PayloadFilter.parse("jsonpath:$.a"));
+        assertTrue(e.getMessage().contains("jsonpath"));
+        assertTrue(e.getMessage().contains("json-pointer"));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.mqutilities.jmscontextfunction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link TopKCounter}.
+ *
+ * @author Chris de Vreeze
+ */
+class TopKCounterTest {
+
+    @Test
+    void testExactCountsForFewItems() {
+        TopKCounter counter = new TopKCounter(10);
+        addTimes(counter, "a", 5);
+        addTimes(counter, "b", 3);
+        addTimes(counter, "c", 1);
+
+        assertEquals(
+                List.of(
+                        new TopKCounter.ItemCount("a", 5),
+                        new TopKCounter.ItemCount("b", 3),
+                        new TopKCounter.ItemCount("c", 1)
+                ),
+                counter.topItems()
+        );
+    }
+
+    @Test
+    void testHeavyHittersAreFoundAmongManyRareItems() {
+        TopKCounter counter = new TopKCounter(3);
+
+        // Interleave the heavy hitters with 5000 items that occur once
+        for (int i = 0; i < 5000; i++) {
+            counter.add("rare-" + i);
+            if (i % 50 == 0) {
+                counter.add("heavy-1");
+            }
+            if (i % 60 == 0) {
+                counter.add("heavy-2");
+            }
+            if (i % 80 == 0) {
+                counter.add("heavy-3");
+            }
+        }
+
+        List<TopKCounter.ItemCount> topItems = counter.topItems();
+        assertEquals(List.of("heavy-1", "heavy-2", "heavy-3"), topItems.stream().map(TopKCounter.ItemCount::item).toList());
+        assertTrue(topItems.get(0).estimatedCount() >= 100);
+        assertTrue(topItems.get(1).estimatedCount() >= 84);
+        assertTrue(topItems.get(2).estimatedCount() >= 63);
+    }
+
+    @Test
+    void testNeverUnderestimates() {
+        // A very narrow sketch, so that many items share counters
+        TopKCounter counter = new TopKCounter(20, 8, 2);
+        Map<String, Long> exactCounts = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String item = "item-" + (i * 7 % 37);
+            counter.add(item);
+            exactCounts.merge(item, 1L, Long::sum);
+        }
+
+        List<TopKCounter.ItemCount> topItems = counter.topItems();
+        assertEquals(20, topItems.size());
+        for (TopKCounter.ItemCount itemCount : topItems) {
+            assertTrue(itemCount.estimatedCount() >= exactCounts.get(itemCount.item()), itemCount.item());
+        }
+    }
+
+    @Test
+    void testTiesAreOrderedByItem() {
+        TopKCounter counter = new TopKCounter(5);
+        counter.add("z");
+        counter.add("y");
+        counter.add("x");
+
+        assertEquals(List.of("x", "y", "z"), counter.topItems().stream().map(TopKCounter.ItemCount::item).toList());
+    }
+
+    @Test
+    void testInvalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TopKCounter(0));
+        assertThrows(IllegalArgumentException.class, () -> new TopKCounter(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TopKCounter(1, 1, 0));
+    }
+
+    private static void addTimes(TopKCounter counter, String item, int times) {
+        for (int i = 0; i < times; i++) {
+            counter.add(item);
+        }
+    }
+}